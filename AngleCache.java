@@ -0,0 +1,166 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe flyweight table of canonical {@link Angle} instances, and a
+ * constant-time lookup of cardinal directions by letter.
+ *
+ * <p>
+ * Datasets of points of interest repeat a small set of distinct angles many
+ * times, so loaders share one instance per valid latitude or longitude
+ * instead of allocating one per coordinate. The table is indexed by direction
+ * and whole arc seconds, and is filled in pages of {@value #PAGE_SIZE} angles
+ * as they are first used. Canonical angles are unique, so they can be
+ * compared by reference.
+ */
+public class AngleCache {
+
+    /** Angles per page of the table. */
+    private static final int PAGE_SIZE = 1 << 12;
+    private static final int MAX_LATITUDE = 90 * 3600;
+    private static final int MAX_LONGITUDE = 180 * 3600;
+    /** Pages per direction, enough for every valid longitude. */
+    private static final int PAGES_PER_DIRECTION = MAX_LONGITUDE / PAGE_SIZE + 1;
+
+    private static final CardinalDirection[] DIRECTIONS = CardinalDirection.values();
+    /** Direction for each letter below 128, or null. */
+    private static final CardinalDirection[] BY_LETTER = new CardinalDirection[128];
+
+    private static final AtomicReferenceArray<AtomicReferenceArray<Angle>> PAGES = new AtomicReferenceArray<>(
+            DIRECTIONS.length * PAGES_PER_DIRECTION);
+
+    /*
+     * Rep invariant: BY_LETTER[c] is the direction d with d.toChar() == c, if
+     * any. The page at direction.ordinal() * PAGES_PER_DIRECTION + arcSeconds
+     * / PAGE_SIZE is null or holds, at arcSeconds % PAGE_SIZE, null or the
+     * canonical angle of arcSeconds in direction.
+     *
+     * Thread safety argument: pages and their entries are only set from null
+     * by compareAndSet, so every thread sees the same canonical angle once one
+     * is set, and Angle is immutable. BY_LETTER and DIRECTIONS are not
+     * modified after class initialization.
+     */
+
+    static {
+        for (CardinalDirection direction : DIRECTIONS) {
+            BY_LETTER[direction.toChar()] = direction;
+        }
+    }
+
+    /**
+     * Look up a cardinal direction by letter, like
+     * {@link CardinalDirection#fromChar}, in constant time.
+     *
+     * @param letter
+     *            single upper-case first letter of a cardinal direction
+     * @return the direction with that letter
+     * @throws IllegalArgumentException
+     *             if letter is not the letter of a direction
+     */
+    public static CardinalDirection direction(char letter) {
+        final CardinalDirection direction = letter < BY_LETTER.length ? BY_LETTER[letter] : null;
+        if (direction == null) {
+            throw new IllegalArgumentException("invalid direction letter: " + letter);
+        }
+        return direction;
+    }
+
+    /**
+     * Find the canonical instance of an angle.
+     *
+     * @param degrees
+     *            non-negative degrees
+     * @param minutes
+     *            non-negative arc minutes
+     * @param seconds
+     *            non-negative arc seconds
+     * @param direction
+     *            direction of the angle
+     * @return an angle equal to new Angle(degrees, minutes, seconds,
+     *         direction), which is the same instance for all equal valid
+     *         latitudes or longitudes; angles that are not valid are returned
+     *         as new instances
+     */
+    public static Angle canonical(int degrees, int minutes, int seconds, CardinalDirection direction) {
+        if (degrees >= 0 && minutes >= 0 && seconds >= 0 && degrees <= 180 && minutes <= MAX_LONGITUDE
+                && seconds <= MAX_LONGITUDE) {
+            final int arcSeconds = degrees * 3600 + minutes * 60 + seconds;
+            if (arcSeconds <= limit(direction)) {
+                return canonical(arcSeconds, direction);
+            }
+        }
+        return new Angle(degrees, minutes, seconds, direction);
+    }
+
+    /**
+     * Find the canonical instance of an angle.
+     *
+     * @param angle
+     *            an angle
+     * @return an angle equal to angle, which is the same instance for all
+     *         equal valid latitudes or longitudes; angle itself if it is not
+     *         valid
+     */
+    public static Angle canonical(Angle angle) {
+        final int arcSeconds = Math.abs(Angular.toArcSeconds(angle));
+        if (arcSeconds > limit(angle.direction())) {
+            return angle;
+        }
+        return canonical(arcSeconds, angle.direction());
+    }
+
+    /**
+     * Find the canonical instance of an angle.
+     *
+     * @param arcSeconds
+     *            non-negative whole arc seconds
+     * @param direction
+     *            direction of the angle
+     * @return an angle of arcSeconds in direction, which is the same instance
+     *         for all equal valid latitudes or longitudes; angles that are not
+     *         valid are returned as new instances
+     */
+    public static Angle canonical(int arcSeconds, CardinalDirection direction) {
+        if (arcSeconds < 0 || arcSeconds > limit(direction)) {
+            return new Angle(0, 0, arcSeconds, direction);
+        }
+        final int pageIndex = direction.ordinal() * PAGES_PER_DIRECTION + arcSeconds / PAGE_SIZE;
+        AtomicReferenceArray<Angle> page = PAGES.get(pageIndex);
+        if (page == null) {
+            PAGES.compareAndSet(pageIndex, null, new AtomicReferenceArray<>(PAGE_SIZE));
+            page = PAGES.get(pageIndex);
+        }
+        final int slot = arcSeconds % PAGE_SIZE;
+        final Angle angle = page.get(slot);
+        if (angle != null) {
+            return angle;
+        }
+        page.compareAndSet(slot, null, new Angle(0, 0, arcSeconds, direction));
+        return page.get(slot);
+    }
+
+    /**
+     * Compare two angles, by reference first. Canonical angles are equal
+     * exactly when they are the same instance, so comparing two equal
+     * canonical angles reads none of their fields; other angles are compared
+     * with {@link Angle#equals}.
+     *
+     * @param a
+     *            an angle
+     * @param b
+     *            another angle
+     * @return true iff a.equals(b)
+     */
+    public static boolean same(Angle a, Angle b) {
+        return a == b || a.equals(b);
+    }
+
+    private static int limit(CardinalDirection direction) {
+        return direction == CardinalDirection.NORTH || direction == CardinalDirection.SOUTH ? MAX_LATITUDE
+                : MAX_LONGITUDE;
+    }
+}
@@ -0,0 +1,126 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class AngleCacheTest {
+
+    /** More minutes than the cache looks up directly. */
+    private static final int MAX_MINUTES = 180 * 3600 + 1;
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests that equal valid angles are the same instance, however they are
+     * written, across all three overloads.
+     */
+    @Test
+    public void sameInstanceTest() {
+        Angle stata = AngleCache.canonical(42, 21, 42, CardinalDirection.NORTH);
+        assertEquals(new Angle(42, 21, 42, CardinalDirection.NORTH), stata);
+        assertSame(stata, AngleCache.canonical(42, 21, 42, CardinalDirection.NORTH));
+        assertSame(stata, AngleCache.canonical(0, 0, 42 * 3600 + 21 * 60 + 42, CardinalDirection.NORTH));
+        assertSame(stata, AngleCache.canonical(41, 81, 42, CardinalDirection.NORTH));
+        assertSame(stata, AngleCache.canonical(new Angle(42, 21, 42, CardinalDirection.NORTH)));
+        assertSame(stata, AngleCache.canonical(42 * 3600 + 21 * 60 + 42, CardinalDirection.NORTH));
+        assertTrue(AngleCache.same(stata, new Angle(42, 21, 42, CardinalDirection.NORTH)));
+
+        Angle pole = AngleCache.canonical(90, 0, 0, CardinalDirection.SOUTH);
+        assertSame(pole, AngleCache.canonical(new Angle(90, 0, 0, CardinalDirection.SOUTH)));
+    }
+
+    /**
+     * Tests that 0 deg N & S, 0 deg E & W, and 180 deg E & W, which are
+     * different representations of the same coordinate but not equal angles,
+     * are each canonical and kept apart.
+     */
+    @Test
+    public void differentDirectionsTest() {
+        assertPairApart(0, CardinalDirection.NORTH, CardinalDirection.SOUTH);
+        assertPairApart(0, CardinalDirection.EAST, CardinalDirection.WEST);
+        assertPairApart(180, CardinalDirection.EAST, CardinalDirection.WEST);
+        // the same arc seconds as a latitude and a longitude
+        assertNotSame(AngleCache.canonical(45, 0, 0, CardinalDirection.NORTH),
+                AngleCache.canonical(45, 0, 0, CardinalDirection.EAST));
+    }
+
+    private static void assertPairApart(int degrees, CardinalDirection first, CardinalDirection second) {
+        Angle a = AngleCache.canonical(degrees, 0, 0, first);
+        Angle b = AngleCache.canonical(degrees, 0, 0, second);
+        assertEquals(new Angle(degrees, 0, 0, first), a);
+        assertEquals(new Angle(degrees, 0, 0, second), b);
+        assertSame(a, AngleCache.canonical(new Angle(degrees, 0, 0, first)));
+        assertSame(b, AngleCache.canonical(new Angle(degrees, 0, 0, second)));
+        assertNotSame(a, b);
+        assertFalse(AngleCache.same(a, b));
+    }
+
+    /**
+     * Tests that angles out of range are equal to, but not shared with, other
+     * calls.
+     */
+    @Test
+    public void outOfRangeTest() {
+        Angle past = AngleCache.canonical(90, 0, 1, CardinalDirection.NORTH);
+        assertEquals(new Angle(90, 0, 1, CardinalDirection.NORTH), past);
+        assertNotSame(past, AngleCache.canonical(90, 0, 1, CardinalDirection.NORTH));
+
+        Angle around = new Angle(181, 0, 0, CardinalDirection.WEST);
+        assertSame(around, AngleCache.canonical(around));
+        assertNotSame(AngleCache.canonical(181 * 3600, CardinalDirection.WEST),
+                AngleCache.canonical(181 * 3600, CardinalDirection.WEST));
+
+        Angle huge = AngleCache.canonical(0, 0, Integer.MAX_VALUE, CardinalDirection.EAST);
+        assertEquals(new Angle(0, 0, Integer.MAX_VALUE, CardinalDirection.EAST), huge);
+        assertNotSame(huge, AngleCache.canonical(0, 0, Integer.MAX_VALUE, CardinalDirection.EAST));
+        assertNotSame(AngleCache.canonical(0, MAX_MINUTES, 0, CardinalDirection.EAST),
+                AngleCache.canonical(0, MAX_MINUTES, 0, CardinalDirection.EAST));
+    }
+
+    /**
+     * Tests that threads racing to canonicalize the same new angles all get
+     * the same instances.
+     */
+    @Test
+    public void concurrentTest() {
+        List<Angle> angles = IntStream.range(0, 10_000).parallel()
+                .mapToObj(i -> AngleCache.canonical(170 * 3600 + i % 100, CardinalDirection.WEST))
+                .collect(Collectors.toList());
+        for (int i = 0; i < angles.size(); i++) {
+            assertSame(angles.get(i % 100), angles.get(i));
+        }
+    }
+
+    /**
+     * Tests direction lookup, and that other letters, including lower case
+     * and non-ASCII ones, throw.
+     */
+    @Test
+    public void directionTest() {
+        for (CardinalDirection direction : CardinalDirection.values()) {
+            assertSame(direction, AngleCache.direction(direction.toChar()));
+        }
+        for (char letter : new char[] { 'n', 'X', ' ', '\0', '\u00c9', '\uffff' }) {
+            try {
+                AngleCache.direction(letter);
+                fail("expected IllegalArgumentException for " + (int) letter);
+            } catch (IllegalArgumentException expected) {
+                // not a direction letter
+            }
+        }
+    }
+}
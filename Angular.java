@@ -16,6 +16,11 @@ import java.util.List;
  */
 public class Angular {
 
+    /** Arc seconds in a half rotation, i.e. 180 degrees. */
+    private static final int HALF_ROTATION = 180 * 3600;
+    /** Arc seconds in a full rotation, i.e. 360 degrees. */
+    private static final int FULL_ROTATION = 2 * HALF_ROTATION;
+
     /**
      * Convert a degree-minutes-seconds angle to signed floating-point degrees.
      * 
@@ -27,14 +32,31 @@ public class Angular {
     public static double toDegrees(Angle dmsAngle) {
         final double base = 60.0;
         final double baseSquared = 3600.0;
-        if (dmsAngle.direction().equals(CardinalDirection.NORTH)
-                || dmsAngle.direction().equals(CardinalDirection.EAST)) {
+        if (dmsAngle.direction() == CardinalDirection.NORTH || dmsAngle.direction() == CardinalDirection.EAST) {
             return dmsAngle.degrees() + dmsAngle.minutes() / base + dmsAngle.seconds() / baseSquared;
         }
         return -(dmsAngle.degrees() + dmsAngle.minutes() / base + dmsAngle.seconds() / baseSquared);
 
     }
 
+    /**
+     * Convert a degree-minutes-seconds angle to signed whole arc seconds.
+     *
+     * @param dmsAngle
+     *            angle in degrees-minutes-seconds
+     * @return arc seconds in dmsAngle, where angles north & east are positive
+     *         and south & west are negative
+     */
+    public static int toArcSeconds(Angle dmsAngle) {
+        final int baseSquared = 3600;
+        final int base = 60;
+        final int arcSeconds = dmsAngle.degrees() * baseSquared + dmsAngle.minutes() * base + dmsAngle.seconds();
+        if (dmsAngle.direction() == CardinalDirection.NORTH || dmsAngle.direction() == CardinalDirection.EAST) {
+            return arcSeconds;
+        }
+        return -arcSeconds;
+    }
+
     /**
      * Convert a non - valid dms angle to valid dms (for example, when seconds <
      * 0, it is not valid input for seconds)
@@ -98,74 +120,103 @@ public class Angular {
      */
 
     public static Angle displacement(Angle begin, Angle end) {
-        int displacedDegrees;
-        int displacedMinutes;
-        int displacedSeconds;
-        final double baseAngle = 180.0;
-        final int maxDegree = 359;
-        final int maxMinutes = 59;
-        final int maxSeconds = 60;
-        CardinalDirection displacedDirection;
-        Angle newAngle;
-
-        if (begin.direction() != end.direction()) {
-            displacedDegrees = begin.degrees() + end.degrees();
-            displacedMinutes = begin.minutes() + end.minutes();
-            displacedSeconds = begin.seconds() + end.seconds();
-            displacedDirection = end.direction();
-
-            newAngle = new Angle(displacedDegrees, displacedMinutes, displacedSeconds, displacedDirection);
-
-            if (newAngle.degrees() > baseAngle) {
-
-                displacedDirection = begin.direction();
-                newAngle = new Angle(maxDegree - newAngle.degrees(), maxMinutes - newAngle.minutes(),
-                        maxSeconds - newAngle.seconds(), displacedDirection);
-                return newAngle;
-            } else {
-                return newAngle;
-            }
-
-        } else {
-            if (Math.abs(toDegrees(begin)) >= Math.abs(toDegrees(end))) {
-
-                displacedDegrees = begin.degrees() - end.degrees();
-                displacedMinutes = begin.minutes() - end.minutes();
-                displacedSeconds = begin.seconds() - end.seconds();
-                displacedDirection = end.direction();
-                List<Integer> correctDmsBeginGreater = validConverter(displacedDegrees, displacedMinutes,
-                        displacedSeconds);
-                if (displacedDirection == CardinalDirection.NORTH) {
-                    displacedDirection = CardinalDirection.SOUTH;
-                } else if (displacedDirection == CardinalDirection.SOUTH) {
-                    displacedDirection = CardinalDirection.NORTH;
-                }
-
-                else if (displacedDirection == CardinalDirection.WEST) {
-                    displacedDirection = CardinalDirection.EAST;
-                } else if (displacedDirection == CardinalDirection.EAST) {
-                    displacedDirection = CardinalDirection.WEST;
-                }
-                newAngle = new Angle(correctDmsBeginGreater.get(0), correctDmsBeginGreater.get(1),
-                        correctDmsBeginGreater.get(2), displacedDirection);
-
-                return newAngle;
-            } else {
-                displacedDegrees = end.degrees() - begin.degrees();
-                displacedMinutes = end.minutes() - begin.minutes();
-                displacedSeconds = end.seconds() - begin.seconds();
-                displacedDirection = begin.direction();
-                List<Integer> correctDmsEndGreater = validConverter(displacedDegrees, displacedMinutes,
-                        displacedSeconds);
-                newAngle = new Angle(correctDmsEndGreater.get(0), correctDmsEndGreater.get(1),
-                        correctDmsEndGreater.get(2), displacedDirection);
-
-                return newAngle;
-
-            }
+        final int displaced = displacement(toArcSeconds(begin), toArcSeconds(end));
+        final boolean latitude = begin.direction() == CardinalDirection.NORTH
+                || begin.direction() == CardinalDirection.SOUTH;
+        // no displacement is always 0 deg N or 0 deg E
+        if (latitude) {
+            return new Angle(0, 0, Math.abs(displaced),
+                    displaced >= 0 ? CardinalDirection.NORTH : CardinalDirection.SOUTH);
+        }
+        return new Angle(0, 0, Math.abs(displaced), displaced >= 0 ? CardinalDirection.EAST : CardinalDirection.WEST);
+    }
+
+    /*
+     * Primitive angle arithmetic. These methods work on angles packed as
+     * signed whole arc seconds, as returned by toArcSeconds, and never
+     * allocate.
+     */
+
+    /**
+     * Angular displacement from begin to end, like
+     * {@link #displacement(Angle, Angle)}, in signed arc seconds.
+     * 
+     * @param begin
+     *            starting angle in signed arc seconds, a valid latitude or
+     *            longitude
+     * @param end
+     *            ending angle in signed arc seconds, measuring the same
+     *            coordinate as begin
+     * @return signed arc seconds, between -180 and 180 degrees inclusive, with
+     *         the smallest absolute value that sweeps from begin to end, where
+     *         north & east are positive
+     */
+    public static int displacement(int begin, int end) {
+        int displaced = end - begin;
+        if (displaced > HALF_ROTATION) {
+            displaced -= FULL_ROTATION;
+        } else if (displaced < -HALF_ROTATION) {
+            displaced += FULL_ROTATION;
+        }
+        return displaced;
+    }
 
+    /**
+     * Angular displacements between many pairs of angles, like
+     * {@link #displacement(int, int)}.
+     * 
+     * @param begins
+     *            starting angles in signed arc seconds, not modified by this
+     *            method
+     * @param ends
+     *            ending angles in signed arc seconds, not modified by this
+     *            method; must be at least as long as begins
+     * @param displacements
+     *            array to fill, must be at least as long as begins; may be the
+     *            same array as begins or ends
+     */
+    public static void displacements(int[] begins, int[] ends, int[] displacements) {
+        for (int i = 0; i < begins.length; i++) {
+            displacements[i] = displacement(begins[i], ends[i]);
         }
+    }
 
+    /**
+     * Normalize a longitude.
+     * 
+     * @param arcSeconds
+     *            any number of signed arc seconds
+     * @return the equivalent longitude in signed arc seconds, greater than -180
+     *         degrees and at most 180 degrees
+     */
+    public static int normalizeLongitude(int arcSeconds) {
+        return Math.floorMod(arcSeconds + HALF_ROTATION - 1, FULL_ROTATION) - HALF_ROTATION + 1;
+    }
+
+    /**
+     * Compare two angles measuring the same coordinate.
+     * 
+     * @param arcSeconds1
+     *            an angle in signed arc seconds
+     * @param arcSeconds2
+     *            another angle in signed arc seconds
+     * @return negative, zero, or positive if arcSeconds1 is south or west of,
+     *         equal to, or north or east of arcSeconds2, without wrapping
+     *         around the antimeridian
+     */
+    public static int compare(int arcSeconds1, int arcSeconds2) {
+        return Integer.compare(arcSeconds1, arcSeconds2);
+    }
+
+    /**
+     * Convert signed arc seconds to signed floating-point degrees.
+     * 
+     * @param arcSeconds
+     *            an angle in signed arc seconds
+     * @return degrees in the angle, like {@link #toDegrees(Angle)}
+     */
+    public static double toDegrees(int arcSeconds) {
+        return arcSeconds / 3600.0;
     }
 
 }
@@ -0,0 +1,143 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AngularTest {
+
+    private static final int DEGREE = 3600;
+    private static final int HALF_ROTATION = 180 * DEGREE;
+    private static final int FULL_ROTATION = 360 * DEGREE;
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests displacements that wrap around the antimeridian, and those of
+     * exactly half a rotation, which keep their sign.
+     */
+    @Test
+    public void displacementArcSecondsTest() {
+        assertEquals(2 * DEGREE, Angular.displacement(179 * DEGREE, -179 * DEGREE));
+        assertEquals(-2 * DEGREE, Angular.displacement(-179 * DEGREE, 179 * DEGREE));
+        assertEquals(0, Angular.displacement(HALF_ROTATION, -HALF_ROTATION));
+        assertEquals(0, Angular.displacement(-HALF_ROTATION, HALF_ROTATION));
+        assertEquals(HALF_ROTATION, Angular.displacement(0, HALF_ROTATION));
+        assertEquals(-HALF_ROTATION, Angular.displacement(0, -HALF_ROTATION));
+        assertEquals(HALF_ROTATION, Angular.displacement(-90 * DEGREE, 90 * DEGREE));
+        assertEquals(-HALF_ROTATION, Angular.displacement(90 * DEGREE, -90 * DEGREE));
+        assertEquals(-HALF_ROTATION + 1, Angular.displacement(-90 * DEGREE, 90 * DEGREE + 1));
+        assertEquals(30 * DEGREE, Angular.displacement(-10 * DEGREE, 20 * DEGREE));
+    }
+
+    /**
+     * Tests displacement of Angles, including the directions of zero and
+     * half-rotation results.
+     */
+    @Test
+    public void displacementAngleTest() {
+        Angle east179 = new Angle(179, 0, 0, CardinalDirection.EAST);
+        Angle west179 = new Angle(179, 0, 0, CardinalDirection.WEST);
+        assertEquals(new Angle(2, 0, 0, CardinalDirection.EAST), Angular.displacement(east179, west179));
+        assertEquals(new Angle(2, 0, 0, CardinalDirection.WEST), Angular.displacement(west179, east179));
+        assertEquals(new Angle(0, 0, 0, CardinalDirection.EAST),
+                Angular.displacement(new Angle(180, 0, 0, CardinalDirection.EAST),
+                        new Angle(180, 0, 0, CardinalDirection.WEST)));
+        assertEquals(new Angle(180, 0, 0, CardinalDirection.WEST),
+                Angular.displacement(new Angle(90, 0, 0, CardinalDirection.EAST),
+                        new Angle(90, 0, 0, CardinalDirection.WEST)));
+
+        Angle south10 = new Angle(10, 0, 0, CardinalDirection.SOUTH);
+        assertEquals(new Angle(0, 0, 0, CardinalDirection.NORTH), Angular.displacement(south10, south10));
+        assertEquals(new Angle(0, 0, 0, CardinalDirection.EAST), Angular.displacement(west179, west179));
+        assertEquals(new Angle(40, 30, 15, CardinalDirection.NORTH),
+                Angular.displacement(south10, new Angle(30, 30, 15, CardinalDirection.NORTH)));
+    }
+
+    /**
+     * Tests the array form against the scalar form, including when the
+     * output array is also an input.
+     */
+    @Test
+    public void displacementsTest() {
+        Random random = new Random(6005);
+        int[] begins = new int[100];
+        int[] ends = new int[100];
+        for (int i = 0; i < begins.length; i++) {
+            begins[i] = random.nextInt(FULL_ROTATION + 1) - HALF_ROTATION;
+            ends[i] = random.nextInt(FULL_ROTATION + 1) - HALF_ROTATION;
+        }
+        begins[0] = HALF_ROTATION;
+        ends[0] = -HALF_ROTATION;
+        int[] expected = new int[begins.length];
+        for (int i = 0; i < begins.length; i++) {
+            expected[i] = Angular.displacement(begins[i], ends[i]);
+            assertTrue(Math.abs(expected[i]) <= HALF_ROTATION);
+        }
+        int[] displacements = new int[begins.length];
+        Angular.displacements(begins, ends, displacements);
+        assertArrayEquals(expected, displacements);
+        Angular.displacements(begins, ends, begins);
+        assertArrayEquals(expected, begins);
+    }
+
+    /**
+     * Tests that normalized longitudes are in (-180, 180] degrees, with 180
+     * deg W becoming 180 deg E.
+     */
+    @Test
+    public void normalizeLongitudeTest() {
+        assertEquals(HALF_ROTATION, Angular.normalizeLongitude(HALF_ROTATION));
+        assertEquals(HALF_ROTATION, Angular.normalizeLongitude(-HALF_ROTATION));
+        assertEquals(HALF_ROTATION, Angular.normalizeLongitude(3 * HALF_ROTATION));
+        assertEquals(HALF_ROTATION, Angular.normalizeLongitude(-3 * HALF_ROTATION));
+        assertEquals(-HALF_ROTATION + 1, Angular.normalizeLongitude(HALF_ROTATION + 1));
+        assertEquals(HALF_ROTATION - 1, Angular.normalizeLongitude(-HALF_ROTATION - 1));
+        assertEquals(0, Angular.normalizeLongitude(FULL_ROTATION));
+        assertEquals(0, Angular.normalizeLongitude(-FULL_ROTATION));
+        assertEquals(1, Angular.normalizeLongitude(5 * FULL_ROTATION + 1));
+        assertEquals(-179 * DEGREE, Angular.normalizeLongitude(181 * DEGREE));
+        assertEquals(179 * DEGREE, Angular.normalizeLongitude(-181 * DEGREE));
+    }
+
+    /**
+     * Tests that compare orders angles without wrapping, so 180 deg E is east
+     * of 180 deg W.
+     */
+    @Test
+    public void compareTest() {
+        assertTrue(Angular.compare(HALF_ROTATION, -HALF_ROTATION) > 0);
+        assertTrue(Angular.compare(-HALF_ROTATION, HALF_ROTATION) < 0);
+        assertTrue(Angular.compare(-179 * DEGREE, 179 * DEGREE) < 0);
+        assertEquals(0, Angular.compare(0, 0));
+        assertTrue(Angular.compare(1, 0) > 0);
+    }
+
+    /**
+     * Tests toDegrees of arc seconds at the ends of the range, and against
+     * toDegrees of Angles.
+     */
+    @Test
+    public void toDegreesTest() {
+        assertEquals(180.0, Angular.toDegrees(HALF_ROTATION), 0);
+        assertEquals(-180.0, Angular.toDegrees(-HALF_ROTATION), 0);
+        assertEquals(0.0, Angular.toDegrees(0), 0);
+        Random random = new Random(6005);
+        for (int i = 0; i < 100; i++) {
+            Angle angle = new Angle(random.nextInt(181), random.nextInt(60), random.nextInt(60),
+                    random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST);
+            assertEquals(Angular.toDegrees(angle), Angular.toDegrees(Angular.toArcSeconds(angle)), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collector;
+
+/**
+ * Mutable accumulator that finds the smallest latitude-longitude bounding
+ * rectangle, like {@link Bounds#boundingBox(java.util.Set)}, for a stream of
+ * points of interest (POIs) seen one at a time.
+ *
+ * <p>
+ * Accumulators for parts of a dataset can be merged, in any order and
+ * grouping, and written to and read back from a stream, so bounds can be
+ * computed over shards that never share a heap. Latitudes are reduced to a
+ * minimum and maximum. Longitudes are kept in a small array while there are
+ * few of them, and then in an occupancy bitmap with one bit per arc second of
+ * longitude (about 160 KB), so memory never grows with the number of POIs and
+ * the biggest gap between longitudes, and thus the rectangle, is still exact.
+ *
+ * <p>
+ * Accumulators are not safe for use by multiple threads; use one per thread
+ * and merge them, as {@link #collector()} does.
+ */
+public class BoundingBoxAccumulator {
+
+    private static final int MAX_LATITUDE = 90 * 3600;
+    private static final int MAX_LONGITUDE = 180 * 3600;
+    /** Number of bits in the longitude bitmap, one per arc second. */
+    private static final int LONGITUDES = 2 * MAX_LONGITUDE + 1;
+    /** Longitudes kept in an array before switching to the bitmap. */
+    private static final int SPARSE_LIMIT = 1024;
+
+    private long count = 0;
+    private int north = -MAX_LATITUDE;
+    private int south = MAX_LATITUDE;
+    private int[] sparse = new int[8];
+    private int sparseSize = 0;
+    private long[] bitmap = null;
+
+    /*
+     * Rep invariant: count >= 0; if count > 0, north and south are the
+     * greatest and least signed arc second latitudes added. Exactly one of
+     * sparse, bitmap is non-null. If sparse is non-null, sparse[0 ..
+     * sparseSize) are the longitudes added, plus 180 deg, with repeats, and
+     * sparseSize <= SPARSE_LIMIT. If bitmap is non-null, it has
+     * ceil(LONGITUDES / 64) words, and bit i is set iff longitude i - 180 deg
+     * was added.
+     */
+
+    /**
+     * Make an accumulator that has seen no POIs.
+     */
+    public BoundingBoxAccumulator() {
+    }
+
+    /**
+     * @return a collector that accumulates POIs in parallel and returns their
+     *         smallest bounding rectangle, as defined by
+     *         {@link Bounds#boundingBox(java.util.Set)}
+     */
+    public static Collector<PointOfInterest, ?, List<Angle>> collector() {
+        return Collector.of(BoundingBoxAccumulator::new, BoundingBoxAccumulator::add, BoundingBoxAccumulator::merge,
+                BoundingBoxAccumulator::boundingBox, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Add a POI.
+     *
+     * @param pointOfInterest
+     *            POI to include in the bounding rectangle
+     */
+    public void add(PointOfInterest pointOfInterest) {
+        add(Angular.toArcSeconds(pointOfInterest.latitude()), Angular.toArcSeconds(pointOfInterest.longitude()));
+    }
+
+    /**
+     * Add a location.
+     *
+     * @param latitude
+     *            valid latitude in signed arc seconds
+     * @param longitude
+     *            valid longitude in signed arc seconds
+     */
+    public void add(int latitude, int longitude) {
+        count++;
+        north = Math.max(north, latitude);
+        south = Math.min(south, latitude);
+        addLongitude(longitude + MAX_LONGITUDE);
+    }
+
+    /**
+     * Add all the POIs seen by another accumulator.
+     *
+     * @param other
+     *            accumulator to merge into this one, not modified by this
+     *            method
+     * @return this accumulator
+     */
+    public BoundingBoxAccumulator merge(BoundingBoxAccumulator other) {
+        count += other.count;
+        north = Math.max(north, other.north);
+        south = Math.min(south, other.south);
+        if (other.bitmap != null) {
+            toBitmap();
+            for (int i = 0; i < bitmap.length; i++) {
+                bitmap[i] |= other.bitmap[i];
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                addLongitude(other.sparse[i]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return number of POIs seen by this accumulator
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Find latitude-longitude bounds for the POIs seen so far.
+     *
+     * @return a smallest latitude-longitude bounding rectangle, as defined in
+     *         the documentation for {@link Bounds}, containing every POI seen,
+     *         with the same extent as
+     *         {@link Bounds#boundingBox(java.util.Set)} on a set of the same
+     *         POIs
+     */
+    public List<Angle> boundingBox() {
+        if (count == 0) {
+            Angle startN = new Angle(0, 0, 0, CardinalDirection.NORTH);
+            Angle startE = new Angle(0, 0, 0, CardinalDirection.WEST);
+            return Arrays.asList(startN, startE, startN, startE);
+        }
+
+        // the rectangle runs east from the far side of the biggest gap
+        // between consecutive longitudes, which may be the gap across the
+        // antimeridian
+        int first = -1;
+        int previous = -1;
+        int biggestGap = 0;
+        int eastern = -1;
+        int western = -1;
+        if (bitmap != null) {
+            for (int word = 0; word < bitmap.length; word++) {
+                long bits = bitmap[word];
+                while (bits != 0) {
+                    final int longitude = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (first < 0) {
+                        first = longitude;
+                    } else if (longitude - previous > biggestGap) {
+                        biggestGap = longitude - previous;
+                        eastern = previous;
+                        western = longitude;
+                    }
+                    previous = longitude;
+                }
+            }
+        } else {
+            final int[] sorted = Arrays.copyOf(sparse, sparseSize);
+            Arrays.sort(sorted);
+            for (int longitude : sorted) {
+                if (first < 0) {
+                    first = longitude;
+                } else if (longitude - previous > biggestGap) {
+                    biggestGap = longitude - previous;
+                    eastern = previous;
+                    western = longitude;
+                }
+                previous = longitude;
+            }
+        }
+        if (first + 2 * MAX_LONGITUDE - previous > biggestGap || eastern < 0) {
+            eastern = previous;
+            western = first;
+        }
+        return Arrays.asList(Bounds.angle(north, CardinalDirection.NORTH, CardinalDirection.SOUTH),
+                Bounds.angle(eastern - MAX_LONGITUDE, CardinalDirection.EAST, CardinalDirection.WEST),
+                Bounds.angle(south, CardinalDirection.NORTH, CardinalDirection.SOUTH),
+                Bounds.angle(western - MAX_LONGITUDE, CardinalDirection.EAST, CardinalDirection.WEST));
+    }
+
+    /**
+     * Write the state of this accumulator, so it can be read back with
+     * {@link #read(DataInput)} and merged elsewhere.
+     *
+     * @param out
+     *            stream to write to
+     * @throws IOException
+     *             if the stream cannot be written
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeInt(north);
+        out.writeInt(south);
+        if (bitmap != null) {
+            out.writeInt(-1);
+            for (long word : bitmap) {
+                out.writeLong(word);
+            }
+        } else {
+            out.writeInt(sparseSize);
+            for (int i = 0; i < sparseSize; i++) {
+                out.writeInt(sparse[i]);
+            }
+        }
+    }
+
+    /**
+     * Read the state of an accumulator written by {@link #write(DataOutput)}.
+     *
+     * @param in
+     *            stream to read from
+     * @return accumulator that has seen the same POIs as the one written
+     * @throws IOException
+     *             if the stream cannot be read or does not hold a valid
+     *             accumulator
+     */
+    public static BoundingBoxAccumulator read(DataInput in) throws IOException {
+        final BoundingBoxAccumulator accumulator = new BoundingBoxAccumulator();
+        accumulator.count = in.readLong();
+        accumulator.north = in.readInt();
+        accumulator.south = in.readInt();
+        final int size = in.readInt();
+        if (accumulator.count < 0 || size < -1 || size > SPARSE_LIMIT) {
+            throw new IOException("not a bounding box accumulator");
+        }
+        if (size < 0) {
+            accumulator.toBitmap();
+            for (int i = 0; i < accumulator.bitmap.length; i++) {
+                accumulator.bitmap[i] = in.readLong();
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                final int longitude = in.readInt();
+                if (longitude < 0 || longitude >= LONGITUDES) {
+                    throw new IOException("longitude out of range: " + longitude);
+                }
+                accumulator.addLongitude(longitude);
+            }
+        }
+        return accumulator;
+    }
+
+    /*
+     * Record a longitude, measured in arc seconds east of 180 deg W.
+     */
+    private void addLongitude(int longitude) {
+        if (bitmap != null) {
+            bitmap[longitude >>> 6] |= 1L << longitude;
+            return;
+        }
+        if (sparseSize == SPARSE_LIMIT) {
+            toBitmap();
+            bitmap[longitude >>> 6] |= 1L << longitude;
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, 2 * sparseSize);
+        }
+        sparse[sparseSize++] = longitude;
+    }
+
+    /*
+     * Switch to the bitmap representation, if not already using it.
+     */
+    private void toBitmap() {
+        if (bitmap != null) {
+            return;
+        }
+        bitmap = new long[(LONGITUDES + Long.SIZE - 1) / Long.SIZE];
+        for (int i = 0; i < sparseSize; i++) {
+            bitmap[sparse[i] >>> 6] |= 1L << sparse[i];
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+}
@@ -0,0 +1,217 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BoundingBoxAccumulatorTest {
+
+    /** Sizes on both sides of the switch from a sparse array to a bitmap. */
+    private static final int[] SIZES = { 1, 2, 100, 1023, 1024, 1025, 5000 };
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests an accumulator that has seen nothing.
+     */
+    @Test
+    public void emptyTest() {
+        BoundingBoxAccumulator accumulator = new BoundingBoxAccumulator();
+        assertEquals(0, accumulator.count());
+        assertEquals(arcSeconds(Bounds.boundingBox(new HashSet<>())), arcSeconds(accumulator.boundingBox()));
+    }
+
+    /**
+     * Tests that POIs added one at a time give the rectangle of
+     * Bounds.boundingBox, with fewer and more distinct longitudes than fit in
+     * the sparse array, and with a cluster across the antimeridian.
+     */
+    @Test
+    public void addTest() {
+        Random random = new Random(6005);
+        for (int size : SIZES) {
+            for (boolean wrapping : new boolean[] { false, true }) {
+                List<PointOfInterest> points = randomPoints(random, size, wrapping);
+                BoundingBoxAccumulator accumulator = new BoundingBoxAccumulator();
+                for (PointOfInterest point : points) {
+                    accumulator.add(point);
+                }
+                assertEquals(size, accumulator.count());
+                assertEquals(arcSeconds(Bounds.boundingBox(new HashSet<>(points))),
+                        arcSeconds(accumulator.boundingBox()));
+            }
+        }
+    }
+
+    /**
+     * Tests that repeated longitudes count towards the sparse array, but do
+     * not change the rectangle.
+     */
+    @Test
+    public void repeatsTest() {
+        BoundingBoxAccumulator accumulator = new BoundingBoxAccumulator();
+        for (int i = 0; i < 3000; i++) {
+            accumulator.add(i % 2 == 0 ? 3600 : -3600, i % 3 == 0 ? 7200 : -7200);
+        }
+        assertEquals(Arrays.asList(3600, 7200, -3600, -7200), arcSeconds(accumulator.boundingBox()));
+    }
+
+    /**
+     * Tests merging sparse into sparse, across the switch to a bitmap, sparse
+     * into a bitmap, and a bitmap into sparse.
+     */
+    @Test
+    public void mergeTest() {
+        Random random = new Random(6005);
+        int[][] splits = { { 10, 20 }, { 600, 600 }, { 2000, 30 }, { 30, 2000 }, { 2000, 3000 } };
+        for (int[] split : splits) {
+            for (boolean wrapping : new boolean[] { false, true }) {
+                List<PointOfInterest> first = randomPoints(random, split[0], wrapping);
+                List<PointOfInterest> second = randomPoints(random, split[1], !wrapping);
+                BoundingBoxAccumulator accumulator = accumulate(first).merge(accumulate(second));
+                List<PointOfInterest> all = new ArrayList<>(first);
+                all.addAll(second);
+                assertEquals(all.size(), accumulator.count());
+                assertEquals(arcSeconds(Bounds.boundingBox(new HashSet<>(all))), arcSeconds(accumulator.boundingBox()));
+            }
+        }
+    }
+
+    /**
+     * Tests the collector on sequential and parallel streams.
+     */
+    @Test
+    public void collectorTest() {
+        Random random = new Random(6005);
+        for (int size : SIZES) {
+            List<PointOfInterest> points = randomPoints(random, size, size % 2 == 0);
+            List<Integer> expected = arcSeconds(Bounds.boundingBox(new HashSet<>(points)));
+            assertEquals(expected, arcSeconds(points.stream().collect(BoundingBoxAccumulator.collector())));
+            assertEquals(expected, arcSeconds(points.parallelStream().collect(BoundingBoxAccumulator.collector())));
+        }
+    }
+
+    /**
+     * Tests writing and reading back sparse and bitmap accumulators, and
+     * merging what was read.
+     */
+    @Test
+    public void writeReadTest() throws IOException {
+        Random random = new Random(6005);
+        BoundingBoxAccumulator merged = new BoundingBoxAccumulator();
+        List<PointOfInterest> all = new ArrayList<>();
+        for (int size : SIZES) {
+            List<PointOfInterest> points = randomPoints(random, size, size % 2 == 1);
+            BoundingBoxAccumulator accumulator = accumulate(points);
+            BoundingBoxAccumulator read = BoundingBoxAccumulator.read(input(bytes(accumulator)));
+            assertEquals(accumulator.count(), read.count());
+            assertEquals(arcSeconds(accumulator.boundingBox()), arcSeconds(read.boundingBox()));
+            assertArrayEquals(bytes(accumulator), bytes(read));
+            merged.merge(read);
+            all.addAll(points);
+        }
+        assertEquals(arcSeconds(Bounds.boundingBox(new HashSet<>(all))), arcSeconds(merged.boundingBox()));
+    }
+
+    /**
+     * Tests that invalid or truncated input is reported as IOException.
+     */
+    @Test
+    public void readInvalidTest() throws IOException {
+        byte[] valid = bytes(accumulate(randomPoints(new Random(6005), 10, false)));
+        assertReadFails(Arrays.copyOf(valid, valid.length - 1));
+
+        ByteArrayOutputStream negativeCount = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(negativeCount);
+        out.writeLong(-1);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(0);
+        assertReadFails(negativeCount.toByteArray());
+
+        ByteArrayOutputStream badLongitude = new ByteArrayOutputStream();
+        out = new DataOutputStream(badLongitude);
+        out.writeLong(1);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(1);
+        out.writeInt(-5);
+        assertReadFails(badLongitude.toByteArray());
+    }
+
+    private static void assertReadFails(byte[] bytes) {
+        try {
+            BoundingBoxAccumulator.read(input(bytes));
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // invalid input
+        }
+    }
+
+    private static BoundingBoxAccumulator accumulate(List<PointOfInterest> points) {
+        BoundingBoxAccumulator accumulator = new BoundingBoxAccumulator();
+        for (PointOfInterest point : points) {
+            accumulator.add(point);
+        }
+        return accumulator;
+    }
+
+    private static byte[] bytes(BoundingBoxAccumulator accumulator) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        accumulator.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    /*
+     * Bounds as signed arc seconds, so that 0 deg N and 0 deg S compare equal.
+     */
+    private static List<Integer> arcSeconds(List<Angle> bounds) {
+        List<Integer> result = new ArrayList<>();
+        for (Angle angle : bounds) {
+            result.add(Angular.toArcSeconds(angle));
+        }
+        return result;
+    }
+
+    /*
+     * size random POIs, with longitudes within 30 degrees of 90 deg W, or of
+     * the antimeridian if wrapping.
+     */
+    private static List<PointOfInterest> randomPoints(Random random, int size, boolean wrapping) {
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int degrees = wrapping ? 150 + random.nextInt(30) : 60 + random.nextInt(60);
+            CardinalDirection direction = wrapping && random.nextBoolean() ? CardinalDirection.EAST
+                    : CardinalDirection.WEST;
+            points.add(new PointOfInterest(
+                    new Angle(random.nextInt(90), random.nextInt(60), random.nextInt(60),
+                            random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH),
+                    new Angle(degrees, random.nextInt(60), random.nextInt(60), direction), "POI " + i, ""));
+        }
+        return points;
+    }
+}
@@ -10,6 +10,8 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Methods for computing with latitude-longitude bounding rectangles.
@@ -42,6 +44,11 @@ import java.util.Set;
 
 public class Bounds {
 
+    /** Arc seconds of longitude from the prime meridian to the antimeridian. */
+    static final int MAX_LONGITUDE = 180 * 3600;
+    /** Number of elements below which fork/join tasks stop splitting. */
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 13;
+
     // Helper function for sorting
 
     /**
@@ -88,6 +95,21 @@ public class Bounds {
      */
  
     public static List<Angle> boundingBox(Set<PointOfInterest> pointsOfInterest) {
+        final GeoMetrics.Sample sample = GeoMetrics.BOUNDING_BOX.start(pointsOfInterest.size());
+        if (sample == null) {
+            return computeBoundingBox(pointsOfInterest);
+        }
+        try {
+            return computeBoundingBox(pointsOfInterest);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /*
+     * boundingBox(Set), without instrumentation.
+     */
+    private static List<Angle> computeBoundingBox(Set<PointOfInterest> pointsOfInterest) {
         List<Angle> boundingList = new ArrayList<Angle>();
         List<Angle> listOfLatitudes = new ArrayList<Angle>();
         List<Angle> listOfLongitudes = new ArrayList<Angle>();
@@ -168,7 +190,8 @@ public class Bounds {
      */
     public static boolean hasPoint(Set<PointOfInterest> pointsOfInterest, PointOfInterest point){
         for (PointOfInterest pointObject : pointsOfInterest){
-            if (pointObject.latitude().equals(point.latitude()) && pointObject.longitude().equals(point.longitude())){
+            if (AngleCache.same(pointObject.latitude(), point.latitude())
+                    && AngleCache.same(pointObject.longitude(), point.longitude())) {
                 return true;
             }
             
@@ -187,6 +210,22 @@ public class Bounds {
      *         given bounding rectangle
      */
     public static Set<PointOfInterest> inBoundingBox(Set<PointOfInterest> pointsOfInterest, List<Angle> bounds) {
+        final GeoMetrics.Sample sample = GeoMetrics.IN_BOUNDING_BOX.start(pointsOfInterest.size());
+        if (sample == null) {
+            return computeInBoundingBox(pointsOfInterest, bounds);
+        }
+        try {
+            return computeInBoundingBox(pointsOfInterest, bounds);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /*
+     * inBoundingBox(Set, List), without instrumentation.
+     */
+    private static Set<PointOfInterest> computeInBoundingBox(Set<PointOfInterest> pointsOfInterest,
+            List<Angle> bounds) {
         Set<PointOfInterest> inBoundingBox = new HashSet<>();
         double mostNorthern = Angular.toDegrees(bounds.get(0));
         double mostEastern = Angular.toDegrees(bounds.get(1));
@@ -223,4 +262,234 @@ public class Bounds {
         return inBoundingBox;
     }
 
+    /**
+     * Find latitude-longitude bounds for the points of interest (POIs) in a
+     * columnar store, with the same result as {@link #boundingBox(Set)} on a
+     * set of the same POIs.
+     * 
+     * @param store
+     *            store of POIs, not modified by this method
+     * @return a smallest latitude-longitude bounding rectangle, as defined in
+     *         the documentation for this class, containing every POI in the
+     *         store
+     */
+    public static List<Angle> boundingBox(PointOfInterestStore store) {
+        final int size = store.size();
+        if (size == 0) {
+            Angle startN = new Angle(0, 0, 0, CardinalDirection.NORTH);
+            Angle startE = new Angle(0, 0, 0, CardinalDirection.WEST);
+            return Arrays.asList(startN, startE, startN, startE);
+        }
+        int northernmost = 0;
+        int southernmost = 0;
+        // longitude in the high half, POI number in the low half, so that
+        // sorting orders POIs by longitude
+        final long[] byLongitude = new long[size];
+        for (int i = 0; i < size; i++) {
+            if (store.latitude(i) >= store.latitude(northernmost)) {
+                northernmost = i;
+            }
+            if (store.latitude(i) < store.latitude(southernmost)) {
+                southernmost = i;
+            }
+            byLongitude[i] = ((long) (store.longitude(i) + MAX_LONGITUDE) << Integer.SIZE) | i;
+        }
+        Arrays.sort(byLongitude);
+
+        // the rectangle runs east from the far side of the biggest gap
+        // between consecutive longitudes
+        int biggestGap = 0;
+        int bestIndex = 0;
+        for (int index = 0; index < size; index++) {
+            final int nextIndex = (index + 1) % size;
+            int gap = (int) (byLongitude[nextIndex] >>> Integer.SIZE) - (int) (byLongitude[index] >>> Integer.SIZE);
+            if (gap < 0) {
+                gap += 2 * MAX_LONGITUDE;
+            }
+            if (gap > biggestGap) {
+                biggestGap = gap;
+                bestIndex = index;
+            }
+        }
+        final int eastern = (int) byLongitude[bestIndex];
+        final int western = (int) byLongitude[(bestIndex + 1) % size];
+        return Arrays.asList(store.latitudeAngle(northernmost), store.longitudeAngle(eastern),
+                store.latitudeAngle(southernmost), store.longitudeAngle(western));
+    }
+
+    /**
+     * Find points of interest (POIs) of a columnar store in a
+     * latitude-longitude bounding rectangle.
+     * 
+     * @param store
+     *            store of POIs, not modified by this method
+     * @param bounds
+     *            a latitude-longitude bounding rectangle as defined in the
+     *            documentation for this class, not modified by this method
+     * @return in increasing order, the numbers of all and only the POIs in the
+     *         store that are contained in the given bounding rectangle, where
+     *         180 deg E & W are the same longitude
+     */
+    public static int[] inBoundingBox(PointOfInterestStore store, List<Angle> bounds) {
+        final int north = Angular.toArcSeconds(bounds.get(0));
+        final int east = Angular.toArcSeconds(bounds.get(1));
+        final int south = Angular.toArcSeconds(bounds.get(2));
+        final int west = Angular.toArcSeconds(bounds.get(3));
+        final int[] found = new int[store.size()];
+        int count = 0;
+        for (int i = 0; i < store.size(); i++) {
+            final int latitude = store.latitude(i);
+            if (latitude <= north && latitude >= south && containsLongitude(store.longitude(i), west, east)) {
+                found[count++] = i;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /*
+     * True iff sweeping east from west to east, all in signed arc seconds,
+     * goes through longitude.
+     */
+    static boolean containsLongitude(int longitude, int west, int east) {
+        if (west > east) {
+            // spans the antimeridian
+            return longitude >= west || longitude <= east;
+        }
+        return (longitude >= west && longitude <= east) || (longitude == -MAX_LONGITUDE && east == MAX_LONGITUDE)
+                || (longitude == MAX_LONGITUDE && west == -MAX_LONGITUDE);
+    }
+
+    /**
+     * Find latitude-longitude bounds for a set of points of interest (POIs),
+     * like {@link #boundingBox(Set)}, splitting the work across the common
+     * fork/join pool. Latitudes are reduced to a minimum and maximum, and the
+     * biggest gap between longitudes is found in a sorted primitive array.
+     * 
+     * @param pointsOfInterest
+     *            set of POIs, not modified by this method
+     * @return a smallest latitude-longitude bounding rectangle, as defined in
+     *         the documentation for this class, containing every POI in the
+     *         input
+     */
+    public static List<Angle> parallelBoundingBox(Set<PointOfInterest> pointsOfInterest) {
+        final PointOfInterest[] points = pointsOfInterest.toArray(new PointOfInterest[pointsOfInterest.size()]);
+        final int size = points.length;
+        if (size == 0) {
+            Angle startN = new Angle(0, 0, 0, CardinalDirection.NORTH);
+            Angle startE = new Angle(0, 0, 0, CardinalDirection.WEST);
+            return Arrays.asList(startN, startE, startN, startE);
+        }
+        final int[] longitudes = new int[size];
+        final int[] latitudeRange = ForkJoinPool.commonPool().invoke(new LatitudeTask(points, longitudes, 0, size));
+        Arrays.parallelSort(longitudes);
+
+        // the rectangle runs east from the far side of the biggest gap
+        // between consecutive longitudes, or between the last and the first
+        // going across the antimeridian
+        final long biggest = ForkJoinPool.commonPool().invoke(new GapTask(longitudes, 0, size - 1));
+        final int wrapGap = longitudes[0] + 2 * MAX_LONGITUDE - longitudes[size - 1];
+        int eastern = size - 1;
+        int western = 0;
+        if (size > 1 && (int) (biggest >> Integer.SIZE) >= wrapGap) {
+            eastern = (int) biggest;
+            western = eastern + 1;
+        }
+        return Arrays.asList(angle(latitudeRange[1], CardinalDirection.NORTH, CardinalDirection.SOUTH),
+                angle(longitudes[eastern], CardinalDirection.EAST, CardinalDirection.WEST),
+                angle(latitudeRange[0], CardinalDirection.NORTH, CardinalDirection.SOUTH),
+                angle(longitudes[western], CardinalDirection.EAST, CardinalDirection.WEST));
+    }
+
+    /*
+     * Computes {min, max} signed arc seconds of latitude of points[from, to),
+     * and stores their longitudes in the same positions of longitudes.
+     */
+    private static class LatitudeTask extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final PointOfInterest[] points;
+        private final int[] longitudes;
+        private final int from;
+        private final int to;
+
+        LatitudeTask(PointOfInterest[] points, int[] longitudes, int from, int to) {
+            this.points = points;
+            this.longitudes = longitudes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                int min = Integer.MAX_VALUE;
+                int max = Integer.MIN_VALUE;
+                for (int i = from; i < to; i++) {
+                    final int latitude = Angular.toArcSeconds(points[i].latitude());
+                    min = Math.min(min, latitude);
+                    max = Math.max(max, latitude);
+                    longitudes[i] = Angular.toArcSeconds(points[i].longitude());
+                }
+                return new int[] { min, max };
+            }
+            final int middle = (from + to) >>> 1;
+            final LatitudeTask left = new LatitudeTask(points, longitudes, from, middle);
+            left.fork();
+            final int[] right = new LatitudeTask(points, longitudes, middle, to).compute();
+            final int[] joined = left.join();
+            return new int[] { Math.min(joined[0], right[0]), Math.max(joined[1], right[1]) };
+        }
+    }
+
+    /*
+     * Finds the biggest gap sorted[i+1] - sorted[i] for i in [from, to), and
+     * returns it in the high half with the lowest such i in the low half, or
+     * -1 in the high half if the range is empty.
+     */
+    private static class GapTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] sorted;
+        private final int from;
+        private final int to;
+
+        GapTask(int[] sorted, int from, int to) {
+            this.sorted = sorted;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                int biggestGap = -1;
+                int bestIndex = from;
+                for (int i = from; i < to; i++) {
+                    if (sorted[i + 1] - sorted[i] > biggestGap) {
+                        biggestGap = sorted[i + 1] - sorted[i];
+                        bestIndex = i;
+                    }
+                }
+                return ((long) biggestGap << Integer.SIZE) | bestIndex;
+            }
+            final int middle = (from + to) >>> 1;
+            final GapTask left = new GapTask(sorted, from, middle);
+            left.fork();
+            final long right = new GapTask(sorted, middle, to).compute();
+            final long joined = left.join();
+            // prefer the left half on ties, like a sequential scan
+            return (right >> Integer.SIZE) > (joined >> Integer.SIZE) ? right : joined;
+        }
+    }
+
+    /*
+     * Angle for signed arc seconds, in direction positive if nonnegative or
+     * negative otherwise.
+     */
+    static Angle angle(int arcSeconds, CardinalDirection positive, CardinalDirection negative) {
+        return new Angle(0, 0, Math.abs(arcSeconds), arcSeconds >= 0 ? positive : negative);
+    }
+
 }
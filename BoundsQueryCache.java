@@ -0,0 +1,340 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe cache of bounding rectangle query results over a set of points
+ * of interest (POIs), for workloads that repeat the same or nearby viewports.
+ *
+ * <p>
+ * A query rectangle is widened outward to a grid of a fixed number of arc
+ * seconds, and the POIs in the widened rectangle are cached under it, so
+ * rectangles that differ by less than a grid step share a cache entry. Every
+ * result is then filtered exactly against the rectangle asked for. Entries are
+ * evicted least recently used first once the cache is full, and all entries
+ * are dropped when the set of POIs is replaced.
+ */
+public class BoundsQueryCache {
+
+    private static final int MAX_LATITUDE = 90 * 3600;
+    private static final int MAX_LONGITUDE = 180 * 3600;
+
+    private final int maxEntries;
+    private final int quantum;
+    private final Map<RectangleKey, Set<PointOfInterest>> entries;
+    private Generation generation;
+    private List<Angle> boundingBox;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong boundingBoxHits = new AtomicLong();
+    private final AtomicLong boundingBoxMisses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /*
+     * Rep invariant: maxEntries > 0, quantum > 0; entries has at most
+     * maxEntries entries, and maps each key to the POIs of
+     * generation.pointsOfInterest in the rectangle of the key; boundingBox is
+     * null or Bounds.boundingBox(generation.pointsOfInterest).
+     *
+     * Thread safety argument: entries, generation, and boundingBox are
+     * guarded by this. A Generation is immutable apart from its lazily built
+     * index, which it publishes itself (see Generation). Queries and the
+     * index are computed outside the lock, and results are only cached if
+     * generation is still the same object afterwards. The counters are
+     * atomic.
+     */
+
+    /**
+     * One set of POIs, with a spatial index over it that is built by the first
+     * query that needs it.
+     */
+    private static final class Generation {
+
+        private final Set<PointOfInterest> pointsOfInterest;
+        private volatile SpatialIndex index;
+
+        /*
+         * Thread safety argument: pointsOfInterest is an unmodifiable set
+         * that is never modified. index is built at most once, under the
+         * lock of this Generation (double-checked), and published through a
+         * volatile field; SpatialIndex is immutable.
+         */
+
+        Generation(Set<PointOfInterest> pointsOfInterest) {
+            this.pointsOfInterest = pointsOfInterest;
+        }
+
+        SpatialIndex index() {
+            SpatialIndex result = index;
+            if (result == null) {
+                synchronized (this) {
+                    result = index;
+                    if (result == null) {
+                        result = new SpatialIndex(pointsOfInterest);
+                        index = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Make a cache over a set of POIs.
+     *
+     * @param pointsOfInterest
+     *            set of POIs, not modified by this method; the cache keeps a
+     *            copy
+     * @param maxEntries
+     *            most rectangles to cache results for, must be positive
+     * @param quantumArcSeconds
+     *            grid step that query rectangles are widened to, in arc
+     *            seconds, must be positive
+     */
+    public BoundsQueryCache(Set<PointOfInterest> pointsOfInterest, int maxEntries, int quantumArcSeconds) {
+        assert maxEntries > 0 : "cache must hold an entry";
+        assert quantumArcSeconds > 0 : "quantum must be positive";
+        this.maxEntries = maxEntries;
+        this.quantum = quantumArcSeconds;
+        this.generation = new Generation(Collections.unmodifiableSet(new HashSet<>(pointsOfInterest)));
+        this.entries = new LinkedHashMap<RectangleKey, Set<PointOfInterest>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RectangleKey, Set<PointOfInterest>> eldest) {
+                if (size() > BoundsQueryCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Replace the set of POIs, and drop every cached result.
+     *
+     * @param pointsOfInterest
+     *            new set of POIs, not modified by this method; the cache keeps
+     *            a copy
+     */
+    public void replace(Set<PointOfInterest> pointsOfInterest) {
+        final Set<PointOfInterest> copy = Collections.unmodifiableSet(new HashSet<>(pointsOfInterest));
+        synchronized (this) {
+            this.generation = new Generation(copy);
+            this.boundingBox = null;
+            entries.clear();
+        }
+    }
+
+    /**
+     * Find latitude-longitude bounds for the POIs, like
+     * {@link Bounds#boundingBox(Set)}, computed once per set of POIs.
+     *
+     * @return a smallest latitude-longitude bounding rectangle, as defined in
+     *         the documentation for {@link Bounds}, containing every POI
+     */
+    public List<Angle> boundingBox() {
+        final Generation seen;
+        synchronized (this) {
+            if (boundingBox != null) {
+                boundingBoxHits.incrementAndGet();
+                return boundingBox;
+            }
+            seen = generation;
+        }
+        boundingBoxMisses.incrementAndGet();
+        final List<Angle> bounds = Collections.unmodifiableList(Bounds.boundingBox(seen.pointsOfInterest));
+        synchronized (this) {
+            if (seen == generation) {
+                boundingBox = bounds;
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Find POIs in a latitude-longitude bounding rectangle.
+     *
+     * @param bounds
+     *            a latitude-longitude bounding rectangle as defined in the
+     *            documentation for {@link Bounds}, not modified by this method
+     * @return all and only the POIs that are contained in the given bounding
+     *         rectangle, where 180 deg E & W are the same longitude, in a new
+     *         set that the caller may modify
+     */
+    public Set<PointOfInterest> inBoundingBox(List<Angle> bounds) {
+        final int north = Angular.toArcSeconds(bounds.get(0));
+        final int east = Angular.toArcSeconds(bounds.get(1));
+        final int south = Angular.toArcSeconds(bounds.get(2));
+        final int west = Angular.toArcSeconds(bounds.get(3));
+        if (south > north) {
+            return new HashSet<>();
+        }
+        final RectangleKey key = widen(north, east, south, west);
+
+        Set<PointOfInterest> candidates;
+        final Generation seen;
+        synchronized (this) {
+            candidates = entries.get(key);
+            seen = generation;
+        }
+        if (candidates != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            candidates = seen.index().inBoundingBox(key.toBounds());
+            synchronized (this) {
+                if (seen == generation) {
+                    entries.put(key, candidates);
+                }
+            }
+        }
+
+        final Set<PointOfInterest> result = new HashSet<>();
+        for (PointOfInterest point : candidates) {
+            final int latitude = Angular.toArcSeconds(point.latitude());
+            if (latitude <= north && latitude >= south
+                    && Bounds.containsLongitude(Angular.toArcSeconds(point.longitude()), west, east)) {
+                result.add(point);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return number of inBoundingBox queries answered from the cache
+     */
+    public long hitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of inBoundingBox queries that had to be computed
+     */
+    public long missCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of boundingBox calls answered from the cache
+     */
+    public long boundingBoxHitCount() {
+        return boundingBoxHits.get();
+    }
+
+    /**
+     * @return number of boundingBox calls that had to be computed
+     */
+    public long boundingBoxMissCount() {
+        return boundingBoxMisses.get();
+    }
+
+    /**
+     * @return number of cached results evicted to make room for others
+     */
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @return fraction of inBoundingBox queries answered from the cache, or 0
+     *         if there have been no such queries
+     */
+    public double hitRate() {
+        final long hit = hits.get();
+        final long total = hit + misses.get();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * @return number of rectangles with cached results
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "BoundsQueryCache[hits=" + hitCount() + ", misses=" + missCount() + ", boundingBoxHits="
+                + boundingBoxHitCount() + ", boundingBoxMisses=" + boundingBoxMissCount() + ", evictions="
+                + evictionCount() + ", entries=" + size() + "]";
+    }
+
+    /*
+     * Key for the smallest rectangle on the quantum grid that contains the
+     * rectangle [south, north] x [west, east], clamped to valid coordinates.
+     */
+    private RectangleKey widen(int north, int east, int south, int west) {
+        final int widenedNorth = Math.min(MAX_LATITUDE, ceil(north));
+        final int widenedSouth = Math.max(-MAX_LATITUDE, floor(south));
+        int widenedEast = Math.min(MAX_LONGITUDE, ceil(east));
+        int widenedWest = Math.max(-MAX_LONGITUDE, floor(west));
+        if (west > east && widenedWest <= widenedEast) {
+            // the widened halves of a rectangle spanning the antimeridian
+            // meet, so it covers every longitude
+            widenedEast = MAX_LONGITUDE;
+            widenedWest = -MAX_LONGITUDE;
+        }
+        return new RectangleKey(widenedNorth, widenedEast, widenedSouth, widenedWest);
+    }
+
+    private int floor(int arcSeconds) {
+        return Math.floorDiv(arcSeconds, quantum) * quantum;
+    }
+
+    private int ceil(int arcSeconds) {
+        return -Math.floorDiv(-arcSeconds, quantum) * quantum;
+    }
+
+    /**
+     * Immutable bounding rectangle in signed arc seconds, usable as a hash key.
+     */
+    private static final class RectangleKey {
+
+        private final int north;
+        private final int east;
+        private final int south;
+        private final int west;
+
+        RectangleKey(int north, int east, int south, int west) {
+            this.north = north;
+            this.east = east;
+            this.south = south;
+            this.west = west;
+        }
+
+        List<Angle> toBounds() {
+            return Arrays.asList(Bounds.angle(north, CardinalDirection.NORTH, CardinalDirection.SOUTH),
+                    Bounds.angle(east, CardinalDirection.EAST, CardinalDirection.WEST),
+                    Bounds.angle(south, CardinalDirection.NORTH, CardinalDirection.SOUTH),
+                    Bounds.angle(west, CardinalDirection.EAST, CardinalDirection.WEST));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RectangleKey)) {
+                return false;
+            }
+            final RectangleKey that = (RectangleKey) obj;
+            return this.north == that.north && this.east == that.east && this.south == that.south
+                    && this.west == that.west;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((31 * north + east) * 31 + south) * 31 + west;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class BoundsQueryCacheTest {
+
+    private static final int DEGREE = 3600;
+
+    private static final PointOfInterest STATA = new PointOfInterest(new Angle(42, 21, 42, CardinalDirection.NORTH),
+            new Angle(71, 5, 26, CardinalDirection.WEST), "Stata", "Stata Center");
+    private static final PointOfInterest KRESGE = new PointOfInterest(new Angle(42, 21, 29, CardinalDirection.NORTH),
+            new Angle(71, 5, 42, CardinalDirection.WEST), "Kresge", "auditorium");
+    private static final PointOfInterest FIJI = new PointOfInterest(new Angle(17, 42, 48, CardinalDirection.SOUTH),
+            new Angle(178, 3, 0, CardinalDirection.EAST), "Fiji", "");
+    private static final PointOfInterest SAMOA = new PointOfInterest(new Angle(13, 45, 34, CardinalDirection.SOUTH),
+            new Angle(172, 6, 15, CardinalDirection.WEST), "Samoa", "");
+    private static final Set<PointOfInterest> POINTS = new HashSet<>(Arrays.asList(STATA, KRESGE, FIJI, SAMOA));
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests that rectangles less than a grid step apart share an entry.
+     */
+    @Test
+    public void quantizedKeyTest() {
+        BoundsQueryCache cache = new BoundsQueryCache(POINTS, 10, DEGREE);
+        Set<PointOfInterest> cambridge = new HashSet<>(Arrays.asList(STATA, KRESGE));
+        assertEquals(cambridge, cache.inBoundingBox(bounds(2550, -4260, 2530, -4290)));
+        assertEquals(cambridge, cache.inBoundingBox(bounds(2560, -4265, 2540, -4280)));
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.size());
+
+        // one grid step further west is a different entry
+        assertEquals(Collections.emptySet(), cache.inBoundingBox(bounds(2550, -4330, 2530, -4360)));
+        assertEquals(2, cache.missCount());
+        assertEquals(2, cache.size());
+        assertEquals(1.0 / 3, cache.hitRate(), 1e-9);
+    }
+
+    /**
+     * Tests that results from a widened entry are filtered exactly against the
+     * rectangle asked for, including across the antimeridian.
+     */
+    @Test
+    public void exactFilterTest() {
+        BoundsQueryCache cache = new BoundsQueryCache(POINTS, 10, DEGREE);
+        // Stata and Kresge are 16 arc seconds of longitude apart
+        List<Angle> stataOnly = Arrays.asList(new Angle(42, 21, 50, CardinalDirection.NORTH),
+                new Angle(71, 5, 20, CardinalDirection.WEST), new Angle(42, 21, 20, CardinalDirection.NORTH),
+                new Angle(71, 5, 30, CardinalDirection.WEST));
+        assertEquals(Collections.singleton(STATA), cache.inBoundingBox(stataOnly));
+
+        // Samoa is in the widened rectangle, but east of the one asked for
+        List<Angle> fijiOnly = Arrays.asList(new Angle(0, 0, 0, CardinalDirection.NORTH),
+                new Angle(172, 10, 0, CardinalDirection.WEST), new Angle(20, 0, 0, CardinalDirection.SOUTH),
+                new Angle(178, 0, 0, CardinalDirection.EAST));
+        List<Angle> both = Arrays.asList(new Angle(0, 0, 0, CardinalDirection.NORTH),
+                new Angle(172, 0, 0, CardinalDirection.WEST), new Angle(20, 0, 0, CardinalDirection.SOUTH),
+                new Angle(178, 0, 0, CardinalDirection.EAST));
+        assertEquals(Collections.singleton(FIJI), cache.inBoundingBox(fijiOnly));
+        assertEquals(new HashSet<>(Arrays.asList(FIJI, SAMOA)), cache.inBoundingBox(both));
+        assertEquals(1, cache.hitCount());
+
+        List<Angle> inverted = Arrays.asList(new Angle(20, 0, 0, CardinalDirection.SOUTH),
+                new Angle(180, 0, 0, CardinalDirection.EAST), new Angle(0, 0, 0, CardinalDirection.NORTH),
+                new Angle(180, 0, 0, CardinalDirection.WEST));
+        assertEquals(Collections.emptySet(), cache.inBoundingBox(inverted));
+    }
+
+    /**
+     * Tests random rectangles, many spanning the antimeridian, against Bounds,
+     * with a cache small enough to evict.
+     */
+    @Test
+    public void randomTest() {
+        Random random = new Random(6005);
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Angle longitude = i % 50 == 0 ? new Angle(180, 0, 0, CardinalDirection.WEST) : randomLongitude(random);
+            points.add(new PointOfInterest(randomLatitude(random), longitude, "POI " + i, ""));
+        }
+        PointOfInterestStore store = PointOfInterestStore.of(points);
+        BoundsQueryCache cache = new BoundsQueryCache(new HashSet<>(points), 8, 5 * DEGREE);
+        for (int trial = 0; trial < 300; trial++) {
+            Angle a = randomLatitude(random);
+            Angle b = randomLatitude(random);
+            boolean ordered = Angular.toArcSeconds(a) >= Angular.toArcSeconds(b);
+            List<Angle> bounds = Arrays.asList(ordered ? a : b, randomLongitude(random), ordered ? b : a,
+                    randomLongitude(random));
+            Set<PointOfInterest> expected = new HashSet<>();
+            for (int i : Bounds.inBoundingBox(store, bounds)) {
+                expected.add(store.get(i));
+            }
+            assertEquals(expected, cache.inBoundingBox(bounds));
+            assertEquals(expected, cache.inBoundingBox(bounds));
+        }
+        assertTrue(cache.size() <= 8);
+        assertEquals(600, cache.hitCount() + cache.missCount());
+        assertTrue(cache.hitCount() >= 300);
+        assertEquals(cache.missCount() - cache.size(), cache.evictionCount());
+    }
+
+    /**
+     * Tests that the least recently used entry is evicted once the cache is
+     * full.
+     */
+    @Test
+    public void evictionTest() {
+        BoundsQueryCache cache = new BoundsQueryCache(POINTS, 2, DEGREE);
+        List<Angle> a = bounds(2550, -4260, 2530, -4290);
+        List<Angle> b = bounds(-1020, 10710, -1080, 10680);
+        List<Angle> c = bounds(-780, -10320, -840, -10350);
+
+        cache.inBoundingBox(a);
+        cache.inBoundingBox(b);
+        cache.inBoundingBox(a);
+        assertEquals(2, cache.missCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(0, cache.evictionCount());
+
+        // b is least recently used
+        assertEquals(Collections.singleton(SAMOA), cache.inBoundingBox(c));
+        assertEquals(1, cache.evictionCount());
+        cache.inBoundingBox(a);
+        assertEquals(2, cache.hitCount());
+        assertEquals(Collections.singleton(FIJI), cache.inBoundingBox(b));
+        assertEquals(4, cache.missCount());
+        assertEquals(2, cache.evictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Tests that boundingBox is computed once, and that replace drops both it
+     * and the cached query results.
+     */
+    @Test
+    public void replaceTest() {
+        BoundsQueryCache cache = new BoundsQueryCache(POINTS, 10, DEGREE);
+        List<Angle> cambridge = bounds(2580, -4260, 2520, -4320);
+        assertEquals(Bounds.boundingBox(POINTS), cache.boundingBox());
+        assertEquals(Bounds.boundingBox(POINTS), cache.boundingBox());
+        assertEquals(1, cache.boundingBoxMissCount());
+        assertEquals(1, cache.boundingBoxHitCount());
+        assertEquals(new HashSet<>(Arrays.asList(STATA, KRESGE)), cache.inBoundingBox(cambridge));
+
+        Set<PointOfInterest> replacement = new HashSet<>(Arrays.asList(KRESGE, FIJI));
+        cache.replace(replacement);
+        assertEquals(0, cache.size());
+        assertEquals(Collections.singleton(KRESGE), cache.inBoundingBox(cambridge));
+        assertEquals(2, cache.missCount());
+        assertEquals(Bounds.boundingBox(replacement), cache.boundingBox());
+        assertEquals(2, cache.boundingBoxMissCount());
+    }
+
+    /*
+     * Rectangle with bounds in signed arc minutes, north and east positive.
+     */
+    private static List<Angle> bounds(int north, int east, int south, int west) {
+        return Arrays.asList(Bounds.angle(60 * north, CardinalDirection.NORTH, CardinalDirection.SOUTH),
+                Bounds.angle(60 * east, CardinalDirection.EAST, CardinalDirection.WEST),
+                Bounds.angle(60 * south, CardinalDirection.NORTH, CardinalDirection.SOUTH),
+                Bounds.angle(60 * west, CardinalDirection.EAST, CardinalDirection.WEST));
+    }
+
+    private static Angle randomLatitude(Random random) {
+        return new Angle(random.nextInt(90), random.nextInt(60), random.nextInt(60),
+                random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH);
+    }
+
+    private static Angle randomLongitude(Random random) {
+        return new Angle(random.nextInt(180), random.nextInt(60), random.nextInt(60),
+                random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST);
+    }
+}
@@ -0,0 +1,166 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class BoundsTest {
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests parallelBoundingBox on the empty set and a single POI.
+     */
+    @Test
+    public void parallelBoundingBoxSmallTest() {
+        Set<PointOfInterest> empty = new HashSet<>();
+        assertEquals(Bounds.boundingBox(empty), Bounds.parallelBoundingBox(empty));
+
+        Set<PointOfInterest> one = new HashSet<>(Arrays.asList(point(-10, 100, "one")));
+        assertEquals(arcSeconds(Bounds.boundingBox(one)), arcSeconds(Bounds.parallelBoundingBox(one)));
+    }
+
+    /**
+     * Tests parallelBoundingBox with several POIs tied for northernmost and
+     * southernmost, and with 0 deg N & S.
+     */
+    @Test
+    public void parallelBoundingBoxTiedLatitudesTest() {
+        Set<PointOfInterest> points = new HashSet<>(Arrays.asList(point(30, 10, "a"), point(30, 20, "b"),
+                point(0, 15, "c"), point(-20, 12, "d"), point(-20, 18, "e"),
+                new PointOfInterest(new Angle(0, 0, 0, CardinalDirection.SOUTH),
+                        new Angle(0, 0, 0, CardinalDirection.WEST), "f", "")));
+        assertEquals(arcSeconds(Bounds.boundingBox(points)), arcSeconds(Bounds.parallelBoundingBox(points)));
+    }
+
+    /**
+     * Tests parallelBoundingBox when several gaps between longitudes, including
+     * the one across the antimeridian, are equally big.
+     */
+    @Test
+    public void parallelBoundingBoxEqualGapsTest() {
+        Set<PointOfInterest> thirds = new HashSet<>(Arrays.asList(point(0, -120, "a"), point(0, 0, "b"),
+                point(0, 120, "c")));
+        assertEquals(arcSeconds(Bounds.boundingBox(thirds)), arcSeconds(Bounds.parallelBoundingBox(thirds)));
+
+        Set<PointOfInterest> repeated = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            repeated.add(point(i % 7, 45, "POI " + i));
+        }
+        assertEquals(arcSeconds(Bounds.boundingBox(repeated)), arcSeconds(Bounds.parallelBoundingBox(repeated)));
+
+        // a grid of equal gaps, large enough to be split into tasks
+        Set<PointOfInterest> grid = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            grid.add(new PointOfInterest(new Angle(0, 0, 0, CardinalDirection.NORTH),
+                    Bounds.angle(-180 * 3600 + 60 * (i % 21_600), CardinalDirection.EAST, CardinalDirection.WEST),
+                    "POI " + i, ""));
+        }
+        assertEquals(arcSeconds(Bounds.boundingBox(grid)), arcSeconds(Bounds.parallelBoundingBox(grid)));
+    }
+
+    /**
+     * Tests parallelBoundingBox against boundingBox on random sets below, at
+     * and above the size at which work is split into tasks, with and without
+     * POIs across the antimeridian.
+     */
+    @Test
+    public void parallelBoundingBoxRandomTest() {
+        Random random = new Random(6005);
+        for (int size : new int[] { 2, 100, 8191, 8192, 8193, 30_000 }) {
+            for (boolean wrapping : new boolean[] { false, true }) {
+                Set<PointOfInterest> points = new HashSet<>();
+                for (int i = 0; i < size; i++) {
+                    int degrees = wrapping ? 160 + random.nextInt(20) : 20 + random.nextInt(100);
+                    points.add(new PointOfInterest(
+                            new Angle(random.nextInt(90), random.nextInt(60), random.nextInt(60),
+                                    random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH),
+                            new Angle(degrees, random.nextInt(60), random.nextInt(60),
+                                    random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST),
+                            "POI " + i, ""));
+                }
+                assertEquals(arcSeconds(Bounds.boundingBox(points)), arcSeconds(Bounds.parallelBoundingBox(points)));
+            }
+        }
+    }
+
+    /**
+     * Tests the store overloads of boundingBox and inBoundingBox against the
+     * set ones, with rectangles that span the antimeridian.
+     */
+    @Test
+    public void storeTest() {
+        Random random = new Random(6005);
+        for (int size : new int[] { 1, 10, 1000 }) {
+            for (boolean wrapping : new boolean[] { false, true }) {
+                List<PointOfInterest> points = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    int degrees = wrapping ? 160 + random.nextInt(20) : 20 + random.nextInt(100);
+                    points.add(new PointOfInterest(randomLatitude(random),
+                            new Angle(degrees, random.nextInt(60), random.nextInt(60),
+                                    random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST),
+                            "POI " + i, ""));
+                }
+                PointOfInterestStore store = PointOfInterestStore.of(points);
+                Set<PointOfInterest> set = new HashSet<>(points);
+                assertEquals(arcSeconds(Bounds.boundingBox(set)), arcSeconds(Bounds.boundingBox(store)));
+
+                for (int trial = 0; trial < 20; trial++) {
+                    Angle a = randomLatitude(random);
+                    Angle b = randomLatitude(random);
+                    boolean ordered = Angular.toArcSeconds(a) >= Angular.toArcSeconds(b);
+                    List<Angle> bounds = Arrays.asList(ordered ? a : b,
+                            Bounds.angle(3600 * (random.nextInt(360) - 179), CardinalDirection.EAST,
+                                    CardinalDirection.WEST),
+                            ordered ? b : a, Bounds.angle(3600 * (random.nextInt(360) - 179),
+                                    CardinalDirection.EAST, CardinalDirection.WEST));
+                    Set<PointOfInterest> found = new HashSet<>();
+                    for (int i : Bounds.inBoundingBox(store, bounds)) {
+                        found.add(points.get(i));
+                    }
+                    assertEquals(Bounds.inBoundingBox(set, bounds), found);
+                }
+            }
+        }
+    }
+
+    private static Angle randomLatitude(Random random) {
+        return new Angle(random.nextInt(90), random.nextInt(60), random.nextInt(60),
+                random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH);
+    }
+
+    /*
+     * Bounds as signed arc seconds, so that 0 deg N and 0 deg S compare equal.
+     */
+    private static List<Integer> arcSeconds(List<Angle> bounds) {
+        List<Integer> result = new ArrayList<>();
+        for (Angle angle : bounds) {
+            result.add(Angular.toArcSeconds(angle));
+        }
+        return result;
+    }
+
+    /*
+     * POI at whole signed degrees of latitude and longitude.
+     */
+    private static PointOfInterest point(int latitude, int longitude, String name) {
+        return new PointOfInterest(Bounds.angle(3600 * latitude, CardinalDirection.NORTH, CardinalDirection.SOUTH),
+                Bounds.angle(3600 * longitude, CardinalDirection.EAST, CardinalDirection.WEST), name, "");
+    }
+}
@@ -0,0 +1,364 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Immutable matcher that finds the categories applicable to points of interest
+ * (POIs), with the same result as {@link Mapping#findCategories}.
+ *
+ * <p>
+ * All category names and keywords are compiled once into a single
+ * case-insensitive Aho-Corasick automaton, so categorizing a POI takes one
+ * pass over its name and one pass over its description, no matter how many
+ * categories and keywords there are.
+ */
+public class CategoryMatcher {
+
+    /** Symbols for letters (case-folded), digits, '_', '-' and ' '. */
+    private static final int ALPHABET = 26 + 10 + 3;
+    /** Symbol for any character that cannot appear in a keyword. */
+    private static final int OTHER = -1;
+    private static final int ROOT = 0;
+
+    private final String[] categories;
+    private final Map<String, int[]> byFoldedName;
+    private final int[][] transitions;
+    private final int[][] outputs;
+
+    /*
+     * Rep invariant: transitions[s][symbol] is the automaton state after
+     * reading symbol in state s, for every state s and symbol in [0,
+     * ALPHABET); outputs[s] holds the indices into categories of every
+     * category with a name or keyword that is a suffix of the text read to
+     * reach s, without repeats; byFoldedName maps each category name, folded
+     * by fold(), to the indices of the categories with that folded name.
+     */
+
+    /**
+     * Compile a matcher for a set of categories.
+     *
+     * @param categoryKeywords
+     *            a map, not modified by this method, that maps category names
+     *            to a set of keywords for that category, as defined in
+     *            {@link Mapping#findCategories}
+     */
+    public CategoryMatcher(Map<String, Set<String>> categoryKeywords) {
+        this.categories = categoryKeywords.keySet().toArray(new String[categoryKeywords.size()]);
+        this.byFoldedName = new HashMap<>();
+        for (int category = 0; category < categories.length; category++) {
+            final int[] previous = byFoldedName.getOrDefault(fold(categories[category]), new int[0]);
+            final int[] indices = Arrays.copyOf(previous, previous.length + 1);
+            indices[previous.length] = category;
+            byFoldedName.put(fold(categories[category]), indices);
+        }
+
+        // build the keyword trie
+        final List<int[]> trie = new ArrayList<>();
+        final List<Set<Integer>> matches = new ArrayList<>();
+        trie.add(newState());
+        matches.add(new HashSet<>());
+        for (int category = 0; category < categories.length; category++) {
+            final List<String> patterns = new ArrayList<>(categoryKeywords.get(categories[category]));
+            patterns.add(categories[category]);
+            for (String pattern : patterns) {
+                int state = ROOT;
+                for (int i = 0; i < pattern.length(); i++) {
+                    final int symbol = symbol(pattern.charAt(i));
+                    assert symbol != OTHER : "invalid keyword: " + pattern;
+                    if (trie.get(state)[symbol] < 0) {
+                        trie.get(state)[symbol] = trie.size();
+                        trie.add(newState());
+                        matches.add(new HashSet<>());
+                    }
+                    state = trie.get(state)[symbol];
+                }
+                matches.get(state).add(category);
+            }
+        }
+
+        // turn the trie into a complete automaton, breadth first, so that a
+        // state's failure state is finished before the state itself
+        final int[] failure = new int[trie.size()];
+        final Queue<Integer> queue = new ArrayDeque<>();
+        final int[] root = trie.get(ROOT);
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            if (root[symbol] < 0) {
+                root[symbol] = ROOT;
+            } else {
+                failure[root[symbol]] = ROOT;
+                queue.add(root[symbol]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.remove();
+            matches.get(state).addAll(matches.get(failure[state]));
+            final int[] row = trie.get(state);
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                final int fallback = trie.get(failure[state])[symbol];
+                if (row[symbol] < 0) {
+                    row[symbol] = fallback;
+                } else {
+                    failure[row[symbol]] = fallback;
+                    queue.add(row[symbol]);
+                }
+            }
+        }
+
+        this.transitions = trie.toArray(new int[trie.size()][]);
+        this.outputs = new int[trie.size()][];
+        for (int state = 0; state < outputs.length; state++) {
+            outputs[state] = matches.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Find categories applicable to a POI by searching its name and
+     * description.
+     *
+     * @param pointOfInterest
+     *            POI to categorize
+     * @return all and only the category names of this matcher where the name
+     *         or description of the POI contains the category name or at least
+     *         one of its keywords as a substring, ignoring case
+     */
+    public Set<String> findCategories(PointOfInterest pointOfInterest) {
+        final Set<String> result = new HashSet<>();
+        scan(pointOfInterest.name(), result);
+        scan(pointOfInterest.description(), result);
+        return result;
+    }
+
+    /**
+     * Find categories applicable to a piece of text.
+     *
+     * @param text
+     *            text to search
+     * @return all and only the category names of this matcher where text
+     *         contains the category name or at least one of its keywords as a
+     *         substring, ignoring case
+     */
+    public Set<String> findCategories(String text) {
+        final Set<String> result = new HashSet<>();
+        scan(text, result);
+        return result;
+    }
+
+    /**
+     * Tag many POIs at once, in parallel on the common fork/join pool.
+     *
+     * @param pointsOfInterest
+     *            POIs to categorize, not modified by this method
+     * @return map from every category name of this matcher to the list, in
+     *         input order, of the POIs to which it applies, as defined by
+     *         {@link #findCategories(PointOfInterest)}
+     */
+    public Map<String, List<PointOfInterest>> tag(List<PointOfInterest> pointsOfInterest) {
+        return tag(pointsOfInterest.parallelStream());
+    }
+
+    /**
+     * Tag a stream of POIs. Each leaf task of a parallel stream collects
+     * postings of its own, with its own scratch buffer, and the postings of
+     * sibling tasks are concatenated as they finish.
+     *
+     * @param pointsOfInterest
+     *            POIs to categorize, consumed by this method; processed in
+     *            parallel if the stream is parallel
+     * @return map from every category name of this matcher to the list, in
+     *         encounter order, of the POIs to which it applies, as defined by
+     *         {@link #findCategories(PointOfInterest)}
+     */
+    public Map<String, List<PointOfInterest>> tag(Stream<PointOfInterest> pointsOfInterest) {
+        final Postings postings = pointsOfInterest.collect(Postings::new, Postings::add, Postings::addAll);
+        final Map<String, List<PointOfInterest>> result = new HashMap<>();
+        for (int category = 0; category < categories.length; category++) {
+            result.put(categories[category], postings.lists.get(category));
+        }
+        return result;
+    }
+
+    /**
+     * Find the POIs in one category, without finding their other categories:
+     * the scan of each POI stops at the first match of the category.
+     *
+     * @param pointsOfInterest
+     *            POIs to search, not modified by this method
+     * @param category
+     *            a category name, ignoring case
+     * @return the POIs, in input order, to which a category of this matcher
+     *         whose name equals category ignoring case applies, as defined by
+     *         {@link #findCategories(PointOfInterest)}; empty if there is no
+     *         such category
+     */
+    public List<PointOfInterest> inCategory(List<PointOfInterest> pointsOfInterest, String category) {
+        final int[] indices = byFoldedName.get(fold(category));
+        if (indices == null) {
+            return new ArrayList<>();
+        }
+        final boolean[] wanted = new boolean[categories.length];
+        for (int index : indices) {
+            wanted[index] = true;
+        }
+        return pointsOfInterest.parallelStream()
+                .filter(point -> matches(point.name(), wanted) || matches(point.description(), wanted))
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * Run the automaton over text, adding the name of every category that
+     * matches to result.
+     */
+    private void scan(String text, Set<String> result) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            final int symbol = symbol(text.charAt(i));
+            if (symbol == OTHER) {
+                state = ROOT;
+                continue;
+            }
+            state = transitions[state][symbol];
+            for (int category : outputs[state]) {
+                result.add(categories[category]);
+            }
+        }
+    }
+
+    /*
+     * Run the automaton over text, marking every category that matches in
+     * postings.
+     */
+    private void scan(String text, Postings postings) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            final int symbol = symbol(text.charAt(i));
+            if (symbol == OTHER) {
+                state = ROOT;
+                continue;
+            }
+            state = transitions[state][symbol];
+            for (int category : outputs[state]) {
+                postings.mark(category);
+            }
+        }
+    }
+
+    /*
+     * Run the automaton over text until a category c with wanted[c] matches.
+     */
+    private boolean matches(String text, boolean[] wanted) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            final int symbol = symbol(text.charAt(i));
+            if (symbol == OTHER) {
+                state = ROOT;
+                continue;
+            }
+            state = transitions[state][symbol];
+            for (int output : outputs[state]) {
+                if (wanted[output]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static int[] newState() {
+        final int[] state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    /*
+     * Case-folded automaton symbol for c, or OTHER if c cannot appear in a
+     * category name or keyword.
+     */
+    private static int symbol(char c) {
+        final char lower = Character.toLowerCase(c);
+        if (lower >= 'a' && lower <= 'z') {
+            return lower - 'a';
+        } else if (lower >= '0' && lower <= '9') {
+            return 26 + lower - '0';
+        } else if (lower == '_') {
+            return 36;
+        } else if (lower == '-') {
+            return 37;
+        } else if (lower == ' ') {
+            return 38;
+        }
+        return OTHER;
+    }
+
+    /*
+     * Postings collected by one leaf task of tag(), with scratch space for
+     * marking the categories of one POI at a time. The stream makes one
+     * container per leaf task, and addAll() copies the lists of a finished
+     * sibling into this one.
+     */
+    private final class Postings {
+
+        private final List<List<PointOfInterest>> lists;
+        private final boolean[] found;
+        private final int[] matched;
+        private int matchCount;
+
+        /*
+         * Rep invariant: lists has one list per category; between calls,
+         * found is all false and matchCount is 0; while scanning a POI,
+         * matched[0 .. matchCount) are exactly the categories c with found[c].
+         */
+
+        Postings() {
+            this.lists = new ArrayList<>(categories.length);
+            for (int category = 0; category < categories.length; category++) {
+                lists.add(new ArrayList<>());
+            }
+            this.found = new boolean[categories.length];
+            this.matched = new int[categories.length];
+        }
+
+        void mark(int category) {
+            if (!found[category]) {
+                found[category] = true;
+                matched[matchCount++] = category;
+            }
+        }
+
+        /*
+         * Post a POI under its categories, clearing only the marks it set.
+         */
+        void add(PointOfInterest point) {
+            scan(point.name(), this);
+            scan(point.description(), this);
+            for (int i = 0; i < matchCount; i++) {
+                lists.get(matched[i]).add(point);
+                found[matched[i]] = false;
+            }
+            matchCount = 0;
+        }
+
+        void addAll(Postings other) {
+            for (int category = 0; category < categories.length; category++) {
+                lists.get(category).addAll(other.lists.get(category));
+            }
+        }
+    }
+}
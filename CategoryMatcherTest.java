@@ -0,0 +1,92 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class CategoryMatcherTest {
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests that POIs are tagged with every category whose name or keyword
+     * they contain, ignoring case.
+     */
+    @Test
+    public void tagTest() {
+        CategoryMatcher matcher = new CategoryMatcher(categoryKeywords());
+        PointOfInterest mit = point("MIT", "a school and institute");
+        PointOfInterest stata = point("Stata Center", "computer science");
+        PointOfInterest park = point("Park", "");
+
+        Map<String, List<PointOfInterest>> postings = matcher.tag(Arrays.asList(mit, stata, park));
+
+        assertEquals(Arrays.asList(mit), postings.get("Tech"));
+        assertEquals(Arrays.asList(mit), postings.get("School"));
+        assertEquals(Arrays.asList(stata), postings.get("Center"));
+        assertEquals(new HashSet<>(Arrays.asList("Tech", "School")), matcher.findCategories(mit));
+        assertEquals(Collections.emptySet(), matcher.findCategories(park));
+    }
+
+    /**
+     * Tests that category names are looked up ignoring case.
+     */
+    @Test
+    public void inCategoryIgnoresCaseTest() {
+        CategoryMatcher matcher = new CategoryMatcher(categoryKeywords());
+        PointOfInterest mit = point("MIT", "institute");
+        PointOfInterest harvard = point("Harvard", "school");
+        List<PointOfInterest> points = Arrays.asList(mit, harvard, point("Park", ""));
+
+        assertEquals(Arrays.asList(mit, harvard), matcher.inCategory(points, "school"));
+        assertEquals(Arrays.asList(mit, harvard), matcher.inCategory(points, "SCHOOL"));
+        assertEquals(Collections.emptyList(), matcher.inCategory(points, "Museum"));
+    }
+
+    /**
+     * Tests a lookup that matches several categories differing only in case.
+     */
+    @Test
+    public void inCategoryMergesCaseVariantsTest() {
+        Map<String, Set<String>> categoryKeywords = new HashMap<>();
+        categoryKeywords.put("Food", Collections.singleton("cafe"));
+        categoryKeywords.put("food", Collections.singleton("diner"));
+        CategoryMatcher matcher = new CategoryMatcher(categoryKeywords);
+        PointOfInterest diner = point("Diner", "");
+        PointOfInterest cafe = point("Cafe", "");
+        PointOfInterest both = point("Cafe", "and diner");
+
+        assertEquals(Arrays.asList(diner, cafe, both),
+                matcher.inCategory(Arrays.asList(diner, cafe, both), "FOOD"));
+    }
+
+    private static Map<String, Set<String>> categoryKeywords() {
+        Map<String, Set<String>> categoryKeywords = new HashMap<>();
+        categoryKeywords.put("Center", Collections.emptySet());
+        categoryKeywords.put("Tech", Collections.singleton("MIT"));
+        categoryKeywords.put("School", new HashSet<>(Arrays.asList("school", "institute", "student")));
+        return categoryKeywords;
+    }
+
+    private static PointOfInterest point(String name, String description) {
+        return new PointOfInterest(new Angle(42, 21, 30, CardinalDirection.NORTH),
+                new Angle(71, 5, 30, CardinalDirection.WEST), name, description);
+    }
+}
@@ -0,0 +1,247 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable full scan over the coordinates of points of interest (POIs), for
+ * ad-hoc bounding rectangle filters that no index serves.
+ *
+ * <p>
+ * Coordinates are kept in primitive arrays of signed arc seconds. The
+ * primary kernel is {@link #mask(int[], int[], int, int, int, int, int, long[])}:
+ * it tests every POI with the same straight-line arithmetic and no branches,
+ * and packs the results into 64-bit words, so each word depends only on its
+ * own 64 POIs. Positions are then read off the set bits of each word, at a
+ * cost that grows with the number of POIs found. A longitude is
+ * tested by its distance east of the western bound, reduced modulo 360
+ * degrees, which handles rectangles that span the antimeridian, and treats
+ * 180 deg E & W as the same longitude, in a single pass.
+ */
+public class CoordinateScan {
+
+    private static final int MAX_LONGITUDE = 180 * 3600;
+    private static final int FULL_ROTATION = 2 * MAX_LONGITUDE;
+
+    private final int[] latitudes;
+    private final int[] longitudes;
+    private final PointOfInterest[] points;
+
+    /*
+     * Rep invariant: latitudes, longitudes, points have the same length, and
+     * latitudes[i], longitudes[i] are the signed arc second coordinates of
+     * points[i].
+     */
+
+    /**
+     * Make a scan over some POIs.
+     *
+     * @param pointsOfInterest
+     *            POIs to scan, not modified by this method
+     */
+    public CoordinateScan(Collection<PointOfInterest> pointsOfInterest) {
+        this.points = pointsOfInterest.toArray(new PointOfInterest[pointsOfInterest.size()]);
+        this.latitudes = new int[points.length];
+        this.longitudes = new int[points.length];
+        for (int i = 0; i < points.length; i++) {
+            latitudes[i] = Angular.toArcSeconds(points[i].latitude());
+            longitudes[i] = Angular.toArcSeconds(points[i].longitude());
+        }
+    }
+
+    /**
+     * @return number of POIs scanned
+     */
+    public int size() {
+        return points.length;
+    }
+
+    /**
+     * @param index
+     *            position of a POI, 0 <= index < size()
+     * @return the POI at that position, in the iteration order of the
+     *         collection this scan was made from
+     */
+    public PointOfInterest get(int index) {
+        return points[index];
+    }
+
+    /**
+     * Find POIs in a latitude-longitude bounding rectangle.
+     *
+     * @param bounds
+     *            a latitude-longitude bounding rectangle as defined in the
+     *            documentation for {@link Bounds}, not modified by this method
+     * @return all and only the POIs that are contained in the given bounding
+     *         rectangle, where 180 deg E & W are the same longitude
+     */
+    public Set<PointOfInterest> inBoundingBox(List<Angle> bounds) {
+        final int[] found = indices(bounds);
+        final Set<PointOfInterest> result = new HashSet<>();
+        for (int index : found) {
+            result.add(points[index]);
+        }
+        return result;
+    }
+
+    /**
+     * Find the positions of POIs in a latitude-longitude bounding rectangle.
+     *
+     * @param bounds
+     *            a latitude-longitude bounding rectangle as defined in the
+     *            documentation for {@link Bounds}, not modified by this method
+     * @return in increasing order, the positions of all and only the POIs that
+     *         are contained in the given bounding rectangle
+     */
+    public int[] indices(List<Angle> bounds) {
+        final int[] found = new int[points.length];
+        final int count = indices(latitudes, longitudes, points.length, Angular.toArcSeconds(bounds.get(0)),
+                Angular.toArcSeconds(bounds.get(1)), Angular.toArcSeconds(bounds.get(2)),
+                Angular.toArcSeconds(bounds.get(3)), found);
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Find which POIs are in a latitude-longitude bounding rectangle.
+     *
+     * @param bounds
+     *            a latitude-longitude bounding rectangle as defined in the
+     *            documentation for {@link Bounds}, not modified by this method
+     * @return bitmask with ceil(size() / 64) words, where bit i % 64 of word
+     *         i / 64 is set iff the POI at position i is contained in the given
+     *         bounding rectangle
+     */
+    public long[] mask(List<Angle> bounds) {
+        final long[] mask = new long[(points.length + Long.SIZE - 1) / Long.SIZE];
+        mask(latitudes, longitudes, points.length, Angular.toArcSeconds(bounds.get(0)),
+                Angular.toArcSeconds(bounds.get(1)), Angular.toArcSeconds(bounds.get(2)),
+                Angular.toArcSeconds(bounds.get(3)), mask);
+        return mask;
+    }
+
+    /**
+     * Find the positions of coordinates in a latitude-longitude bounding
+     * rectangle.
+     *
+     * @param latitudes
+     *            valid latitudes in signed arc seconds, not modified by this
+     *            method
+     * @param longitudes
+     *            valid longitudes in signed arc seconds, not modified by this
+     *            method
+     * @param size
+     *            number of coordinates to scan, at most the length of
+     *            latitudes and longitudes
+     * @param north
+     *            northern bound in signed arc seconds
+     * @param east
+     *            eastern bound in signed arc seconds
+     * @param south
+     *            southern bound in signed arc seconds
+     * @param west
+     *            western bound in signed arc seconds
+     * @param found
+     *            array to fill with positions, in increasing order; must have
+     *            room for as many positions as are found
+     * @return number of positions i in [0, size) where (latitudes[i],
+     *         longitudes[i]) is contained in the bounding rectangle, which are
+     *         stored in found[0 .. count)
+     */
+    public static int indices(int[] latitudes, int[] longitudes, int size, int north, int east, int south, int west,
+            int[] found) {
+        final int height = north - south;
+        final int width = width(east, west);
+        int count = 0;
+        for (int base = 0; base < size; base += Long.SIZE) {
+            long bits = word(latitudes, longitudes, base, Math.min(size, base + Long.SIZE), south, height, west,
+                    width);
+            while (bits != 0) {
+                found[count++] = base + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Find which coordinates are in a latitude-longitude bounding rectangle.
+     *
+     * @param latitudes
+     *            valid latitudes in signed arc seconds, not modified by this
+     *            method
+     * @param longitudes
+     *            valid longitudes in signed arc seconds, not modified by this
+     *            method
+     * @param size
+     *            number of coordinates to scan, at most the length of
+     *            latitudes and longitudes
+     * @param north
+     *            northern bound in signed arc seconds
+     * @param east
+     *            eastern bound in signed arc seconds
+     * @param south
+     *            southern bound in signed arc seconds
+     * @param west
+     *            western bound in signed arc seconds
+     * @param mask
+     *            bitmask to fill, with at least ceil(size / 64) words; bit
+     *            i % 64 of word i / 64 is set iff (latitudes[i], longitudes[i])
+     *            is contained in the bounding rectangle, for i in [0, size),
+     *            and the rest of the words covering [0, size) are cleared
+     */
+    public static void mask(int[] latitudes, int[] longitudes, int size, int north, int east, int south, int west,
+            long[] mask) {
+        final int height = north - south;
+        final int width = width(east, west);
+        for (int word = 0; word * Long.SIZE < size; word++) {
+            final int base = word * Long.SIZE;
+            mask[word] = word(latitudes, longitudes, base, Math.min(size, base + Long.SIZE), south, height, west,
+                    width);
+        }
+    }
+
+    /*
+     * Bitmask of the coordinates in [base, end), at most 64 of them, that are
+     * in a rectangle height arc seconds tall and width arc seconds wide, with
+     * its southwest corner at (south, west). Bit i - base is set iff
+     * coordinate i is inside.
+     */
+    private static long word(int[] latitudes, int[] longitudes, int base, int end, int south, int height, int west,
+            int width) {
+        long bits = 0;
+        for (int i = base; i < end; i++) {
+            bits |= (long) contains(latitudes[i] - south, height, longitudes[i] - west, width) << (i - base);
+        }
+        return bits;
+    }
+
+    /*
+     * Arc seconds swept going east from west to east: up to a full rotation,
+     * which a rectangle from 180 deg W to 180 deg E covers.
+     */
+    private static int width(int east, int west) {
+        final int width = east - west;
+        return width + ((width >> 31) & FULL_ROTATION);
+    }
+
+    /*
+     * 1 if a point is inside, or 0 if it is outside, a rectangle height arc
+     * seconds tall and width arc seconds wide, where the point is dy north and
+     * dx east of its southwest corner. Branch-free.
+     */
+    private static int contains(int dy, int height, int dx, int width) {
+        // reduce dx into [0, FULL_ROTATION): add a rotation if negative, and
+        // subtract one if a full rotation or more
+        dx += (dx >> 31) & FULL_ROTATION;
+        dx -= ((FULL_ROTATION - 1 - dx) >> 31) & FULL_ROTATION;
+        // dy and height - dy are both nonnegative iff the latitude is inside,
+        // and likewise for dx and width - dx
+        return ((dy | (height - dy) | (width - dx)) >>> 31) ^ 1;
+    }
+}
@@ -0,0 +1,175 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class CoordinateScanTest {
+
+    private static final PointOfInterest STATA = new PointOfInterest(new Angle(42, 21, 42, CardinalDirection.NORTH),
+            new Angle(71, 5, 26, CardinalDirection.WEST), "Stata", "Stata Center");
+    private static final PointOfInterest KRESGE = new PointOfInterest(new Angle(42, 21, 29, CardinalDirection.NORTH),
+            new Angle(71, 5, 42, CardinalDirection.WEST), "Kresge", "auditorium");
+    private static final PointOfInterest FIJI = new PointOfInterest(new Angle(17, 42, 48, CardinalDirection.SOUTH),
+            new Angle(178, 3, 0, CardinalDirection.EAST), "Fiji", "");
+    private static final PointOfInterest SAMOA = new PointOfInterest(new Angle(13, 45, 34, CardinalDirection.SOUTH),
+            new Angle(172, 6, 15, CardinalDirection.WEST), "Samoa", "");
+    private static final PointOfInterest DATELINE_EAST = new PointOfInterest(
+            new Angle(10, 0, 0, CardinalDirection.SOUTH), new Angle(180, 0, 0, CardinalDirection.EAST), "Dateline",
+            "east");
+    private static final PointOfInterest DATELINE_WEST = new PointOfInterest(
+            new Angle(10, 0, 0, CardinalDirection.SOUTH), new Angle(180, 0, 0, CardinalDirection.WEST), "Dateline",
+            "west");
+    private static final List<PointOfInterest> POINTS = Arrays.asList(STATA, KRESGE, FIJI, SAMOA, DATELINE_EAST,
+            DATELINE_WEST);
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests a rectangle that spans the antimeridian.
+     */
+    @Test
+    public void antimeridianTest() {
+        CoordinateScan scan = new CoordinateScan(POINTS);
+        List<Angle> pacific = bounds(new Angle(0, 0, 0, CardinalDirection.NORTH),
+                new Angle(170, 0, 0, CardinalDirection.WEST), new Angle(20, 0, 0, CardinalDirection.SOUTH),
+                new Angle(175, 0, 0, CardinalDirection.EAST));
+        assertEquals(new HashSet<>(Arrays.asList(FIJI, SAMOA, DATELINE_EAST, DATELINE_WEST)),
+                scan.inBoundingBox(pacific));
+        assertEquals(new HashSet<>(Arrays.asList(STATA, KRESGE)), scan.inBoundingBox(Main.CAMBRIDGE_AREA));
+    }
+
+    /**
+     * Tests that 180 deg E and 180 deg W are the same longitude, whichever of
+     * them bounds the rectangle.
+     */
+    @Test
+    public void antimeridianBoundTest() {
+        CoordinateScan scan = new CoordinateScan(POINTS);
+        Set<PointOfInterest> dateline = new HashSet<>(Arrays.asList(DATELINE_EAST, DATELINE_WEST));
+        assertEquals(dateline, scan.inBoundingBox(bounds(new Angle(0, 0, 0, CardinalDirection.NORTH),
+                new Angle(180, 0, 0, CardinalDirection.EAST), new Angle(20, 0, 0, CardinalDirection.SOUTH),
+                new Angle(179, 0, 0, CardinalDirection.EAST))));
+        assertEquals(dateline, scan.inBoundingBox(bounds(new Angle(0, 0, 0, CardinalDirection.NORTH),
+                new Angle(179, 0, 0, CardinalDirection.WEST), new Angle(20, 0, 0, CardinalDirection.SOUTH),
+                new Angle(180, 0, 0, CardinalDirection.WEST))));
+    }
+
+    /**
+     * Tests a rectangle with equal western and eastern bounds, which contains
+     * only that longitude.
+     */
+    @Test
+    public void zeroWidthTest() {
+        CoordinateScan scan = new CoordinateScan(POINTS);
+        Angle stataLongitude = new Angle(71, 5, 26, CardinalDirection.WEST);
+        assertEquals(Collections.singleton(STATA), scan.inBoundingBox(bounds(new Angle(90, 0, 0,
+                CardinalDirection.NORTH), stataLongitude, new Angle(90, 0, 0, CardinalDirection.SOUTH),
+                stataLongitude)));
+    }
+
+    /**
+     * Tests a rectangle spanning every longitude, from 180 deg W to 180 deg E.
+     */
+    @Test
+    public void fullRotationTest() {
+        CoordinateScan scan = new CoordinateScan(POINTS);
+        assertEquals(new HashSet<>(POINTS), scan.inBoundingBox(bounds(new Angle(90, 0, 0, CardinalDirection.NORTH),
+                new Angle(180, 0, 0, CardinalDirection.EAST), new Angle(90, 0, 0, CardinalDirection.SOUTH),
+                new Angle(180, 0, 0, CardinalDirection.WEST))));
+    }
+
+    /**
+     * Tests a rectangle whose southern bound is north of its northern bound,
+     * which contains nothing.
+     */
+    @Test
+    public void southOfNorthTest() {
+        CoordinateScan scan = new CoordinateScan(POINTS);
+        List<Angle> inverted = bounds(new Angle(10, 0, 0, CardinalDirection.SOUTH),
+                new Angle(180, 0, 0, CardinalDirection.EAST), new Angle(50, 0, 0, CardinalDirection.NORTH),
+                new Angle(180, 0, 0, CardinalDirection.WEST));
+        assertEquals(Collections.emptySet(), scan.inBoundingBox(inverted));
+        assertArrayEquals(new int[0], scan.indices(inverted));
+        assertArrayEquals(new long[1], scan.mask(inverted));
+    }
+
+    /**
+     * Tests indices() and mask() against each other and against Bounds, on
+     * random POIs and rectangles, with a size that is not a multiple of 64.
+     */
+    @Test
+    public void randomTest() {
+        Random random = new Random(6005);
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            points.add(new PointOfInterest(randomLatitude(random), randomLongitude(random), "POI " + i, ""));
+        }
+        CoordinateScan scan = new CoordinateScan(points);
+        for (int trial = 0; trial < 200; trial++) {
+            Angle a = randomLatitude(random);
+            Angle b = randomLatitude(random);
+            boolean ordered = Angular.toArcSeconds(a) >= Angular.toArcSeconds(b);
+            List<Angle> bounds = bounds(ordered ? a : b, randomLongitude(random), ordered ? b : a,
+                    randomLongitude(random));
+
+            int[] indices = scan.indices(bounds);
+            long[] mask = scan.mask(bounds);
+            assertEquals(16, mask.length);
+            int next = 0;
+            for (int i = 0; i < scan.size(); i++) {
+                if ((mask[i / Long.SIZE] & (1L << i)) != 0) {
+                    assertEquals(i, indices[next++]);
+                }
+            }
+            assertEquals(indices.length, next);
+            assertEquals(Bounds.inBoundingBox(new HashSet<>(points), bounds), scan.inBoundingBox(bounds));
+        }
+    }
+
+    /**
+     * Tests the static kernels on a prefix of longer arrays.
+     */
+    @Test
+    public void prefixTest() {
+        int[] latitudes = { 0, 0, 0, 0 };
+        int[] longitudes = { 0, 10, 20, 0 };
+        int[] found = { -1, -1, -1, -1 };
+        assertEquals(2, CoordinateScan.indices(latitudes, longitudes, 3, 5, 15, -5, 0, found));
+        assertArrayEquals(new int[] { 0, 1, -1, -1 }, found);
+        long[] mask = { -1L };
+        CoordinateScan.mask(latitudes, longitudes, 3, 5, 15, -5, 0, mask);
+        assertArrayEquals(new long[] { 3L }, mask);
+    }
+
+    private static List<Angle> bounds(Angle north, Angle east, Angle south, Angle west) {
+        return Arrays.asList(north, east, south, west);
+    }
+
+    private static Angle randomLatitude(Random random) {
+        return new Angle(random.nextInt(90), random.nextInt(60), random.nextInt(60),
+                random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH);
+    }
+
+    private static Angle randomLongitude(Random random) {
+        return new Angle(random.nextInt(180), random.nextInt(60), random.nextInt(60),
+                random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST);
+    }
+}
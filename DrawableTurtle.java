@@ -3,7 +3,9 @@
  */
 package turtle;
 
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.swing.SwingUtilities;
@@ -18,9 +20,6 @@ public class DrawableTurtle implements Turtle {
     private static final int CANVAS_WIDTH = 512;
     private static final int CANVAS_HEIGHT = 512;
 
-    private static final int CIRCLE_DEGREES = 360;
-    private static final int DEGREES_TO_VERTICAL = 90;
-
     private final List<Action> actionList;
     private final List<LineSegment> lines;
 
@@ -40,8 +39,8 @@ public class DrawableTurtle implements Turtle {
     }
 
     public void forward(int steps) {
-        double newX = currentPosition.x() + Math.cos(Math.toRadians(DEGREES_TO_VERTICAL - currentHeading)) * (double)steps;
-        double newY = currentPosition.y() + Math.sin(Math.toRadians(DEGREES_TO_VERTICAL - currentHeading)) * (double)steps;
+        double newX = currentPosition.x() + TurtleMotion.deltaX(currentHeading, steps);
+        double newY = currentPosition.y() + TurtleMotion.deltaY(currentHeading, steps);
 
         LineSegment lineSeg = new LineSegment(currentPosition.x(), currentPosition.y(), newX, newY, currentColor);
         this.lines.add(lineSeg);
@@ -51,8 +50,8 @@ public class DrawableTurtle implements Turtle {
     }
 
     public void turn(double degrees) {
-        degrees = (degrees % CIRCLE_DEGREES + CIRCLE_DEGREES) % CIRCLE_DEGREES;
-        this.currentHeading = (this.currentHeading + degrees) % CIRCLE_DEGREES;
+        degrees = TurtleMotion.clockwise(degrees);
+        this.currentHeading = TurtleMotion.turn(this.currentHeading, degrees);
         this.actionList.add(new Action(ActionType.TURN, "turn " + degrees + " degrees", null));
     }
 
@@ -70,4 +69,22 @@ public class DrawableTurtle implements Turtle {
         });
         return;
     }
+
+    /**
+     * @return unmodifiable view of the actions taken by this turtle so far, in
+     *         order
+     */
+    public List<Action> actions() {
+        return Collections.unmodifiableList(actionList);
+    }
+
+    /**
+     * Render the image created by this turtle, without a window or animation.
+     * Works in headless environments.
+     *
+     * @return new image of the drawing, as it appears at the end of draw()
+     */
+    public BufferedImage render() {
+        return new TurtleRenderer(CANVAS_WIDTH, CANVAS_HEIGHT).render(actionList);
+    }
 }
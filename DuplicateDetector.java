@@ -0,0 +1,243 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable strategy for guessing which points of interest (POIs) are
+ * duplicates, as an alternative to {@link Mapping#EXACT_DUPLICATES} that
+ * also matches POIs that are a few arc seconds apart and have slightly
+ * different names.
+ *
+ * <p>
+ * Two POIs are similar if their latitudes and their longitudes each differ by
+ * at most a maximum distance, and the trigram Jaccard similarity of their
+ * case-folded names is at least a minimum similarity. Duplicate groups are the
+ * transitive closure of similarity. To avoid comparing all pairs, POIs are
+ * blocked into grid cells at least as wide as the maximum distance, and each
+ * POI is only compared with POIs in its own and neighbouring cells.
+ */
+public class DuplicateDetector implements DuplicateStrategy {
+
+    private static final int FULL_ROTATION = 360 * 3600;
+    private static final int MAX_LONGITUDE = 180 * 3600;
+    private static final int MAX_LATITUDE = 90 * 3600;
+
+    private final int maxArcSeconds;
+    private final double minNameSimilarity;
+
+    /*
+     * Rep invariant: maxArcSeconds >= 0, 0 <= minNameSimilarity <= 1
+     */
+
+    /**
+     * Make a new duplicate detector.
+     *
+     * @param maxArcSeconds
+     *            largest difference in latitude and in longitude, in arc
+     *            seconds, between two similar POIs; must be nonnegative
+     * @param minNameSimilarity
+     *            smallest trigram Jaccard similarity between the names of two
+     *            similar POIs; must be between 0 and 1 inclusive
+     */
+    public DuplicateDetector(int maxArcSeconds, double minNameSimilarity) {
+        assert maxArcSeconds >= 0 : "negative distance: " + maxArcSeconds;
+        assert minNameSimilarity >= 0 && minNameSimilarity <= 1 : "invalid similarity: " + minNameSimilarity;
+        this.maxArcSeconds = maxArcSeconds;
+        this.minNameSimilarity = minNameSimilarity;
+    }
+
+    /**
+     * Guess which POIs are duplicates that represent the same physical place,
+     * with the same contract as {@link Mapping#reduceDuplicates(List)}. The
+     * best entry of each group is the one with the longest description.
+     *
+     * @param pointsOfInterest
+     *            a list of POIs, not modified by this method
+     * @return a map in which all and only the POIs in pointsOfInterest appear
+     *         exactly once as either a key or in a value list, and the value
+     *         for each key is the list of POIs that are identified as its
+     *         duplicates
+     */
+    @Override
+    public Map<PointOfInterest, List<PointOfInterest>> reduceDuplicates(List<PointOfInterest> pointsOfInterest) {
+        final int size = pointsOfInterest.size();
+        final int cellSize = cellSize(maxArcSeconds);
+        final int longitudeCells = FULL_ROTATION / cellSize;
+        final int[] latitudes = new int[size];
+        final int[] longitudes = new int[size];
+        final long[][] trigrams = new long[size][];
+
+        // block the POIs by grid cell
+        final Map<Long, List<Integer>> cells = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            final PointOfInterest point = pointsOfInterest.get(i);
+            latitudes[i] = Angular.toArcSeconds(point.latitude());
+            longitudes[i] = Angular.toArcSeconds(point.longitude());
+            trigrams[i] = trigrams(point.name());
+            cells.computeIfAbsent(cellKey(latitudeCell(latitudes[i], cellSize),
+                    longitudeCell(longitudes[i], cellSize)), key -> new ArrayList<>()).add(i);
+        }
+
+        // union similar POIs in the same or neighbouring cells
+        final int[] parent = new int[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < size; i++) {
+            final int latitudeCell = latitudeCell(latitudes[i], cellSize);
+            final int longitudeCell = longitudeCell(longitudes[i], cellSize);
+            for (int dLatitude = -1; dLatitude <= 1; dLatitude++) {
+                // with fewer than three cells around, the neighbours repeat
+                for (int dLongitude = -1; dLongitude <= Math.min(1, longitudeCells - 2); dLongitude++) {
+                    final int neighbour = Math.floorMod(longitudeCell + dLongitude, longitudeCells);
+                    final List<Integer> candidates = cells.get(cellKey(latitudeCell + dLatitude, neighbour));
+                    if (candidates == null) {
+                        continue;
+                    }
+                    for (int j : candidates) {
+                        // each pair is compared once, from its lower index
+                        if (j > i && find(parent, i) != find(parent, j)
+                                && near(latitudes[i], latitudes[j], false)
+                                && near(longitudes[i], longitudes[j], true)
+                                && similarity(trigrams[i], trigrams[j], minNameSimilarity) >= minNameSimilarity) {
+                            parent[find(parent, j)] = find(parent, i);
+                        }
+                    }
+                }
+            }
+        }
+
+        // collect the groups in input order, and pick the best of each
+        final Map<Integer, List<PointOfInterest>> groups = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            groups.computeIfAbsent(find(parent, i), root -> new ArrayList<>()).add(pointsOfInterest.get(i));
+        }
+        final Map<PointOfInterest, List<PointOfInterest>> nonDuplicates = new HashMap<>();
+        for (List<PointOfInterest> group : groups.values()) {
+            int best = 0;
+            for (int i = 0; i < group.size(); i++) {
+                if (group.get(i).description().length() >= group.get(best).description().length()) {
+                    best = i;
+                }
+            }
+            final PointOfInterest pointLongestDesc = group.remove(best);
+            nonDuplicates.put(pointLongestDesc, group);
+        }
+        return nonDuplicates;
+    }
+
+    /**
+     * Compute the similarity of two names.
+     *
+     * @param name1
+     *            a name
+     * @param name2
+     *            another name
+     * @return Jaccard similarity, between 0 and 1 inclusive, of the sets of
+     *         three-character substrings of the case-folded names padded with
+     *         spaces; 1 if the names are equal ignoring case
+     */
+    public static double nameSimilarity(String name1, String name2) {
+        return similarity(trigrams(name1), trigrams(name2), 0.0);
+    }
+
+    private boolean near(int coordinate1, int coordinate2, boolean wraps) {
+        int difference = Math.abs(coordinate1 - coordinate2);
+        if (wraps) {
+            difference = Math.min(difference, FULL_ROTATION - difference);
+        }
+        return difference <= maxArcSeconds;
+    }
+
+    /*
+     * Smallest cell size, at least maxArcSeconds and positive, that divides a
+     * full rotation, so that all longitude cells are equally wide and the
+     * cells on either side of the antimeridian are neighbours of each other.
+     */
+    private static int cellSize(int maxArcSeconds) {
+        int cellSize = Math.max(1, maxArcSeconds);
+        while (cellSize < FULL_ROTATION && FULL_ROTATION % cellSize != 0) {
+            cellSize++;
+        }
+        return Math.min(cellSize, FULL_ROTATION);
+    }
+
+    private static int latitudeCell(int latitude, int cellSize) {
+        return (latitude + MAX_LATITUDE) / cellSize;
+    }
+
+    /*
+     * 180 W and 180 E fall in the same cell, and cells wrap around the
+     * antimeridian.
+     */
+    private static int longitudeCell(int longitude, int cellSize) {
+        return ((longitude + MAX_LONGITUDE) % FULL_ROTATION) / cellSize;
+    }
+
+    private static long cellKey(int latitudeCell, int longitudeCell) {
+        return ((long) latitudeCell << Integer.SIZE) | (longitudeCell & 0xFFFFFFFFL);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /*
+     * Sorted distinct trigrams of the case-folded name padded with two leading
+     * spaces and one trailing space, each packed into a long.
+     */
+    private static long[] trigrams(String name) {
+        final String padded = "  " + name.toLowerCase() + " ";
+        final long[] result = new long[padded.length() - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((long) padded.charAt(i) << (2 * Character.SIZE))
+                    | ((long) padded.charAt(i + 1) << Character.SIZE) | padded.charAt(i + 2);
+        }
+        Arrays.sort(result);
+        int distinct = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (distinct == 0 || result[distinct - 1] != result[i]) {
+                result[distinct++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+
+    /*
+     * Jaccard similarity of two sorted trigram sets. Returns 0 early when the
+     * sizes alone rule out reaching cutoff.
+     */
+    private static double similarity(long[] trigrams1, long[] trigrams2, double cutoff) {
+        final int smaller = Math.min(trigrams1.length, trigrams2.length);
+        final int larger = Math.max(trigrams1.length, trigrams2.length);
+        if (smaller < cutoff * larger) {
+            return 0.0;
+        }
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < trigrams1.length && j < trigrams2.length) {
+            if (trigrams1[i] == trigrams2[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (trigrams1[i] < trigrams2[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) shared / (trigrams1.length + trigrams2.length - shared);
+    }
+}
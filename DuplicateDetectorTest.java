@@ -0,0 +1,116 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DuplicateDetectorTest {
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests that nearby POIs with similar names are grouped, keeping the one
+     * with the longest description.
+     */
+    @Test
+    public void reduceDuplicatesSimilarTest() {
+        PointOfInterest cafe = point(42, 0, 0, 71, 0, 0, CardinalDirection.WEST, "Blue Cafe", "");
+        PointOfInterest cafeAgain = point(42, 0, 3, 71, 0, 2, CardinalDirection.WEST, "Blue Cafe.", "espresso");
+        PointOfInterest bank = point(42, 0, 1, 71, 0, 1, CardinalDirection.WEST, "First Bank", "");
+        PointOfInterest farCafe = point(42, 0, 30, 71, 0, 0, CardinalDirection.WEST, "Blue Cafe", "");
+
+        Map<PointOfInterest, List<PointOfInterest>> groups = new DuplicateDetector(5, 0.5)
+                .reduceDuplicates(Arrays.asList(cafe, cafeAgain, bank, farCafe));
+
+        assertEquals(3, groups.size());
+        assertEquals(Collections.singletonList(cafe), groups.get(cafeAgain));
+        assertEquals(Collections.emptyList(), groups.get(bank));
+        assertEquals(Collections.emptyList(), groups.get(farCafe));
+    }
+
+    /**
+     * Tests a pair that straddles the antimeridian, with a distance that does
+     * not divide a full rotation.
+     */
+    @Test
+    public void reduceDuplicatesAntimeridianTest() {
+        // 180 W, and 7 arc seconds west of it across 180 deg
+        PointOfInterest west = point(0, 0, 0, 180, 0, 0, CardinalDirection.WEST, "Dateline", "");
+        PointOfInterest east = point(0, 0, 0, 179, 59, 53, CardinalDirection.EAST, "Dateline", "marker");
+
+        Map<PointOfInterest, List<PointOfInterest>> groups = new DuplicateDetector(7, 1.0)
+                .reduceDuplicates(Arrays.asList(west, east));
+
+        assertEquals(1, groups.size());
+        assertEquals(Collections.singletonList(west), groups.get(east));
+    }
+
+    /**
+     * Tests that POIs just too far apart across the antimeridian are not
+     * grouped.
+     */
+    @Test
+    public void reduceDuplicatesAntimeridianTooFarTest() {
+        PointOfInterest west = point(0, 0, 0, 179, 59, 59, CardinalDirection.WEST, "Dateline", "");
+        PointOfInterest east = point(0, 0, 0, 179, 59, 53, CardinalDirection.EAST, "Dateline", "marker");
+
+        Map<PointOfInterest, List<PointOfInterest>> groups = new DuplicateDetector(7, 1.0)
+                .reduceDuplicates(Arrays.asList(west, east));
+
+        assertEquals(2, groups.size());
+    }
+
+    /**
+     * Tests name similarity.
+     */
+    @Test
+    public void nameSimilarityTest() {
+        assertEquals(1.0, DuplicateDetector.nameSimilarity("Stata", "STATA"), 0.0);
+        assertEquals(0.0, DuplicateDetector.nameSimilarity("abc", "xyz"), 0.0);
+        double similarity = DuplicateDetector.nameSimilarity("Stata Center", "Stata Centre");
+        assertTrue(similarity > 0.5 && similarity < 1.0);
+    }
+
+    /**
+     * Tests that, as duplicate strategies, a detector that only matches equal
+     * locations and names groups like the exact strategy.
+     */
+    @Test
+    public void strategyTest() {
+        Random random = new Random(6005);
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            points.add(point(42, 0, random.nextInt(3), 71, 0, random.nextInt(3), CardinalDirection.WEST,
+                    "POI " + random.nextInt(5), random.nextInt(3) == 0 ? "#" + i : "description " + i));
+        }
+        DuplicateStrategy exact = Mapping.EXACT_DUPLICATES;
+        DuplicateStrategy detector = new DuplicateDetector(0, 1.0);
+
+        assertEquals(Mapping.reduceDuplicates(points), exact.reduceDuplicates(points));
+        assertEquals(exact.reduceDuplicates(points), detector.reduceDuplicates(points));
+    }
+
+    private static PointOfInterest point(int latitudeDegrees, int latitudeMinutes, int latitudeSeconds,
+            int longitudeDegrees, int longitudeMinutes, int longitudeSeconds, CardinalDirection longitudeDirection,
+            String name, String description) {
+        return new PointOfInterest(new Angle(latitudeDegrees, latitudeMinutes, latitudeSeconds, CardinalDirection.NORTH),
+                new Angle(longitudeDegrees, longitudeMinutes, longitudeSeconds, longitudeDirection), name,
+                description);
+    }
+}
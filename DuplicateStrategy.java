@@ -0,0 +1,32 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A way of guessing which points of interest (POIs) are duplicates that
+ * represent the same physical place.
+ *
+ * <p>
+ * {@link Mapping#EXACT_DUPLICATES} groups POIs with exactly the same latitude,
+ * longitude, and name; {@link DuplicateDetector} also groups nearby POIs with
+ * similar names.
+ */
+public interface DuplicateStrategy {
+
+    /**
+     * Guess which POIs are duplicates, with the contract of
+     * {@link Mapping#reduceDuplicates(List)}.
+     *
+     * @param pointsOfInterest
+     *            a list of POIs, not modified by this method
+     * @return a map in which all and only the POIs in pointsOfInterest appear
+     *         exactly once as either a key or in a value list, and the value
+     *         for each key is the list of POIs that are identified as its
+     *         duplicates
+     */
+    public Map<PointOfInterest, List<PointOfInterest>> reduceDuplicates(List<PointOfInterest> pointsOfInterest);
+}
@@ -0,0 +1,397 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Optional instrumentation of the hot operations of the geo package: call
+ * counts, latency histograms, input sizes, and bytes allocated.
+ *
+ * <p>
+ * Metrics are off unless the system property {@code geo.metrics} is
+ * {@code true} or {@link #setEnabled} turns them on; while off, an
+ * instrumented method costs one volatile read. Allocation is measured with
+ * the per-thread allocation counter of the JVM, which costs more, so it is
+ * off unless {@code geo.metrics.allocation} is {@code true} or
+ * {@link #setAllocationTracking} turns it on.
+ *
+ * <p>
+ * Metrics can be read from the {@link Operation} constants, printed with
+ * {@link #dump()}, or exported through JMX with {@link #registerMBeans()}.
+ * All recording is lock-free.
+ */
+public class GeoMetrics {
+
+    /** Domain and type of the JMX names of operations. */
+    private static final String JMX_PREFIX = "geo:type=GeoMetrics,name=";
+
+    private static volatile boolean enabled = Boolean.getBoolean("geo.metrics");
+    private static volatile boolean allocationTracking = Boolean.getBoolean("geo.metrics.allocation");
+
+    /** {@link Bounds#boundingBox(java.util.Set)} */
+    public static final Operation BOUNDING_BOX = new Operation("boundingBox");
+    /** {@link Bounds#inBoundingBox(java.util.Set, List)} */
+    public static final Operation IN_BOUNDING_BOX = new Operation("inBoundingBox");
+    /** {@link Mapping#findCategories(PointOfInterest, java.util.Map)} */
+    public static final Operation FIND_CATEGORIES = new Operation("findCategories");
+    /** {@link Mapping#reduceDuplicates(List)} */
+    public static final Operation REDUCE_DUPLICATES = new Operation("reduceDuplicates");
+    /** {@link Main#parsePOI}, with input size in characters. */
+    public static final Operation PARSE_POI = new Operation("parsePOI");
+    /** {@link PointOfInterestLoader} reading a file, with input size in bytes. */
+    public static final Operation READ_POIS = new Operation("readPOIs");
+
+    private static final List<Operation> OPERATIONS = Collections.unmodifiableList(Arrays.asList(BOUNDING_BOX,
+            IN_BOUNDING_BOX, FIND_CATEGORIES, REDUCE_DUPLICATES, PARSE_POI, READ_POIS));
+
+    /**
+     * @return true iff metrics are being recorded
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param on
+     *            whether to record metrics from now on
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * @param on
+     *            whether to measure bytes allocated by instrumented calls from
+     *            now on, when metrics are enabled
+     */
+    public static void setAllocationTracking(boolean on) {
+        allocationTracking = on;
+    }
+
+    /**
+     * @return every instrumented operation
+     */
+    public static List<Operation> operations() {
+        return OPERATIONS;
+    }
+
+    /**
+     * Clear the metrics of every operation.
+     */
+    public static void reset() {
+        for (Operation operation : OPERATIONS) {
+            operation.reset();
+        }
+    }
+
+    /**
+     * @return the metrics of every operation as a plain-text table, with one
+     *         line per operation and latencies in microseconds
+     */
+    public static String dump() {
+        final StringBuilder table = new StringBuilder(String.format(Locale.ROOT,
+                "%-18s %10s %10s %10s %10s %10s %12s %14s%n", "operation", "calls", "mean us", "p50 us", "p99 us",
+                "max us", "mean input", "bytes/call"));
+        for (Operation operation : OPERATIONS) {
+            final long calls = operation.getCalls();
+            table.append(String.format(Locale.ROOT, "%-18s %10d %10.1f %10.1f %10.1f %10.1f %12.1f %14d%n",
+                    operation.name, calls, operation.getMeanNanos() / 1e3, operation.getP50Nanos() / 1e3,
+                    operation.getP99Nanos() / 1e3, operation.getMaxNanos() / 1e3,
+                    calls == 0 ? 0.0 : (double) operation.getTotalInputSize() / calls,
+                    calls == 0 ? 0 : operation.getAllocatedBytes() / calls));
+        }
+        return table.toString();
+    }
+
+    /**
+     * Register an MXBean for every operation with the platform MBean server,
+     * named {@code geo:type=GeoMetrics,name=<operation>}.
+     *
+     * @throws JMException
+     *             if the MXBeans cannot be registered, for example because
+     *             they already are
+     */
+    public static void registerMBeans() throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Operation operation : OPERATIONS) {
+            server.registerMBean(operation, new ObjectName(JMX_PREFIX + operation.name));
+        }
+    }
+
+    /*
+     * Bytes allocated so far by the current thread, or 0 if the JVM cannot
+     * tell.
+     */
+    private static long allocatedBytes() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * JMX view of the metrics of one operation. Latencies are in nanoseconds.
+     */
+    public interface OperationMXBean {
+
+        /** @return number of calls recorded */
+        long getCalls();
+
+        /** @return sum of the input sizes of the calls recorded */
+        long getTotalInputSize();
+
+        /** @return bytes allocated on the calling threads of the calls recorded, if tracked */
+        long getAllocatedBytes();
+
+        /** @return mean latency */
+        double getMeanNanos();
+
+        /** @return median latency, within the histogram's precision */
+        long getP50Nanos();
+
+        /** @return 99th percentile latency, within the histogram's precision */
+        long getP99Nanos();
+
+        /** @return 99.9th percentile latency, within the histogram's precision */
+        long getP999Nanos();
+
+        /** @return greatest latency, within the histogram's precision */
+        long getMaxNanos();
+
+        /** Clear the metrics of this operation. */
+        void reset();
+    }
+
+    /**
+     * Metrics of one instrumented operation.
+     *
+     * <p>
+     * Latencies are counted in a histogram of log-linear buckets: exact below
+     * 32 ns, and above that 16 buckets per power of two, so any percentile is
+     * within about 6% of the true value, over the full range of a long.
+     */
+    public static final class Operation implements OperationMXBean {
+
+        /** Bits of each latency kept beyond its leading one bit. */
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder totalInputSize = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        /*
+         * Rep invariant: histogram[b] counts the recorded latencies v with
+         * bucket(v) == b, and the sum of histogram is calls, except while a
+         * recording is in progress.
+         */
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return name of this operation
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Start timing a call of this operation, if metrics are enabled.
+         * Callers make the call directly when this returns null, and
+         * otherwise make it in a try block that stops the sample in its
+         * finally block, so that disabled metrics allocate nothing.
+         *
+         * @param inputSize
+         *            size of the call's input, in units of the operation
+         * @return sample to stop when the call returns, or null if metrics are
+         *         disabled
+         */
+        public Sample start(long inputSize) {
+            if (!enabled) {
+                return null;
+            }
+            return new Sample(this, inputSize, allocationTracking ? allocatedBytes() : -1);
+        }
+
+        /**
+         * Record a call of this operation.
+         *
+         * @param nanos
+         *            latency of the call, nonnegative
+         * @param inputSize
+         *            size of the call's input
+         * @param allocatedBytes
+         *            bytes the call allocated, or 0 if unknown
+         */
+        public void record(long nanos, long inputSize, long allocatedBytes) {
+            calls.increment();
+            totalNanos.add(nanos);
+            totalInputSize.add(inputSize);
+            allocated.add(allocatedBytes);
+            histogram.incrementAndGet(bucket(Math.max(0, nanos)));
+        }
+
+        @Override
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        @Override
+        public long getTotalInputSize() {
+            return totalInputSize.sum();
+        }
+
+        @Override
+        public long getAllocatedBytes() {
+            return allocated.sum();
+        }
+
+        @Override
+        public double getMeanNanos() {
+            final long count = calls.sum();
+            return count == 0 ? 0 : (double) totalNanos.sum() / count;
+        }
+
+        @Override
+        public long getP50Nanos() {
+            return percentile(0.5);
+        }
+
+        @Override
+        public long getP99Nanos() {
+            return percentile(0.99);
+        }
+
+        @Override
+        public long getP999Nanos() {
+            return percentile(0.999);
+        }
+
+        @Override
+        public long getMaxNanos() {
+            for (int b = BUCKETS - 1; b >= 0; b--) {
+                if (histogram.get(b) > 0) {
+                    return highestInBucket(b);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * @param fraction
+         *            between 0 and 1
+         * @return the least latency, within the histogram's precision, that is
+         *         at least as great as that fraction of the latencies recorded,
+         *         or 0 if none have been recorded
+         */
+        public long percentile(double fraction) {
+            final long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b] = histogram.get(b);
+                total += counts[b];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += counts[b];
+                if (seen >= rank) {
+                    return highestInBucket(b);
+                }
+            }
+            return highestInBucket(BUCKETS - 1);
+        }
+
+        @Override
+        public void reset() {
+            calls.reset();
+            totalNanos.reset();
+            totalInputSize.reset();
+            allocated.reset();
+            for (int b = 0; b < BUCKETS; b++) {
+                histogram.set(b, 0);
+            }
+        }
+
+        /*
+         * Histogram bucket of a nonnegative latency: the latency itself below
+         * 2 * SUB_BUCKETS, otherwise its exponent and the SUB_BUCKET_BITS bits
+         * after its leading one bit.
+         */
+        static int bucket(long nanos) {
+            if (nanos < 2 * SUB_BUCKETS) {
+                return (int) nanos;
+            }
+            final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+            final int shift = exponent - SUB_BUCKET_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+        }
+
+        /*
+         * Greatest latency that falls in bucket b.
+         */
+        static long highestInBucket(int b) {
+            if (b < 2 * SUB_BUCKETS) {
+                return b;
+            }
+            final int shift = b / SUB_BUCKETS - 1;
+            final long lowest = (long) (SUB_BUCKETS + b % SUB_BUCKETS) << shift;
+            return lowest + (1L << shift) - 1;
+        }
+
+        @Override
+        public String toString() {
+            return name + "[calls=" + getCalls() + ", p50=" + getP50Nanos() + "ns, p99=" + getP99Nanos() + "ns]";
+        }
+    }
+
+    /**
+     * A call in progress of an instrumented operation.
+     */
+    public static final class Sample {
+
+        private final Operation operation;
+        private final long inputSize;
+        private final long startAllocated;
+        private final long startNanos;
+
+        private Sample(Operation operation, long inputSize, long startAllocated) {
+            this.operation = operation;
+            this.inputSize = inputSize;
+            this.startAllocated = startAllocated;
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Record the call as finished.
+         */
+        public void stop() {
+            final long nanos = System.nanoTime() - startNanos;
+            final long bytes = startAllocated < 0 ? 0 : Math.max(0, allocatedBytes() - startAllocated);
+            operation.record(nanos, inputSize, bytes);
+        }
+    }
+}
@@ -0,0 +1,475 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Mutable, thread-safe set of points of interest (POIs) that keeps a spatial
+ * grid, category postings, and duplicate groups up to date as POIs are
+ * inserted, updated, and deleted.
+ *
+ * <p>
+ * Each update changes only the grid cell, categories, and duplicate group of
+ * the POIs involved. Grid cells are copied on write, so the cost of an update
+ * grows with the number of POIs in the cells it changes, but not otherwise
+ * with the number of POIs in the index. The grid is sized from the expected
+ * number of POIs, and rebuilt with more cells whenever the index outgrows
+ * it, so cells hold a few POIs each on average; POIs crowded into one cell,
+ * such as many at the same place, make updates of that cell slower. Rebuilding
+ * the grid takes time linear in the size of the index, but happens only
+ * after the index has grown about fourfold since the grid was sized.
+ *
+ * <p>
+ * Updates are serialized by a lock on the index. Queries never lock: grid
+ * cells are immutable and replaced on write (copy-on-write), and postings and
+ * groups are concurrent sets. A query sees every update that completed before
+ * it started, and may or may not see updates that run concurrently with it.
+ * {@link #update} is not atomic to queries: it deletes the old POI before
+ * inserting the new one, so a concurrent query may see neither.
+ */
+public class LivePointOfInterestIndex {
+
+    private static final int MAX_LONGITUDE = 180 * 3600;
+
+    private final CategoryMatcher matcher;
+    private volatile Grid grid;
+    private final Map<PointOfInterest, Set<String>> members = new ConcurrentHashMap<>();
+    private final Map<String, Set<PointOfInterest>> postings = new ConcurrentHashMap<>();
+    private final Map<Mapping.DuplicateKey, Set<PointOfInterest>> groups = new ConcurrentHashMap<>();
+
+    /*
+     * Rep invariant: the keys of members are exactly the POIs in this index,
+     * each in the cell of grid given by SpatialIndex.row and
+     * SpatialIndex.column of its coordinates, and mapped to its categories
+     * according to matcher; each POI is in the postings of exactly its
+     * categories, and in the group of its DuplicateKey. No postings set or
+     * group is empty. grid.rows >= SpatialIndex.rowsFor(members.size()) / 2.
+     *
+     * Thread safety argument: all mutation happens in methods synchronized on
+     * this. Cells are immutable and published through the atomic array of
+     * their grid; a rebuilt grid is filled before it is published through
+     * the volatile field grid, and queries read that field once. members,
+     * postings, and groups and their sets are concurrent collections, and
+     * queries copy what they read into new collections.
+     */
+
+    /**
+     * A spatial grid laid out like {@link SpatialIndex}, with columns == 2 *
+     * rows and cells.length() == rows * columns. A null cell is empty.
+     */
+    private static final class Grid {
+
+        private final int rows;
+        private final int columns;
+        private final AtomicReferenceArray<Cell> cells;
+
+        Grid(int rows) {
+            this.rows = rows;
+            this.columns = 2 * rows;
+            this.cells = new AtomicReferenceArray<>(rows * columns);
+        }
+
+        int cell(int latitude, int longitude) {
+            return SpatialIndex.row(latitude, rows) * columns + SpatialIndex.column(longitude, columns);
+        }
+    }
+
+    /**
+     * An immutable grid cell, holding POIs with their signed arc second
+     * coordinates in parallel arrays.
+     */
+    private static final class Cell {
+
+        private final int[] latitudes;
+        private final int[] longitudes;
+        private final PointOfInterest[] points;
+
+        Cell(int[] latitudes, int[] longitudes, PointOfInterest[] points) {
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.points = points;
+        }
+    }
+
+    /**
+     * Make an empty index.
+     *
+     * @param categoryKeywords
+     *            a map, not modified by this method, that maps category names
+     *            to a set of keywords for that category, as defined in
+     *            {@link Mapping#findCategories}
+     * @param expectedSize
+     *            about how many POIs the index will hold, used to size the
+     *            spatial grid; must be nonnegative
+     */
+    public LivePointOfInterestIndex(Map<String, Set<String>> categoryKeywords, int expectedSize) {
+        assert expectedSize >= 0 : "negative size";
+        this.matcher = new CategoryMatcher(categoryKeywords);
+        this.grid = new Grid(SpatialIndex.rowsFor(expectedSize));
+    }
+
+    /**
+     * Add a POI to this index.
+     *
+     * @param pointOfInterest
+     *            POI to add
+     * @return true if the POI was added, false if it was already in this
+     *         index
+     */
+    public synchronized boolean insert(PointOfInterest pointOfInterest) {
+        if (members.containsKey(pointOfInterest)) {
+            return false;
+        }
+        addToCell(grid, pointOfInterest);
+        addToSets(pointOfInterest);
+        if (SpatialIndex.rowsFor(members.size()) >= 2 * grid.rows) {
+            regrid();
+        }
+        return true;
+    }
+
+    /**
+     * Remove a POI from this index.
+     *
+     * @param pointOfInterest
+     *            POI to remove
+     * @return true if the POI was removed, false if it was not in this index
+     */
+    public synchronized boolean delete(PointOfInterest pointOfInterest) {
+        if (!members.containsKey(pointOfInterest)) {
+            return false;
+        }
+        removeFromCell(grid, pointOfInterest);
+        removeFromSets(pointOfInterest);
+        return true;
+    }
+
+    /**
+     * Replace a POI in this index with another. Not atomic to concurrent
+     * queries, which may see the index with neither POI; if both POIs fall in
+     * the same grid cell, though, bounding box queries see exactly one of them.
+     *
+     * @param oldPointOfInterest
+     *            POI to remove
+     * @param newPointOfInterest
+     *            POI to add in its place
+     * @return true if oldPointOfInterest was in this index and has been
+     *         replaced, false if it was not in this index, in which case the
+     *         index is unchanged
+     */
+    public synchronized boolean update(PointOfInterest oldPointOfInterest, PointOfInterest newPointOfInterest) {
+        if (!members.containsKey(oldPointOfInterest)) {
+            return false;
+        }
+        if (oldPointOfInterest.equals(newPointOfInterest)) {
+            return true;
+        }
+        if (members.containsKey(newPointOfInterest)) {
+            return delete(oldPointOfInterest);
+        }
+        final Grid current = grid;
+        final int oldCell = current.cell(Angular.toArcSeconds(oldPointOfInterest.latitude()),
+                Angular.toArcSeconds(oldPointOfInterest.longitude()));
+        final int newCell = current.cell(Angular.toArcSeconds(newPointOfInterest.latitude()),
+                Angular.toArcSeconds(newPointOfInterest.longitude()));
+        if (oldCell == newCell) {
+            // swap the POI within its cell in one write
+            final Cell old = current.cells.get(oldCell);
+            final Cell replaced = new Cell(old.latitudes.clone(), old.longitudes.clone(), old.points.clone());
+            final int position = indexOf(old, oldPointOfInterest);
+            replaced.latitudes[position] = Angular.toArcSeconds(newPointOfInterest.latitude());
+            replaced.longitudes[position] = Angular.toArcSeconds(newPointOfInterest.longitude());
+            replaced.points[position] = newPointOfInterest;
+            current.cells.set(oldCell, replaced);
+        } else {
+            removeFromCell(current, oldPointOfInterest);
+            addToCell(current, newPointOfInterest);
+        }
+        removeFromSets(oldPointOfInterest);
+        addToSets(newPointOfInterest);
+        return true;
+    }
+
+    /**
+     * @return number of POIs in this index
+     */
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * @param pointOfInterest
+     *            a POI
+     * @return true iff the POI is in this index
+     */
+    public boolean contains(PointOfInterest pointOfInterest) {
+        return members.containsKey(pointOfInterest);
+    }
+
+    /**
+     * Find POIs in a latitude-longitude bounding rectangle.
+     *
+     * @param bounds
+     *            a latitude-longitude bounding rectangle as defined in the
+     *            documentation for {@link Bounds}, not modified by this method
+     * @return all and only the POIs in this index that are contained in the
+     *         given bounding rectangle, where 180 deg E & W are the same
+     *         longitude
+     */
+    public Set<PointOfInterest> inBoundingBox(List<Angle> bounds) {
+        final int north = Angular.toArcSeconds(bounds.get(0));
+        final int east = Angular.toArcSeconds(bounds.get(1));
+        final int south = Angular.toArcSeconds(bounds.get(2));
+        final int west = Angular.toArcSeconds(bounds.get(3));
+        final Set<PointOfInterest> result = new HashSet<>();
+        if (south > north) {
+            return result;
+        }
+        final Grid current = grid;
+        final int columns = current.columns;
+        final int firstRow = SpatialIndex.row(south, current.rows);
+        final int lastRow = SpatialIndex.row(north, current.rows);
+        final int firstColumn = SpatialIndex.column(west, columns);
+        final int lastColumn = SpatialIndex.column(east, columns);
+        if (west <= east) {
+            collect(result, current, firstRow, lastRow, firstColumn, lastColumn, south, north, west, east);
+            // 180 W and 180 E are the same longitude, in opposite edge columns
+            if (east == MAX_LONGITUDE && firstColumn > 0) {
+                collect(result, current, firstRow, lastRow, 0, 0, south, north, west, east);
+            }
+            if (west == -MAX_LONGITUDE && lastColumn < columns - 1) {
+                collect(result, current, firstRow, lastRow, columns - 1, columns - 1, south, north, west, east);
+            }
+        } else {
+            // the rectangle spans the antimeridian
+            collect(result, current, firstRow, lastRow, firstColumn, columns - 1, south, north, west, east);
+            collect(result, current, firstRow, lastRow, 0, lastColumn, south, north, west, east);
+        }
+        return result;
+    }
+
+    /**
+     * Find the categories of a POI in this index.
+     *
+     * @param pointOfInterest
+     *            a POI
+     * @return the category names applicable to the POI, as defined in
+     *         {@link Mapping#findCategories}, or an empty set if the POI is not
+     *         in this index
+     */
+    public Set<String> findCategories(PointOfInterest pointOfInterest) {
+        final Set<String> categories = members.get(pointOfInterest);
+        return categories == null ? Collections.emptySet() : Collections.unmodifiableSet(categories);
+    }
+
+    /**
+     * Find the POIs in a category.
+     *
+     * @param category
+     *            a category name
+     * @return all and only the POIs in this index to which the category
+     *         applies
+     */
+    public Set<PointOfInterest> inCategory(String category) {
+        final Set<PointOfInterest> posting = postings.get(category);
+        return posting == null ? new HashSet<>() : new HashSet<>(posting);
+    }
+
+    /**
+     * Find the duplicates of a POI in this index.
+     *
+     * @param pointOfInterest
+     *            a POI
+     * @return all and only the other POIs in this index that have the same
+     *         latitude, longitude, and name as pointOfInterest
+     */
+    public Set<PointOfInterest> duplicatesOf(PointOfInterest pointOfInterest) {
+        final Set<PointOfInterest> group = groups.get(new Mapping.DuplicateKey(pointOfInterest));
+        final Set<PointOfInterest> result = group == null ? new HashSet<>() : new HashSet<>(group);
+        result.remove(pointOfInterest);
+        return result;
+    }
+
+    /**
+     * Group the POIs in this index into duplicates, like
+     * {@link Mapping#reduceDuplicates(List)}, from the groups maintained by the
+     * index.
+     *
+     * @return a map in which all and only the POIs in this index appear
+     *         exactly once as either a key or in a value list, where each key
+     *         is the POI with the longest description in its group, and its
+     *         value is the list of the other POIs with the same latitude,
+     *         longitude, and name
+     */
+    public Map<PointOfInterest, List<PointOfInterest>> reduceDuplicates() {
+        final Map<PointOfInterest, List<PointOfInterest>> nonDuplicates = new HashMap<>();
+        for (Set<PointOfInterest> group : groups.values()) {
+            final List<PointOfInterest> partition = new ArrayList<>(group);
+            if (partition.isEmpty()) {
+                continue;
+            }
+            int best = 0;
+            for (int i = 0; i < partition.size(); i++) {
+                if (partition.get(i).description().length() >= partition.get(best).description().length()) {
+                    best = i;
+                }
+            }
+            final PointOfInterest representative = partition.remove(best);
+            nonDuplicates.put(representative, partition);
+        }
+        return nonDuplicates;
+    }
+
+    /*
+     * Add to result every POI in rows firstRow..lastRow and columns
+     * firstColumn..lastColumn of grid that is within [south, north] and
+     * [west, east], with the rectangle possibly spanning the antimeridian.
+     */
+    private static void collect(Set<PointOfInterest> result, Grid grid, int firstRow, int lastRow, int firstColumn,
+            int lastColumn, int south, int north, int west, int east) {
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                final Cell cell = grid.cells.get(r * grid.columns + c);
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.points.length; i++) {
+                    if (cell.latitudes[i] >= south && cell.latitudes[i] <= north
+                            && Bounds.containsLongitude(cell.longitudes[i], west, east)) {
+                        result.add(cell.points[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Replace the cell of a POI in grid with a copy that also holds it.
+     */
+    private static void addToCell(Grid grid, PointOfInterest pointOfInterest) {
+        final int latitude = Angular.toArcSeconds(pointOfInterest.latitude());
+        final int longitude = Angular.toArcSeconds(pointOfInterest.longitude());
+        final int cell = grid.cell(latitude, longitude);
+        final Cell old = grid.cells.get(cell);
+        if (old == null) {
+            grid.cells.set(cell, new Cell(new int[] { latitude }, new int[] { longitude },
+                    new PointOfInterest[] { pointOfInterest }));
+        } else {
+            final int size = old.points.length;
+            final Cell grown = new Cell(Arrays.copyOf(old.latitudes, size + 1), Arrays.copyOf(old.longitudes, size + 1),
+                    Arrays.copyOf(old.points, size + 1));
+            grown.latitudes[size] = latitude;
+            grown.longitudes[size] = longitude;
+            grown.points[size] = pointOfInterest;
+            grid.cells.set(cell, grown);
+        }
+    }
+
+    /*
+     * Replace the cell of a POI in grid, which must hold it, with a copy
+     * that does not.
+     */
+    private static void removeFromCell(Grid grid, PointOfInterest pointOfInterest) {
+        final int cell = grid.cell(Angular.toArcSeconds(pointOfInterest.latitude()),
+                Angular.toArcSeconds(pointOfInterest.longitude()));
+        final Cell old = grid.cells.get(cell);
+        final int size = old.points.length;
+        if (size == 1) {
+            grid.cells.set(cell, null);
+            return;
+        }
+        final int position = indexOf(old, pointOfInterest);
+        final Cell shrunk = new Cell(Arrays.copyOf(old.latitudes, size - 1), Arrays.copyOf(old.longitudes, size - 1),
+                Arrays.copyOf(old.points, size - 1));
+        // move the last POI into the removed one's place
+        if (position < size - 1) {
+            shrunk.latitudes[position] = old.latitudes[size - 1];
+            shrunk.longitudes[position] = old.longitudes[size - 1];
+            shrunk.points[position] = old.points[size - 1];
+        }
+        grid.cells.set(cell, shrunk);
+    }
+
+    private static int indexOf(Cell cell, PointOfInterest pointOfInterest) {
+        int position = 0;
+        while (!cell.points[position].equals(pointOfInterest)) {
+            position++;
+        }
+        return position;
+    }
+
+    /*
+     * Build a grid sized for the POIs in this index, and publish it.
+     */
+    private void regrid() {
+        final Grid current = grid;
+        final Grid bigger = new Grid(SpatialIndex.rowsFor(members.size()));
+        final int[] sizes = new int[bigger.cells.length()];
+        for (int cell = 0; cell < current.cells.length(); cell++) {
+            final Cell old = current.cells.get(cell);
+            for (int i = 0; old != null && i < old.points.length; i++) {
+                sizes[bigger.cell(old.latitudes[i], old.longitudes[i])]++;
+            }
+        }
+        final Cell[] filled = new Cell[sizes.length];
+        for (int cell = 0; cell < current.cells.length(); cell++) {
+            final Cell old = current.cells.get(cell);
+            for (int i = 0; old != null && i < old.points.length; i++) {
+                final int target = bigger.cell(old.latitudes[i], old.longitudes[i]);
+                if (filled[target] == null) {
+                    final int size = sizes[target];
+                    filled[target] = new Cell(new int[size], new int[size], new PointOfInterest[size]);
+                }
+                final int position = filled[target].points.length - sizes[target]--;
+                filled[target].latitudes[position] = old.latitudes[i];
+                filled[target].longitudes[position] = old.longitudes[i];
+                filled[target].points[position] = old.points[i];
+            }
+        }
+        for (int cell = 0; cell < filled.length; cell++) {
+            bigger.cells.set(cell, filled[cell]);
+        }
+        grid = bigger;
+    }
+
+    private void addToSets(PointOfInterest pointOfInterest) {
+        final Set<String> categories = matcher.findCategories(pointOfInterest);
+        for (String category : categories) {
+            postings.computeIfAbsent(category, name -> ConcurrentHashMap.newKeySet()).add(pointOfInterest);
+        }
+        groups.computeIfAbsent(new Mapping.DuplicateKey(pointOfInterest), key -> ConcurrentHashMap.newKeySet())
+                .add(pointOfInterest);
+        members.put(pointOfInterest, categories);
+    }
+
+    private void removeFromSets(PointOfInterest pointOfInterest) {
+        final Set<String> categories = members.remove(pointOfInterest);
+        for (String category : categories) {
+            removeFrom(postings, category, pointOfInterest);
+        }
+        removeFrom(groups, new Mapping.DuplicateKey(pointOfInterest), pointOfInterest);
+    }
+
+    /*
+     * Remove value from the set at key in sets, and drop the set if it
+     * becomes empty.
+     */
+    private static <K> void removeFrom(Map<K, Set<PointOfInterest>> sets, K key, PointOfInterest value) {
+        final Set<PointOfInterest> set = sets.get(key);
+        set.remove(value);
+        if (set.isEmpty()) {
+            sets.remove(key);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class LivePointOfInterestIndexTest {
+
+    private static final PointOfInterest STATA = new PointOfInterest(new Angle(42, 21, 42, CardinalDirection.NORTH),
+            new Angle(71, 5, 26, CardinalDirection.WEST), "Stata", "Stata Center");
+    private static final PointOfInterest STATA_AGAIN = new PointOfInterest(
+            new Angle(42, 21, 42, CardinalDirection.NORTH), new Angle(71, 5, 26, CardinalDirection.WEST), "Stata",
+            "Ray and Maria Stata Center");
+    private static final PointOfInterest KRESGE = new PointOfInterest(new Angle(42, 21, 29, CardinalDirection.NORTH),
+            new Angle(71, 5, 42, CardinalDirection.WEST), "Kresge", "auditorium");
+    private static final PointOfInterest FIJI = new PointOfInterest(new Angle(17, 42, 48, CardinalDirection.SOUTH),
+            new Angle(178, 3, 0, CardinalDirection.EAST), "Fiji", "");
+    private static final PointOfInterest SAMOA = new PointOfInterest(new Angle(13, 45, 34, CardinalDirection.SOUTH),
+            new Angle(172, 6, 15, CardinalDirection.WEST), "Samoa", "");
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests that inserted POIs are found by every query, and deleted ones by
+     * none.
+     */
+    @Test
+    public void insertDeleteTest() {
+        LivePointOfInterestIndex index = new LivePointOfInterestIndex(categoryKeywords(), 0);
+        assertTrue(index.insert(STATA));
+        assertFalse(index.insert(STATA));
+        assertTrue(index.insert(KRESGE));
+        assertEquals(2, index.size());
+        assertEquals(new HashSet<>(Arrays.asList(STATA, KRESGE)), index.inBoundingBox(Main.CAMBRIDGE_AREA));
+        assertEquals(Collections.singleton(STATA), index.inCategory("Center"));
+        assertEquals(Collections.singleton("Center"), index.findCategories(STATA));
+
+        assertTrue(index.delete(STATA));
+        assertFalse(index.delete(STATA));
+        assertFalse(index.contains(STATA));
+        assertEquals(Collections.singleton(KRESGE), index.inBoundingBox(Main.CAMBRIDGE_AREA));
+        assertEquals(Collections.emptySet(), index.inCategory("Center"));
+        assertEquals(Collections.emptySet(), index.findCategories(STATA));
+    }
+
+    /**
+     * Tests replacing POIs in the same grid cell and in different cells.
+     */
+    @Test
+    public void updateTest() {
+        LivePointOfInterestIndex index = new LivePointOfInterestIndex(categoryKeywords(), 0);
+        index.insert(STATA);
+        index.insert(FIJI);
+        assertTrue(index.update(STATA, STATA_AGAIN));
+        assertTrue(index.update(FIJI, SAMOA));
+        assertFalse(index.update(FIJI, KRESGE));
+        assertEquals(new HashSet<>(Arrays.asList(STATA_AGAIN, SAMOA)), allPoints(index));
+        assertEquals(Collections.singleton(STATA_AGAIN), index.inCategory("Center"));
+        assertEquals(Collections.emptySet(), index.duplicatesOf(STATA_AGAIN));
+    }
+
+    /**
+     * Tests a rectangle that spans the antimeridian.
+     */
+    @Test
+    public void inBoundingBoxAntimeridianTest() {
+        LivePointOfInterestIndex index = new LivePointOfInterestIndex(categoryKeywords(), 100);
+        for (PointOfInterest point : Arrays.asList(STATA, FIJI, SAMOA)) {
+            index.insert(point);
+        }
+        List<Angle> pacific = Arrays.asList(new Angle(0, 0, 0, CardinalDirection.NORTH),
+                new Angle(170, 0, 0, CardinalDirection.WEST), new Angle(20, 0, 0, CardinalDirection.SOUTH),
+                new Angle(175, 0, 0, CardinalDirection.EAST));
+        assertEquals(new HashSet<>(Arrays.asList(FIJI, SAMOA)), index.inBoundingBox(pacific));
+    }
+
+    /**
+     * Tests that duplicates are grouped like Mapping.reduceDuplicates, keeping
+     * the one with the longest description.
+     */
+    @Test
+    public void reduceDuplicatesTest() {
+        LivePointOfInterestIndex index = new LivePointOfInterestIndex(categoryKeywords(), 0);
+        index.insert(STATA);
+        index.insert(STATA_AGAIN);
+        index.insert(KRESGE);
+        assertEquals(Collections.singleton(STATA_AGAIN), index.duplicatesOf(STATA));
+
+        Map<PointOfInterest, List<PointOfInterest>> groups = index.reduceDuplicates();
+        assertEquals(2, groups.size());
+        assertEquals(Collections.singletonList(STATA), groups.get(STATA_AGAIN));
+        assertEquals(Collections.emptyList(), groups.get(KRESGE));
+    }
+
+    /**
+     * Tests an index that grows far beyond its expected size, so that its
+     * grid is rebuilt, against a linear scan.
+     */
+    @Test
+    public void growthTest() {
+        LivePointOfInterestIndex index = new LivePointOfInterestIndex(categoryKeywords(), 0);
+        Random random = new Random(6005);
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            PointOfInterest point = new PointOfInterest(
+                    new Angle(random.nextInt(90), random.nextInt(60), 0,
+                            random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH),
+                    new Angle(random.nextInt(180), random.nextInt(60), 0,
+                            random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST),
+                    "POI " + i, "");
+            points.add(point);
+            index.insert(point);
+        }
+        for (int i = 0; i < points.size(); i += 3) {
+            index.delete(points.get(i));
+        }
+        Set<PointOfInterest> expected = new HashSet<>();
+        for (int i = 0; i < points.size(); i++) {
+            if (i % 3 != 0) {
+                expected.add(points.get(i));
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        assertEquals(expected, allPoints(index));
+        List<Angle> bounds = Arrays.asList(new Angle(30, 0, 0, CardinalDirection.NORTH),
+                new Angle(60, 0, 0, CardinalDirection.EAST), new Angle(10, 0, 0, CardinalDirection.SOUTH),
+                new Angle(100, 0, 0, CardinalDirection.WEST));
+        assertEquals(Bounds.inBoundingBox(expected, bounds), index.inBoundingBox(bounds));
+    }
+
+    private static Set<PointOfInterest> allPoints(LivePointOfInterestIndex index) {
+        return index.inBoundingBox(Arrays.asList(new Angle(90, 0, 0, CardinalDirection.NORTH),
+                new Angle(180, 0, 0, CardinalDirection.EAST), new Angle(90, 0, 0, CardinalDirection.SOUTH),
+                new Angle(180, 0, 0, CardinalDirection.WEST)));
+    }
+
+    private static Map<String, Set<String>> categoryKeywords() {
+        Map<String, Set<String>> categoryKeywords = new HashMap<>();
+        categoryKeywords.put("Center", Collections.emptySet());
+        return categoryKeywords;
+    }
+}
@@ -4,9 +4,7 @@
 package geo;
 
 import java.io.*;
-import java.nio.file.Files;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class Main {
 
@@ -56,13 +54,11 @@ public class Main {
         categoryKeywords.put("Center", Collections.emptySet());
         categoryKeywords.put("Tech", Collections.singleton("MIT"));
         categoryKeywords.put("School", new HashSet<>(Arrays.asList("school", "institute", "student")));
+        final CategoryMatcher matcher = new CategoryMatcher(categoryKeywords);
         final String search = "School";
         System.out.println(search + " POIs =");
-        for (final PointOfInterest poi : pointsOfInterest) {
-            final Set<String> categories = Mapping.findCategories(poi, categoryKeywords);
-            if (categories.stream().anyMatch(category -> category.equalsIgnoreCase(search))) {
-                System.out.println("  " + poi.name() + " - " + poi.description() + " " + categories);
-            }
+        for (final PointOfInterest poi : matcher.inCategory(pointsOfInterest, search)) {
+            System.out.println("  " + poi.name() + " - " + poi.description() + " " + matcher.findCategories(poi));
         }
 
         System.out.println("Reducing duplicates =");
@@ -76,13 +72,14 @@ public class Main {
     /**
      * @param file
      *            name of file where each line describes a point of interest as
-     *            defined by {@link #parsePOI}
-     * @return the points of interest described in file
+     *            defined by {@link #parsePOI}, or is empty or all whitespace
+     *            and is skipped; lines may end with LF or CRLF
+     * @return the points of interest described in file, in file order
      * @throws IOException
      *             if the points of interest file cannot be read
      */
     static List<PointOfInterest> readPOIsFromFile(final String file) throws IOException {
-        return Files.lines(new File(file).toPath()).map(line -> parsePOI(line)).collect(Collectors.toList());
+        return PointOfInterestLoader.readPOIs(new File(file).toPath());
     }
 
     /**
@@ -95,6 +92,21 @@ public class Main {
      * @return a point of interest with the parameters from line
      */
     static PointOfInterest parsePOI(final String line) {
+        final GeoMetrics.Sample sample = GeoMetrics.PARSE_POI.start(line.length());
+        if (sample == null) {
+            return computeParsePOI(line);
+        }
+        try {
+            return computeParsePOI(line);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /*
+     * parsePOI(String), without instrumentation.
+     */
+    private static PointOfInterest computeParsePOI(final String line) {
         final int parameterCount = 10;
         final List<String> parameters = Arrays.asList(line.split(","));
         assert parameters.size() == parameterCount : "invalid POI line: " + line;
@@ -119,7 +131,7 @@ public class Main {
      * @return an angle with the given parameters
      */
     static Angle makeAngle(final String degrees, final String minutes, final String seconds, final String direction) {
-        return new Angle(Integer.parseInt(degrees), Integer.parseInt(minutes), Integer.parseInt(seconds),
-                CardinalDirection.fromChar(direction.charAt(0)));
+        return AngleCache.canonical(Integer.parseInt(degrees), Integer.parseInt(minutes), Integer.parseInt(seconds),
+                AngleCache.direction(direction.charAt(0)));
     }
 }
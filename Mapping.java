@@ -3,12 +3,26 @@
  */
 package geo;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 /**
  * Methods for building useful maps of points of interest.
@@ -20,6 +34,12 @@ import java.util.Set;
  */
 public class Mapping {
 
+    /**
+     * Duplicate strategy of {@link #reduceDuplicates(List)}, which groups POIs
+     * with exactly the same latitude, longitude, and name.
+     */
+    public static final DuplicateStrategy EXACT_DUPLICATES = Mapping::reduceDuplicates;
+
     /**
      * Find categories applicable to a point of interest (POI) by searching
      * their names and descriptions.
@@ -43,6 +63,23 @@ public class Mapping {
      *         least one of its keywords as a substring
      */
     public static Set<String> findCategories(PointOfInterest pointOfInterest,Map<String, Set<String>> categoryKeywords) {
+        final GeoMetrics.Sample sample = GeoMetrics.FIND_CATEGORIES
+                .start(pointOfInterest.name().length() + pointOfInterest.description().length());
+        if (sample == null) {
+            return computeFindCategories(pointOfInterest, categoryKeywords);
+        }
+        try {
+            return computeFindCategories(pointOfInterest, categoryKeywords);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /*
+     * findCategories(PointOfInterest, Map), without instrumentation.
+     */
+    private static Set<String> computeFindCategories(PointOfInterest pointOfInterest,
+            Map<String, Set<String>> categoryKeywords) {
            
         Set<String> validMap = new HashSet<String>();
         
@@ -70,9 +107,50 @@ public class Mapping {
         return validMap;
     }
 
+    /**
+     * Find categories applicable to each point of interest (POI) in a columnar
+     * store, as defined by {@link #findCategories(PointOfInterest, Map)}. Each
+     * distinct name and description in the store is only searched once.
+     * 
+     * @param store
+     *            store of POIs to categorize, not modified by this method
+     * @param categoryKeywords
+     *            a map, not modified by this method, that maps category names
+     *            to a set of keywords for that category
+     * @return list whose i-th element is the set of category names applicable
+     *         to POI number i in the store
+     */
+    public static List<Set<String>> findCategories(PointOfInterestStore store,
+            Map<String, Set<String>> categoryKeywords) {
+        final CategoryMatcher matcher = new CategoryMatcher(categoryKeywords);
+        final List<Set<String>> byString = new ArrayList<>(Collections.nCopies(store.stringCount(), null));
+        final List<Set<String>> categories = new ArrayList<>(store.size());
+        for (int i = 0; i < store.size(); i++) {
+            final Set<String> found = new HashSet<>(categoriesOf(store, store.nameId(i), matcher, byString));
+            found.addAll(categoriesOf(store, store.descriptionId(i), matcher, byString));
+            categories.add(found);
+        }
+        return categories;
+    }
+
+    /*
+     * Categories of string number id in store, searched for on first use and
+     * remembered in byString.
+     */
+    private static Set<String> categoriesOf(PointOfInterestStore store, int id, CategoryMatcher matcher,
+            List<Set<String>> byString) {
+        Set<String> found = byString.get(id);
+        if (found == null) {
+            found = matcher.findCategories(store.string(id));
+            byString.set(id, found);
+        }
+        return found;
+    }
+
     // Helper function to see whether two points are similar
     public static boolean areSimilar(PointOfInterest point1, PointOfInterest point2) {
-        if (point1.latitude().equals(point2.latitude()) && point1.longitude().equals(point2.longitude())
+        if (AngleCache.same(point1.latitude(), point2.latitude())
+                && AngleCache.same(point1.longitude(), point2.longitude())
                 && point1.name().equals(point2.name())) {
             return true;
 
@@ -104,43 +182,299 @@ public class Mapping {
      */
 
     public static Map<PointOfInterest, List<PointOfInterest>> reduceDuplicates(List<PointOfInterest> pointsOfInterest) {
+        final GeoMetrics.Sample sample = GeoMetrics.REDUCE_DUPLICATES.start(pointsOfInterest.size());
+        if (sample == null) {
+            return reduceDuplicates(pointsOfInterest.iterator());
+        }
+        try {
+            return reduceDuplicates(pointsOfInterest.iterator());
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Guess which points of interest (POIs) are duplicates that represent the
+     * same physical place, as defined by {@link #reduceDuplicates(List)}, in a
+     * single pass over a stream of POIs.
+     * <p>
+     * POIs are grouped by hashing their latitude, longitude, and name, so the
+     * running time is linear in the number of POIs. Every POI is kept until
+     * the end, so memory use is also linear in the number of POIs; for inputs
+     * that do not fit in memory, use
+     * {@link #reduceDuplicates(Iterator, int, Path, BiConsumer)}.
+     * 
+     * @param pointsOfInterest
+     *            iterator over POIs, consumed by this method
+     * @return a map in which all and only the POIs from pointsOfInterest appear
+     *         exactly once as either a key or in a value list, and the value
+     *         for each key is the list of POIs that are identified as its
+     *         duplicates
+     */
+    public static Map<PointOfInterest, List<PointOfInterest>> reduceDuplicates(
+            Iterator<PointOfInterest> pointsOfInterest) {
         Map<PointOfInterest, List<PointOfInterest>> nonDuplicates = new HashMap<PointOfInterest, List<PointOfInterest>>();
 
-        // Split into partitions of duplicates. Partitions are disjoint,
+        // Split into partitions of duplicates, keyed by the fields areSimilar
+        // compares, in order of first appearance. Partitions are disjoint,
         // every point is in one part of the partition.
-        List<List<PointOfInterest>> partitions = new ArrayList<>();
-        for (PointOfInterest point : pointsOfInterest) {
-            boolean found = false;
-            for (List<PointOfInterest> partition : partitions) {
-                if (areSimilar(point, partition.get(0))) {
-                    partition.add(point);
-                    found = true;
+        Map<DuplicateKey, List<PointOfInterest>> partitions = new LinkedHashMap<>();
+        while (pointsOfInterest.hasNext()) {
+            PointOfInterest point = pointsOfInterest.next();
+            partitions.computeIfAbsent(new DuplicateKey(point), key -> new ArrayList<>()).add(point);
+        }
+
+        // Pick the best point from a partition and compute nonDuplicates
+        pickBest(partitions.values(), nonDuplicates::put);
+        return nonDuplicates;
+    }
+
+    /**
+     * Guess which points of interest (POIs) are duplicates that represent the
+     * same physical place, as defined by {@link #reduceDuplicates(List)}, in
+     * memory bounded by the largest partition rather than the whole input.
+     * <p>
+     * The POIs are first hash-partitioned by latitude, longitude, and name
+     * into partitionCount temporary files, so that all the duplicates of a POI
+     * land in the same file. Each file is then read back and grouped on its
+     * own, its groups are passed to the groups callback, and the file is
+     * deleted. Memory use is about the size of the input divided by
+     * partitionCount, plus one write buffer per partition.
+     * 
+     * @param pointsOfInterest
+     *            iterator over POIs, consumed by this method
+     * @param partitionCount
+     *            number of partitions to spill the input into, must be
+     *            positive
+     * @param directory
+     *            existing directory in which to make the temporary files,
+     *            which are all deleted before this method returns
+     * @param groups
+     *            called once per group, with the POI with the longest
+     *            description and the list of the other POIs in the group, in
+     *            input order. The groups of one partition are passed in order
+     *            of first appearance, one partition after another. The POIs
+     *            passed are equal to, but not the same objects as, the POIs
+     *            from pointsOfInterest.
+     * @throws IOException
+     *             if the temporary files cannot be written or read
+     */
+    public static void reduceDuplicates(Iterator<PointOfInterest> pointsOfInterest, int partitionCount,
+            Path directory, BiConsumer<PointOfInterest, List<PointOfInterest>> groups) throws IOException {
+        assert partitionCount > 0 : "no partitions";
+        final Path spill = Files.createTempDirectory(directory, "duplicates");
+        final Path[] files = new Path[partitionCount];
+        final long[] counts = new long[partitionCount];
+        try {
+            final DataOutputStream[] outs = new DataOutputStream[partitionCount];
+            try {
+                for (int p = 0; p < partitionCount; p++) {
+                    files[p] = spill.resolve("partition-" + p);
+                    outs[p] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(files[p])));
+                }
+                while (pointsOfInterest.hasNext()) {
+                    final PointOfInterest point = pointsOfInterest.next();
+                    final int hash = new DuplicateKey(point).hashCode();
+                    final int p = Math.floorMod(hash ^ (hash >>> 16), partitionCount);
+                    writePoint(outs[p], point);
+                    counts[p]++;
+                }
+            } finally {
+                for (DataOutputStream out : outs) {
+                    if (out != null) {
+                        out.close();
+                    }
                 }
             }
-            if (!found) {
-                List<PointOfInterest> newPartition = new ArrayList<>();
-                newPartition.add(point);
-                partitions.add(newPartition);
+
+            for (int p = 0; p < partitionCount; p++) {
+                final Map<DuplicateKey, List<PointOfInterest>> partitions = new LinkedHashMap<>();
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(files[p])))) {
+                    for (long i = 0; i < counts[p]; i++) {
+                        final PointOfInterest point = readPoint(in);
+                        partitions.computeIfAbsent(new DuplicateKey(point), key -> new ArrayList<>()).add(point);
+                    }
+                }
+                Files.delete(files[p]);
+                pickBest(partitions.values(), groups);
             }
+        } finally {
+            for (Path file : files) {
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(spill);
         }
+    }
 
-        // Pick the best point from a partition and compute nonDuplicates
+    /*
+     * Pass each partition to groups, as its POI with the longest description,
+     * the last of them if tied, and a list of the others in partition order.
+     * Removes the best POI from each partition.
+     */
+    private static void pickBest(Collection<List<PointOfInterest>> partitions,
+            BiConsumer<PointOfInterest, List<PointOfInterest>> groups) {
         for (List<PointOfInterest> partition : partitions) {
 
             // Find the best point by longest description
-            PointOfInterest pointLongestDesc = partition.get(0);
-            for (PointOfInterest point : partition) {
-                if (point.description().length() >= pointLongestDesc.description().length()) {
-                    pointLongestDesc = point;
+            int best = 0;
+            for (int i = 0; i < partition.size(); i++) {
+                if (partition.get(i).description().length() >= partition.get(best).description().length()) {
+                    best = i;
                 }
             }
             // remove the key itself from the list of values
-            boolean removed = partition.remove(pointLongestDesc);
-            assert (removed);
-            nonDuplicates.put(pointLongestDesc, partition);
+            PointOfInterest pointLongestDesc = partition.remove(best);
+            groups.accept(pointLongestDesc, partition);
         }
+    }
+
+    private static void writePoint(DataOutputStream out, PointOfInterest point) throws IOException {
+        writeAngle(out, point.latitude());
+        writeAngle(out, point.longitude());
+        writeString(out, point.name());
+        writeString(out, point.description());
+    }
+
+    private static PointOfInterest readPoint(DataInputStream in) throws IOException {
+        final Angle latitude = readAngle(in);
+        final Angle longitude = readAngle(in);
+        final String name = readString(in);
+        return new PointOfInterest(latitude, longitude, name, readString(in));
+    }
+
+    private static void writeAngle(DataOutputStream out, Angle angle) throws IOException {
+        out.writeInt(angle.degrees());
+        out.writeInt(angle.minutes());
+        out.writeInt(angle.seconds());
+        out.writeChar(angle.direction().toChar());
+    }
+
+    private static Angle readAngle(DataInputStream in) throws IOException {
+        final int degrees = in.readInt();
+        final int minutes = in.readInt();
+        final int seconds = in.readInt();
+        return AngleCache.canonical(degrees, minutes, seconds, AngleCache.direction(in.readChar()));
+    }
 
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Guess which points of interest (POIs) in a columnar store are duplicates
+     * that represent the same physical place, as defined by
+     * {@link #reduceDuplicates(List)}, in linear time using open addressing
+     * over the store's primitive columns.
+     * 
+     * @param store
+     *            store of POIs, not modified by this method
+     * @return a map in which the number of every POI in the store appears
+     *         exactly once as either a key or in a value list, and the value
+     *         for each key is the list of numbers of POIs that are identified
+     *         as its duplicates, in increasing order
+     */
+    public static Map<Integer, List<Integer>> reduceDuplicates(PointOfInterestStore store) {
+        final int size = store.size();
+        final int mask = Integer.highestOneBit(Math.max(1, 2 * size)) * 2 - 1;
+        final int[] heads = new int[mask + 1];
+        Arrays.fill(heads, -1);
+        final int[] next = new int[size];
+        final int[] tails = new int[size];
+
+        // chain every POI onto the group of the first POI with the same key
+        for (int i = 0; i < size; i++) {
+            int slot = duplicateHash(store, i) & mask;
+            while (heads[slot] >= 0 && !sameDuplicateKey(store, heads[slot], i)) {
+                slot = (slot + 1) & mask;
+            }
+            next[i] = -1;
+            if (heads[slot] < 0) {
+                heads[slot] = i;
+                tails[i] = i;
+            } else {
+                next[tails[heads[slot]]] = i;
+                tails[heads[slot]] = i;
+            }
+        }
+
+        final Map<Integer, List<Integer>> nonDuplicates = new HashMap<>();
+        for (int head : heads) {
+            if (head < 0) {
+                continue;
+            }
+            // Find the best point by longest description
+            int best = head;
+            for (int i = head; i >= 0; i = next[i]) {
+                if (store.description(i).length() >= store.description(best).length()) {
+                    best = i;
+                }
+            }
+            final List<Integer> duplicates = new ArrayList<>();
+            for (int i = head; i >= 0; i = next[i]) {
+                if (i != best) {
+                    duplicates.add(i);
+                }
+            }
+            nonDuplicates.put(best, duplicates);
+        }
         return nonDuplicates;
     }
 
+    private static int duplicateHash(PointOfInterestStore store, int index) {
+        int hash = store.latitude(index);
+        hash = 31 * hash + store.longitude(index);
+        hash = 31 * hash + store.directions(index);
+        hash = 31 * hash + store.nameId(index);
+        // spread the high bits, since the table is indexed by the low bits
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean sameDuplicateKey(PointOfInterestStore store, int index1, int index2) {
+        return store.latitude(index1) == store.latitude(index2) && store.longitude(index1) == store.longitude(index2)
+                && store.directions(index1) == store.directions(index2)
+                && store.nameId(index1) == store.nameId(index2);
+    }
+
+    /**
+     * Hash key of a POI that is equal for exactly the POIs that
+     * {@link Mapping#areSimilar} considers similar.
+     */
+    static class DuplicateKey {
+
+        private final Angle latitude;
+        private final Angle longitude;
+        private final String name;
+
+        DuplicateKey(PointOfInterest point) {
+            this.latitude = point.latitude();
+            this.longitude = point.longitude();
+            this.name = point.name();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof DuplicateKey)) {
+                return false;
+            }
+            final DuplicateKey that = (DuplicateKey) obj;
+            return AngleCache.same(this.latitude, that.latitude) && AngleCache.same(this.longitude, that.longitude)
+                    && this.name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * latitude.hashCode() + longitude.hashCode()) * 31 + name.hashCode();
+        }
+    }
+
 }
@@ -0,0 +1,164 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class MappingTest {
+
+    private static final PointOfInterest STATA = point(42, 21, 42, 71, 5, 26, "Stata", "");
+    private static final PointOfInterest STATA_CENTER = point(42, 21, 42, 71, 5, 26, "Stata", "Stata Center");
+    private static final PointOfInterest STATA_AGAIN = point(42, 21, 42, 71, 5, 26, "Stata", "Stata Centre");
+    private static final PointOfInterest KRESGE = point(42, 21, 29, 71, 5, 42, "Kresge", "auditorium");
+    private static final PointOfInterest KRESGE_ELSEWHERE = point(42, 21, 30, 71, 5, 42, "Kresge", "");
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests that POIs with the same latitude, longitude, and name are grouped
+     * under the one with the longest description, and others are not.
+     */
+    @Test
+    public void reduceDuplicatesGroupingTest() {
+        Map<PointOfInterest, List<PointOfInterest>> groups = Mapping
+                .reduceDuplicates(Arrays.asList(STATA, KRESGE, STATA_CENTER, KRESGE_ELSEWHERE));
+
+        assertEquals(3, groups.size());
+        assertEquals(Collections.singletonList(STATA), groups.get(STATA_CENTER));
+        assertEquals(Collections.emptyList(), groups.get(KRESGE));
+        assertEquals(Collections.emptyList(), groups.get(KRESGE_ELSEWHERE));
+    }
+
+    /**
+     * Tests that of several longest descriptions, the last one wins, and the
+     * rest of the group stays in input order.
+     */
+    @Test
+    public void reduceDuplicatesTieTest() {
+        Map<PointOfInterest, List<PointOfInterest>> groups = Mapping
+                .reduceDuplicates(Arrays.asList(STATA_CENTER, STATA, STATA_AGAIN));
+
+        assertEquals(1, groups.size());
+        assertEquals(Arrays.asList(STATA_CENTER, STATA), groups.get(STATA_AGAIN));
+    }
+
+    /**
+     * Tests that the spilling variant passes groups in order of first
+     * appearance within a partition, and leaves no files behind.
+     */
+    @Test
+    public void reduceDuplicatesSpillOrderTest() throws IOException {
+        Path directory = Files.createTempDirectory("mapping-test");
+        List<PointOfInterest> keys = new ArrayList<>();
+        Mapping.reduceDuplicates(Arrays.asList(KRESGE, STATA, KRESGE_ELSEWHERE, STATA_CENTER).iterator(), 1,
+                directory, (key, duplicates) -> keys.add(key));
+
+        assertEquals(Arrays.asList(KRESGE, STATA_CENTER, KRESGE_ELSEWHERE), keys);
+        assertEquals(0, directory.toFile().list().length);
+        Files.delete(directory);
+    }
+
+    /**
+     * Tests that the spilling variant groups like the in-memory one, over
+     * many partitions.
+     */
+    @Test
+    public void reduceDuplicatesSpillTest() throws IOException {
+        Random random = new Random(6005);
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            points.add(point(random.nextInt(3), 0, 0, random.nextInt(3), 0, 0, "POI " + random.nextInt(5),
+                    random.nextInt(3) == 0 ? "" : "description " + i));
+        }
+        Path directory = Files.createTempDirectory("mapping-test");
+        Map<PointOfInterest, List<PointOfInterest>> spilled = new HashMap<>();
+        Mapping.reduceDuplicates(points.iterator(), 7, directory, spilled::put);
+
+        assertEquals(Mapping.reduceDuplicates(points), spilled);
+        assertEquals(0, directory.toFile().list().length);
+        Files.delete(directory);
+    }
+
+    /**
+     * Tests the store overload of findCategories against the POI one, with
+     * names and descriptions repeated across POIs.
+     */
+    @Test
+    public void findCategoriesStoreTest() {
+        Map<String, Set<String>> categoryKeywords = new HashMap<>();
+        categoryKeywords.put("Center", Collections.emptySet());
+        categoryKeywords.put("Tech", Collections.singleton("MIT"));
+        categoryKeywords.put("School", new HashSet<>(Arrays.asList("school", "institute", "student")));
+        String[] strings = { "Stata Center", "MIT", "a school", "", "Park", "center for students" };
+        Random random = new Random(6005);
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            points.add(point(random.nextInt(3), 0, 0, random.nextInt(3), 0, 0,
+                    "POI " + strings[random.nextInt(strings.length)], strings[random.nextInt(strings.length)]));
+        }
+        List<Set<String>> categories = Mapping.findCategories(PointOfInterestStore.of(points), categoryKeywords);
+
+        assertEquals(points.size(), categories.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(Mapping.findCategories(points.get(i), categoryKeywords), categories.get(i));
+        }
+    }
+
+    /**
+     * Tests the store overload of reduceDuplicates against the list one, on
+     * distinct POIs with many tied description lengths.
+     */
+    @Test
+    public void reduceDuplicatesStoreTest() {
+        Random random = new Random(6005);
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            points.add(new PointOfInterest(
+                    new Angle(random.nextInt(2), 0, 0,
+                            random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH),
+                    new Angle(random.nextInt(2), 0, 0,
+                            random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST),
+                    "POI " + random.nextInt(3), i % 3 == 0 ? "#" + i : "description " + i));
+        }
+        PointOfInterestStore store = PointOfInterestStore.of(points);
+        Map<PointOfInterest, List<PointOfInterest>> byPoint = new HashMap<>();
+        for (Map.Entry<Integer, List<Integer>> group : Mapping.reduceDuplicates(store).entrySet()) {
+            List<PointOfInterest> duplicates = new ArrayList<>();
+            for (int i : group.getValue()) {
+                duplicates.add(points.get(i));
+            }
+            byPoint.put(points.get(group.getKey()), duplicates);
+        }
+
+        assertEquals(Mapping.reduceDuplicates(points), byPoint);
+    }
+
+    private static PointOfInterest point(int latitudeDegrees, int latitudeMinutes, int latitudeSeconds,
+            int longitudeDegrees, int longitudeMinutes, int longitudeSeconds, String name, String description) {
+        return new PointOfInterest(new Angle(latitudeDegrees, latitudeMinutes, latitudeSeconds, CardinalDirection.NORTH),
+                new Angle(longitudeDegrees, longitudeMinutes, longitudeSeconds, CardinalDirection.WEST), name,
+                description);
+    }
+}
@@ -0,0 +1,377 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable index over points of interest (POIs) that finds the POIs nearest
+ * to a location, by great-circle distance on a spherical Earth.
+ *
+ * <p>
+ * Each POI is mapped to a point on the unit sphere, and the points are kept in
+ * a balanced k-d tree. Straight-line (chord) distance between points on the
+ * sphere increases with great-circle distance, so the tree can be searched
+ * with plain Euclidean bounds, pruning every subtree that cannot hold a closer
+ * POI than those found so far.
+ */
+public class NearestNeighbourIndex {
+
+    /** Mean radius of the Earth, in meters. */
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private static final int DIMENSIONS = 3;
+    /** Subtrees with at most this many POIs are searched by brute force. */
+    private static final int LEAF_SIZE = 8;
+
+    private final PointOfInterest[] points;
+    private final double[] coordinates;
+    private final byte[] splitAxis;
+
+    /*
+     * Rep invariant: coordinates.length == 3 * points.length, and
+     * coordinates[3i .. 3i+2] is the unit vector of points[i]. For every
+     * subtree points[lo, hi) with more than LEAF_SIZE POIs, its root is mid =
+     * (lo + hi) / 2, and for a = splitAxis[mid] every POI in [lo, mid) has
+     * coordinate a at most that of mid, and every POI in (mid, hi) at least
+     * that of mid.
+     */
+
+    /**
+     * Build an index over some POIs.
+     *
+     * @param pointsOfInterest
+     *            POIs to index, not modified by this method
+     */
+    public NearestNeighbourIndex(Collection<PointOfInterest> pointsOfInterest) {
+        this.points = pointsOfInterest.toArray(new PointOfInterest[pointsOfInterest.size()]);
+        this.coordinates = new double[DIMENSIONS * points.length];
+        this.splitAxis = new byte[points.length];
+        for (int i = 0; i < points.length; i++) {
+            unitVector(points[i].latitude(), points[i].longitude(), coordinates, DIMENSIONS * i);
+        }
+        build(0, points.length);
+    }
+
+    /**
+     * @return number of POIs in this index
+     */
+    public int size() {
+        return points.length;
+    }
+
+    /**
+     * Find the POIs nearest to a location.
+     *
+     * @param latitude
+     *            latitude of the location, must be a valid latitude
+     * @param longitude
+     *            longitude of the location, must be a valid longitude
+     * @param k
+     *            number of POIs to find, must be nonnegative
+     * @return the min(k, size()) indexed POIs with the smallest great-circle
+     *         distance to the location, nearest first, breaking ties
+     *         arbitrarily
+     */
+    public List<PointOfInterest> nearest(Angle latitude, Angle longitude, int k) {
+        assert k >= 0 : "negative k: " + k;
+        final double[] query = new double[DIMENSIONS];
+        unitVector(latitude, longitude, query, 0);
+        final Heap heap = new Heap(Math.min(k, points.length));
+        if (heap.capacity > 0) {
+            searchNearest(query, 0, points.length, heap);
+        }
+        return heap.toSortedList(points);
+    }
+
+    /**
+     * Find the POIs within a distance of a location.
+     *
+     * @param latitude
+     *            latitude of the location, must be a valid latitude
+     * @param longitude
+     *            longitude of the location, must be a valid longitude
+     * @param radiusMeters
+     *            largest great-circle distance, in meters, must be nonnegative
+     * @return all and only the indexed POIs at most radiusMeters from the
+     *         location, nearest first
+     */
+    public List<PointOfInterest> withinRadius(Angle latitude, Angle longitude, double radiusMeters) {
+        assert radiusMeters >= 0 : "negative radius: " + radiusMeters;
+        final double[] query = new double[DIMENSIONS];
+        unitVector(latitude, longitude, query, 0);
+        final double chord = chordForDistance(radiusMeters);
+        final Heap found = new Heap(Integer.MAX_VALUE);
+        searchRadius(query, chord * chord, 0, points.length, found);
+        return found.toSortedList(points);
+    }
+
+    /**
+     * Compute the great-circle distance between two locations on a spherical
+     * Earth.
+     *
+     * @param latitude1
+     *            latitude of the first location
+     * @param longitude1
+     *            longitude of the first location
+     * @param latitude2
+     *            latitude of the second location
+     * @param longitude2
+     *            longitude of the second location
+     * @return distance in meters, using {@link #EARTH_RADIUS_METERS}
+     */
+    public static double greatCircleDistance(Angle latitude1, Angle longitude1, Angle latitude2, Angle longitude2) {
+        final double phi1 = Math.toRadians(Angular.toDegrees(latitude1));
+        final double phi2 = Math.toRadians(Angular.toDegrees(latitude2));
+        final double deltaPhi = phi2 - phi1;
+        final double deltaLambda = Math.toRadians(Angular.toDegrees(longitude2) - Angular.toDegrees(longitude1));
+        // haversine formula, well-conditioned for small distances
+        final double h = Math.pow(Math.sin(deltaPhi / 2), 2)
+                + Math.cos(phi1) * Math.cos(phi2) * Math.pow(Math.sin(deltaLambda / 2), 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(h)));
+    }
+
+    /*
+     * Straight-line distance through a unit sphere between two points
+     * radiusMeters apart along its surface, capped at the diameter.
+     */
+    static double chordForDistance(double radiusMeters) {
+        final double angle = Math.min(Math.PI, radiusMeters / EARTH_RADIUS_METERS);
+        return 2 * Math.sin(angle / 2);
+    }
+
+    /*
+     * Store the unit vector for a location in out[offset .. offset+2].
+     */
+    static void unitVector(Angle latitude, Angle longitude, double[] out, int offset) {
+        final double phi = Math.toRadians(Angular.toDegrees(latitude));
+        final double lambda = Math.toRadians(Angular.toDegrees(longitude));
+        out[offset] = Math.cos(phi) * Math.cos(lambda);
+        out[offset + 1] = Math.cos(phi) * Math.sin(lambda);
+        out[offset + 2] = Math.sin(phi);
+    }
+
+    private void build(int lo, int hi) {
+        if (hi - lo <= LEAF_SIZE) {
+            return;
+        }
+        // split on the axis with the widest spread
+        int axis = 0;
+        double widest = -1;
+        for (int a = 0; a < DIMENSIONS; a++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                min = Math.min(min, coordinates[DIMENSIONS * i + a]);
+                max = Math.max(max, coordinates[DIMENSIONS * i + a]);
+            }
+            if (max - min > widest) {
+                widest = max - min;
+                axis = a;
+            }
+        }
+        final int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, axis);
+        splitAxis[mid] = (byte) axis;
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    /*
+     * Quickselect: reorder [left, right] so that the POI at position k has
+     * the k-th smallest coordinate on axis, smaller or equal ones before it
+     * and larger or equal ones after it.
+     */
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            final double pivot = coordinates[DIMENSIONS * ((left + right) >>> 1) + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinates[DIMENSIONS * i + axis] < pivot) {
+                    i++;
+                }
+                while (coordinates[DIMENSIONS * j + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        final PointOfInterest point = points[i];
+        points[i] = points[j];
+        points[j] = point;
+        for (int a = 0; a < DIMENSIONS; a++) {
+            final double coordinate = coordinates[DIMENSIONS * i + a];
+            coordinates[DIMENSIONS * i + a] = coordinates[DIMENSIONS * j + a];
+            coordinates[DIMENSIONS * j + a] = coordinate;
+        }
+    }
+
+    private double squaredDistance(double[] query, int i) {
+        final double dx = query[0] - coordinates[DIMENSIONS * i];
+        final double dy = query[1] - coordinates[DIMENSIONS * i + 1];
+        final double dz = query[2] - coordinates[DIMENSIONS * i + 2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private void searchNearest(double[] query, int lo, int hi, Heap heap) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int i = lo; i < hi; i++) {
+                heap.offer(i, squaredDistance(query, i));
+            }
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        heap.offer(mid, squaredDistance(query, mid));
+        final double difference = query[splitAxis[mid]] - coordinates[DIMENSIONS * mid + splitAxis[mid]];
+        // search the side containing the query first, then the other side
+        // only if it might still hold something closer
+        if (difference < 0) {
+            searchNearest(query, lo, mid, heap);
+            if (!heap.isFull() || difference * difference < heap.worst()) {
+                searchNearest(query, mid + 1, hi, heap);
+            }
+        } else {
+            searchNearest(query, mid + 1, hi, heap);
+            if (!heap.isFull() || difference * difference < heap.worst()) {
+                searchNearest(query, lo, mid, heap);
+            }
+        }
+    }
+
+    private void searchRadius(double[] query, double squaredChord, int lo, int hi, Heap found) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int i = lo; i < hi; i++) {
+                final double distance = squaredDistance(query, i);
+                if (distance <= squaredChord) {
+                    found.offer(i, distance);
+                }
+            }
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        final double distance = squaredDistance(query, mid);
+        if (distance <= squaredChord) {
+            found.offer(mid, distance);
+        }
+        final double difference = query[splitAxis[mid]] - coordinates[DIMENSIONS * mid + splitAxis[mid]];
+        if (difference <= 0 || difference * difference <= squaredChord) {
+            searchRadius(query, squaredChord, lo, mid, found);
+        }
+        if (difference >= 0 || difference * difference <= squaredChord) {
+            searchRadius(query, squaredChord, mid + 1, hi, found);
+        }
+    }
+
+    /**
+     * Mutable bounded max-heap of POI positions keyed by squared distance,
+     * kept in primitive arrays, that retains the entries with the smallest
+     * keys.
+     */
+    private static class Heap {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final int capacity;
+        private int size;
+        private int[] positions;
+        private double[] keys;
+
+        Heap(int capacity) {
+            this.capacity = capacity;
+            this.positions = new int[Math.min(capacity, INITIAL_CAPACITY)];
+            this.keys = new double[positions.length];
+        }
+
+        boolean isFull() {
+            return size == capacity;
+        }
+
+        /*
+         * Largest key in the heap; requires size > 0.
+         */
+        double worst() {
+            return keys[0];
+        }
+
+        void offer(int position, double key) {
+            if (size < capacity) {
+                if (size == positions.length) {
+                    final int grown = (int) Math.min(capacity, 2L * size);
+                    positions = Arrays.copyOf(positions, grown);
+                    keys = Arrays.copyOf(keys, grown);
+                }
+                positions[size] = position;
+                keys[size] = key;
+                siftUp(size++);
+            } else if (capacity > 0 && key < keys[0]) {
+                positions[0] = position;
+                keys[0] = key;
+                siftDown(0);
+            }
+        }
+
+        List<PointOfInterest> toSortedList(PointOfInterest[] points) {
+            // repeatedly move the largest to the end
+            final int count = size;
+            while (size > 1) {
+                swap(0, --size);
+                siftDown(0);
+            }
+            final List<PointOfInterest> sorted = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                sorted.add(points[positions[i]]);
+            }
+            size = count;
+            return sorted;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0 && keys[(i - 1) / 2] < keys[i]) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int largest = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (keys[child] > keys[largest]) {
+                        largest = child;
+                    }
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            final int position = positions[i];
+            positions[i] = positions[j];
+            positions[j] = position;
+            final double key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class NearestNeighbourIndexTest {
+
+    private static final PointOfInterest EAST = new PointOfInterest(new Angle(0, 0, 0, CardinalDirection.NORTH),
+            new Angle(179, 59, 0, CardinalDirection.EAST), "east", "");
+    private static final PointOfInterest WEST = new PointOfInterest(new Angle(0, 0, 0, CardinalDirection.NORTH),
+            new Angle(179, 58, 0, CardinalDirection.WEST), "west", "");
+    private static final PointOfInterest FAR_EAST = new PointOfInterest(new Angle(0, 0, 0, CardinalDirection.NORTH),
+            new Angle(179, 0, 0, CardinalDirection.EAST), "far east", "");
+    private static final PointOfInterest GREENWICH = new PointOfInterest(new Angle(0, 0, 0, CardinalDirection.NORTH),
+            new Angle(0, 0, 0, CardinalDirection.EAST), "Greenwich", "");
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests queries of an empty index, and for no POIs.
+     */
+    @Test
+    public void emptyTest() {
+        NearestNeighbourIndex empty = new NearestNeighbourIndex(Collections.emptyList());
+        Angle zero = new Angle(0, 0, 0, CardinalDirection.NORTH);
+        assertEquals(0, empty.size());
+        assertEquals(Collections.emptyList(), empty.nearest(zero, zero, 3));
+        assertEquals(Collections.emptyList(), empty.withinRadius(zero, zero, 1e7));
+
+        NearestNeighbourIndex index = new NearestNeighbourIndex(Arrays.asList(EAST, WEST));
+        assertEquals(Collections.emptyList(), index.nearest(zero, zero, 0));
+    }
+
+    /**
+     * Tests that POIs on both sides of the antimeridian are nearest to a
+     * location on it, and that asking for more than size() POIs returns them
+     * all, nearest first.
+     */
+    @Test
+    public void antimeridianTest() {
+        NearestNeighbourIndex index = new NearestNeighbourIndex(Arrays.asList(GREENWICH, FAR_EAST, WEST, EAST));
+        Angle equator = new Angle(0, 0, 0, CardinalDirection.NORTH);
+        Angle dateline = new Angle(180, 0, 0, CardinalDirection.WEST);
+        assertEquals(Arrays.asList(EAST, WEST, FAR_EAST, GREENWICH), index.nearest(equator, dateline, 10));
+        assertEquals(Arrays.asList(EAST, WEST), index.nearest(equator, dateline, 2));
+        // 3 arc minutes of the equator is about 5.6 km
+        assertEquals(Arrays.asList(EAST, WEST), index.withinRadius(equator, dateline, 6000));
+    }
+
+    /**
+     * Tests k-nearest and radius queries against a linear scan, on random
+     * POIs with many ties: repeated locations, and locations mirrored about
+     * the equator and the prime meridian.
+     */
+    @Test
+    public void linearScanTest() {
+        Random random = new Random(6005);
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int degrees = random.nextInt(3);
+            int minutes = random.nextInt(60);
+            points.add(new PointOfInterest(
+                    new Angle(degrees, minutes, 0,
+                            random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH),
+                    new Angle(random.nextInt(3), random.nextInt(4) * 15, 0,
+                            random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST),
+                    "POI " + i, ""));
+        }
+        NearestNeighbourIndex index = new NearestNeighbourIndex(points);
+        Angle zero = new Angle(0, 0, 0, CardinalDirection.NORTH);
+        Angle meridian = new Angle(0, 0, 0, CardinalDirection.EAST);
+
+        for (int trial = 0; trial < 50; trial++) {
+            Angle latitude = trial == 0 ? zero : new Angle(random.nextInt(3), random.nextInt(60), 0,
+                    random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH);
+            Angle longitude = trial == 0 ? meridian : new Angle(random.nextInt(3), random.nextInt(60), 0,
+                    random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST);
+            double[] query = new double[3];
+            NearestNeighbourIndex.unitVector(latitude, longitude, query, 0);
+            List<Double> distances = new ArrayList<>();
+            for (PointOfInterest point : points) {
+                distances.add(squaredDistance(query, point));
+            }
+            Collections.sort(distances);
+
+            for (int k : new int[] { 1, 7, 50, points.size(), points.size() + 5 }) {
+                List<PointOfInterest> nearest = index.nearest(latitude, longitude, k);
+                assertEquals(distances.subList(0, Math.min(k, points.size())), distancesOf(query, nearest));
+                assertEquals(nearest.size(), new HashSet<>(nearest).size());
+            }
+
+            double meters = random.nextInt(300_000);
+            double chord = NearestNeighbourIndex.chordForDistance(meters);
+            Set<PointOfInterest> expected = new HashSet<>();
+            for (PointOfInterest point : points) {
+                if (squaredDistance(query, point) <= chord * chord) {
+                    expected.add(point);
+                }
+            }
+            List<PointOfInterest> within = index.withinRadius(latitude, longitude, meters);
+            assertEquals(expected, new HashSet<>(within));
+            assertEquals(expected.size(), within.size());
+            List<Double> sorted = new ArrayList<>(distancesOf(query, within));
+            Collections.sort(sorted);
+            assertEquals(sorted, distancesOf(query, within));
+        }
+    }
+
+    private static List<Double> distancesOf(double[] query, List<PointOfInterest> points) {
+        List<Double> distances = new ArrayList<>();
+        for (PointOfInterest point : points) {
+            distances.add(squaredDistance(query, point));
+        }
+        return distances;
+    }
+
+    private static double squaredDistance(double[] query, PointOfInterest point) {
+        double[] vector = new double[3];
+        NearestNeighbourIndex.unitVector(point.latitude(), point.longitude(), vector, 0);
+        double dx = query[0] - vector[0];
+        double dy = query[1] - vector[1];
+        double dz = query[2] - vector[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -0,0 +1,292 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Passes that shrink turtle drawings before they are rendered or exported.
+ *
+ * Each pass takes line segments in drawing order and returns new line
+ * segments in drawing order, without modifying its input. Coordinates are in
+ * turtle steps, which are pixels when rendered.
+ */
+public class PathSimplifier {
+
+    /** Relative tolerance for deciding that two directions are the same. */
+    private static final double COLLINEAR_EPSILON = 1e-9;
+    /** Spatial hash cells per step, for matching endpoints of duplicates. */
+    private static final double CELLS_PER_STEP = 1 << 10;
+
+    /**
+     * Simplify a turtle's drawing with every pass: drop zero-length segments,
+     * remove duplicates, merge collinear segments, and, if tolerance is
+     * positive, simplify paths with the Douglas-Peucker algorithm.
+     *
+     * @param actionList sequence of actions taken by a turtle
+     * @param tolerance farthest distance in steps that simplified paths may
+     *                  stray from the original paths, or 0 to keep their shape
+     *                  exactly; must be nonnegative
+     * @return line segments that draw the same image as the actions, up to
+     *         tolerance, in drawing order
+     */
+    public static List<LineSegment> simplify(List<Action> actionList, double tolerance) {
+        assert tolerance >= 0 : "negative tolerance";
+        final List<LineSegment> lines = new ArrayList<>();
+        for (Action action : actionList) {
+            if (action.lineSegment() != null) {
+                lines.add(action.lineSegment());
+            }
+        }
+        List<LineSegment> simplified = mergeCollinear(removeDuplicates(dropZeroLength(lines)));
+        if (tolerance > 0) {
+            simplified = douglasPeucker(simplified, tolerance);
+        }
+        return simplified;
+    }
+
+    /**
+     * Drop line segments that start and end at the same point.
+     *
+     * @param lines line segments in drawing order
+     * @return the line segments with nonzero length, in drawing order
+     */
+    public static List<LineSegment> dropZeroLength(List<LineSegment> lines) {
+        final List<LineSegment> result = new ArrayList<>(lines.size());
+        for (LineSegment lineSeg : lines) {
+            if (lineSeg.start().x() != lineSeg.end().x() || lineSeg.start().y() != lineSeg.end().y()) {
+                result.add(lineSeg);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove line segments that are drawn again later, in the same color and
+     * between the same endpoints, in either direction. Only the last time a
+     * segment is drawn is kept, so it still covers whatever was drawn over its
+     * earlier copies.
+     *
+     * Endpoints are matched by hashing them into cells of 1/1024 of a step,
+     * so endpoints that only differ by rounding error usually match. Only
+     * whole retraces are removed: a segment that partly overlaps another
+     * along the same line, such as a shorter stroke back over part of a longer
+     * one, is kept even where it is drawn over.
+     *
+     * @param lines line segments in drawing order
+     * @return the last copy of every distinct line segment, in drawing order
+     */
+    public static List<LineSegment> removeDuplicates(List<LineSegment> lines) {
+        final Map<SegmentKey, Integer> last = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            last.put(new SegmentKey(lines.get(i)), i);
+        }
+        final List<LineSegment> result = new ArrayList<>(last.size());
+        for (int i = 0; i < lines.size(); i++) {
+            if (last.get(new SegmentKey(lines.get(i))) == i) {
+                result.add(lines.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merge runs of consecutive line segments in the same color and
+     * direction, where each starts where the one before it ends, into single
+     * line segments.
+     *
+     * @param lines line segments in drawing order
+     * @return line segments that cover the same points, in drawing order
+     */
+    public static List<LineSegment> mergeCollinear(List<LineSegment> lines) {
+        final List<LineSegment> result = new ArrayList<>();
+        LineSegment current = null;
+        for (LineSegment lineSeg : lines) {
+            if (current != null && continues(current, lineSeg) && sameDirection(current, lineSeg)) {
+                current = new LineSegment(current.start(), lineSeg.end(), current.color());
+            } else {
+                if (current != null) {
+                    result.add(current);
+                }
+                current = lineSeg;
+            }
+        }
+        if (current != null) {
+            result.add(current);
+        }
+        return result;
+    }
+
+    /**
+     * Simplify paths with the Douglas-Peucker algorithm. A path is a run of
+     * consecutive line segments in the same color, where each starts where the
+     * one before it ends; each path is replaced by a path through a subset of
+     * its points, keeping its first and last points.
+     *
+     * @param lines line segments in drawing order
+     * @param tolerance farthest distance in steps that a dropped point may be
+     *                  from the simplified path; must be nonnegative
+     * @return line segments of the simplified paths, in drawing order
+     */
+    public static List<LineSegment> douglasPeucker(List<LineSegment> lines, double tolerance) {
+        assert tolerance >= 0 : "negative tolerance";
+        final List<LineSegment> result = new ArrayList<>();
+        int start = 0;
+        while (start < lines.size()) {
+            int end = start + 1;
+            while (end < lines.size() && continues(lines.get(end - 1), lines.get(end))) {
+                end++;
+            }
+            final List<Point> path = new ArrayList<>(end - start + 1);
+            path.add(lines.get(start).start());
+            for (int i = start; i < end; i++) {
+                path.add(lines.get(i).end());
+            }
+            final boolean[] keep = keptPoints(path, tolerance);
+            final PenColor color = lines.get(start).color();
+            Point from = path.get(0);
+            for (int i = 1; i < path.size(); i++) {
+                if (keep[i]) {
+                    result.add(from == path.get(i - 1) ? lines.get(start + i - 1)
+                            : new LineSegment(from, path.get(i), color));
+                    from = path.get(i);
+                }
+            }
+            start = end;
+        }
+        return result;
+    }
+
+    /*
+     * Points of a path to keep: the first and last, and recursively the point
+     * farthest from the simplified segment between two kept points, if it is
+     * farther than tolerance. Uses an explicit stack, since paths may have
+     * millions of points.
+     */
+    private static boolean[] keptPoints(List<Point> path, double tolerance) {
+        final boolean[] keep = new boolean[path.size()];
+        keep[0] = true;
+        keep[path.size() - 1] = true;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = path.size() - 1;
+        while (top > 0) {
+            final int last = stack[--top];
+            final int first = stack[--top];
+            double farthest = -1;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                final double distance = distance(path.get(i), path.get(first), path.get(last));
+                if (distance > farthest) {
+                    farthest = distance;
+                    index = i;
+                }
+            }
+            if (farthest > tolerance) {
+                keep[index] = true;
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+                stack[top++] = first;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = last;
+            }
+        }
+        return keep;
+    }
+
+    /*
+     * Distance from point p to the segment from a to b.
+     */
+    private static double distance(Point p, Point a, Point b) {
+        final double dx = b.x() - a.x();
+        final double dy = b.y() - a.y();
+        final double lengthSquared = dx * dx + dy * dy;
+        double t = 0;
+        if (lengthSquared > 0) {
+            t = Math.max(0, Math.min(1, ((p.x() - a.x()) * dx + (p.y() - a.y()) * dy) / lengthSquared));
+        }
+        return Math.hypot(p.x() - (a.x() + t * dx), p.y() - (a.y() + t * dy));
+    }
+
+    /*
+     * True iff next is the same color as previous and starts where it ends.
+     */
+    private static boolean continues(LineSegment previous, LineSegment next) {
+        return previous.color() == next.color() && previous.end().x() == next.start().x()
+                && previous.end().y() == next.start().y();
+    }
+
+    /*
+     * True iff two nonzero segments point the same way, up to rounding error.
+     */
+    private static boolean sameDirection(LineSegment a, LineSegment b) {
+        final double ax = a.end().x() - a.start().x();
+        final double ay = a.end().y() - a.start().y();
+        final double bx = b.end().x() - b.start().x();
+        final double by = b.end().y() - b.start().y();
+        final double cross = ax * by - ay * bx;
+        final double dot = ax * bx + ay * by;
+        return dot > 0 && Math.abs(cross) <= COLLINEAR_EPSILON * Math.hypot(ax, ay) * Math.hypot(bx, by);
+    }
+
+    /*
+     * Line segment identified by its color and its endpoints in spatial hash
+     * cells, without regard to direction.
+     */
+    private static class SegmentKey {
+
+        private final long x1;
+        private final long y1;
+        private final long x2;
+        private final long y2;
+        private final PenColor color;
+
+        /*
+         * Rep invariant: (x1, y1) <= (x2, y2) lexicographically.
+         */
+
+        SegmentKey(LineSegment lineSeg) {
+            final long startX = cell(lineSeg.start().x());
+            final long startY = cell(lineSeg.start().y());
+            final long endX = cell(lineSeg.end().x());
+            final long endY = cell(lineSeg.end().y());
+            final boolean ordered = startX < endX || (startX == endX && startY <= endY);
+            this.x1 = ordered ? startX : endX;
+            this.y1 = ordered ? startY : endY;
+            this.x2 = ordered ? endX : startX;
+            this.y2 = ordered ? endY : startY;
+            this.color = lineSeg.color();
+        }
+
+        private static long cell(double coordinate) {
+            return Math.round(coordinate * CELLS_PER_STEP);
+        }
+
+        @Override
+        public boolean equals(Object that) {
+            if (!(that instanceof SegmentKey)) {
+                return false;
+            }
+            final SegmentKey other = (SegmentKey) that;
+            return x1 == other.x1 && y1 == other.y1 && x2 == other.x2 && y2 == other.y2
+                    && color == other.color;
+        }
+
+        @Override
+        public int hashCode() {
+            long hash = x1;
+            hash = 31 * hash + y1;
+            hash = 31 * hash + x2;
+            hash = 31 * hash + y2;
+            return Long.hashCode(hash) * 31 + color.hashCode();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PathSimplifierTest {
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests that zero-length segments are dropped, and others kept in order.
+     */
+    @Test
+    public void dropZeroLengthTest() {
+        LineSegment first = new LineSegment(0, 0, 10, 0, PenColor.BLACK);
+        LineSegment dot = new LineSegment(10, 0, 10, 0, PenColor.RED);
+        LineSegment second = new LineSegment(10, 0, 10, 10, PenColor.BLACK);
+
+        List<LineSegment> result = PathSimplifier.dropZeroLength(Arrays.asList(first, dot, second));
+
+        assertEquals(2, result.size());
+        assertSame(first, result.get(0));
+        assertSame(second, result.get(1));
+    }
+
+    /**
+     * Tests that a segment retraced in the opposite direction is removed,
+     * keeping the last copy, which is drawn over whatever came between.
+     */
+    @Test
+    public void removeDuplicatesReversedTest() {
+        LineSegment forward = new LineSegment(0, 0, 10, 0, PenColor.BLACK);
+        LineSegment across = new LineSegment(5, -5, 5, 5, PenColor.RED);
+        LineSegment back = new LineSegment(10, 0, 0, 0, PenColor.BLACK);
+        LineSegment otherColor = new LineSegment(0, 0, 10, 0, PenColor.BLUE);
+
+        List<LineSegment> result = PathSimplifier.removeDuplicates(Arrays.asList(forward, across, back, otherColor));
+
+        assertEquals(3, result.size());
+        assertSame(across, result.get(0));
+        assertSame(back, result.get(1));
+        assertSame(otherColor, result.get(2));
+    }
+
+    /**
+     * Tests that a partial retrace along the same line is kept.
+     */
+    @Test
+    public void removeDuplicatesPartialOverlapTest() {
+        LineSegment longer = new LineSegment(0, 0, 10, 0, PenColor.BLACK);
+        LineSegment shorter = new LineSegment(10, 0, 5, 0, PenColor.BLACK);
+
+        assertEquals(2, PathSimplifier.removeDuplicates(Arrays.asList(longer, shorter)).size());
+    }
+
+    /**
+     * Tests that collinear runs are merged within a color but not across a
+     * color change.
+     */
+    @Test
+    public void mergeCollinearColorChangeTest() {
+        List<LineSegment> lines = Arrays.asList(
+                new LineSegment(0, 0, 10, 0, PenColor.BLACK),
+                new LineSegment(10, 0, 20, 0, PenColor.BLACK),
+                new LineSegment(20, 0, 30, 0, PenColor.RED),
+                new LineSegment(30, 0, 40, 0, PenColor.RED),
+                new LineSegment(40, 0, 40, 10, PenColor.RED));
+
+        List<LineSegment> result = PathSimplifier.mergeCollinear(lines);
+
+        assertEquals(3, result.size());
+        assertSegment(0, 0, 20, 0, PenColor.BLACK, result.get(0));
+        assertSegment(20, 0, 40, 0, PenColor.RED, result.get(1));
+        assertSegment(40, 0, 40, 10, PenColor.RED, result.get(2));
+    }
+
+    /**
+     * Tests Douglas-Peucker on a closed loop, whose first and last points are
+     * the same.
+     */
+    @Test
+    public void douglasPeuckerClosedLoopTest() {
+        List<LineSegment> loop = Arrays.asList(
+                new LineSegment(0, 0, 50, 0.3, PenColor.GREEN),
+                new LineSegment(50, 0.3, 100, 0, PenColor.GREEN),
+                new LineSegment(100, 0, 100, 100, PenColor.GREEN),
+                new LineSegment(100, 100, 0, 100, PenColor.GREEN),
+                new LineSegment(0, 100, 0, 0, PenColor.GREEN));
+
+        List<LineSegment> result = PathSimplifier.douglasPeucker(loop, 1.0);
+
+        assertEquals(4, result.size());
+        assertSegment(0, 0, 100, 0, PenColor.GREEN, result.get(0));
+        assertSame(loop.get(2), result.get(1));
+        assertSame(loop.get(3), result.get(2));
+        assertSame(loop.get(4), result.get(3));
+    }
+
+    /**
+     * Tests that a tolerance of 0 keeps every point of a path.
+     */
+    @Test
+    public void douglasPeuckerZeroToleranceTest() {
+        List<LineSegment> path = Arrays.asList(
+                new LineSegment(0, 0, 50, 0.3, PenColor.GREEN),
+                new LineSegment(50, 0.3, 100, 0, PenColor.GREEN));
+
+        assertEquals(path, PathSimplifier.douglasPeucker(path, 0));
+    }
+
+    private static void assertSegment(double startX, double startY, double endX, double endY, PenColor color,
+            LineSegment actual) {
+        assertEquals(startX, actual.start().x(), 1e-9);
+        assertEquals(startY, actual.start().y(), 1e-9);
+        assertEquals(endX, actual.end().x(), 1e-9);
+        assertEquals(endY, actual.end().y(), 1e-9);
+        assertEquals(color, actual.color());
+    }
+}
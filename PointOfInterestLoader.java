@@ -0,0 +1,286 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Methods for loading points of interest (POIs) from files in the format read
+ * by {@link Main#readPOIsFromFile}, one POI per line as defined by
+ * {@link Main#parsePOI}.
+ *
+ * <p>
+ * The file is memory-mapped and split into chunks at line boundaries, and the
+ * chunks are parsed in parallel. Fields are parsed in place from the mapped
+ * bytes: coordinates never become strings, and only the name and description
+ * of each POI are decoded. Lines may end with LF or CRLF. Lines that are
+ * empty or all whitespace are skipped, unlike {@link Main#parsePOI}, which
+ * rejects them; every other line must be a valid POI line.
+ */
+public class PointOfInterestLoader {
+
+    /** Target number of bytes in each chunk parsed by a single task. */
+    private static final int CHUNK_SIZE = 16 << 20;
+    /** Bytes read at a time while looking for the end of a chunk. */
+    private static final int SEARCH_SIZE = 4096;
+    /** Number of comma-separated fields on a line. */
+    private static final int FIELD_COUNT = 10;
+    private static final int MAX_LATITUDE = 90 * 3600;
+    private static final int MAX_LONGITUDE = 180 * 3600;
+
+    /**
+     * Read POIs from a file.
+     *
+     * @param file
+     *            file where each line describes a point of interest as defined
+     *            by {@link Main#parsePOI}, with a latitude of at most 90 deg
+     *            and a longitude of at most 180 deg, or is blank and skipped
+     * @return the points of interest described in file, in file order
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public static List<PointOfInterest> readPOIs(Path file) throws IOException {
+        return readPOIs(file, CHUNK_SIZE);
+    }
+
+    /*
+     * readPOIs(Path), splitting the file into chunks of about chunkSize
+     * bytes.
+     */
+    static List<PointOfInterest> readPOIs(Path file, int chunkSize) throws IOException {
+        final List<PointOfInterest> pointsOfInterest = new ArrayList<>();
+        for (PointOfInterestStore chunk : readChunks(file, chunkSize)) {
+            for (int i = 0; i < chunk.size(); i++) {
+                pointsOfInterest.add(chunk.get(i));
+            }
+        }
+        return pointsOfInterest;
+    }
+
+    /**
+     * Read POIs from a file into a columnar store.
+     *
+     * @param file
+     *            file where each line describes a point of interest as defined
+     *            by {@link Main#parsePOI}, with a latitude of at most 90 deg
+     *            and a longitude of at most 180 deg, or is blank and skipped
+     * @return a store of the points of interest described in file, numbered
+     *         in file order
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public static PointOfInterestStore readStore(Path file) throws IOException {
+        final PointOfInterestStore store = new PointOfInterestStore();
+        for (PointOfInterestStore chunk : readChunks(file, CHUNK_SIZE)) {
+            store.addAll(chunk);
+        }
+        return store;
+    }
+
+    /*
+     * Parse the chunks of a file in parallel, returning one store per chunk in
+     * file order.
+     */
+    private static List<PointOfInterestStore> readChunks(Path file, int chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final GeoMetrics.Sample sample = GeoMetrics.READ_POIS.start(channel.size());
+            try {
+                return split(channel, chunkSize).parallelStream().map(chunk -> {
+                    try {
+                        return parse(channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]));
+                    } catch (IOException ioe) {
+                        throw new UncheckedIOException(ioe);
+                    }
+                }).collect(Collectors.toList());
+            } catch (UncheckedIOException uioe) {
+                throw uioe.getCause();
+            } finally {
+                if (sample != null) {
+                    sample.stop();
+                }
+            }
+        }
+    }
+
+    /*
+     * Split a file into [start, end) byte ranges of about chunkSize bytes,
+     * each ending just after a newline or at the end of the file.
+     */
+    private static List<long[]> split(FileChannel channel, int chunkSize) throws IOException {
+        final List<long[]> chunks = new ArrayList<>();
+        final long size = channel.size();
+        final ByteBuffer search = ByteBuffer.allocate(SEARCH_SIZE);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            boolean found = end == size;
+            while (!found) {
+                search.clear();
+                final int read = channel.read(search, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                for (int i = 0; i < read && !found; i++) {
+                    end++;
+                    found = search.get(i) == '\n';
+                }
+            }
+            chunks.add(new long[] { start, end });
+            start = end;
+        }
+        return chunks;
+    }
+
+    /*
+     * Parse every line in a chunk of the file.
+     */
+    private static PointOfInterestStore parse(MappedByteBuffer bytes) {
+        final PointOfInterestStore store = new PointOfInterestStore();
+        final int[] fieldStart = new int[FIELD_COUNT];
+        final int[] fieldEnd = new int[FIELD_COUNT];
+        byte[] scratch = new byte[SEARCH_SIZE];
+        int lineStart = 0;
+        while (lineStart < bytes.limit()) {
+            // find the fields of the line
+            int fields = 0;
+            int position = lineStart;
+            fieldStart[0] = lineStart;
+            while (position < bytes.limit() && bytes.get(position) != '\n') {
+                if (bytes.get(position) == ',') {
+                    if (fields + 1 < FIELD_COUNT) {
+                        fieldEnd[fields] = position;
+                        fieldStart[fields + 1] = position + 1;
+                    }
+                    fields++;
+                }
+                position++;
+            }
+            if (fields < FIELD_COUNT) {
+                fieldEnd[fields] = position;
+            }
+            final int lineEnd = position;
+
+            if (fields == 0 && isBlank(bytes, lineStart, lineEnd)) {
+                lineStart = lineEnd + 1;
+                continue;
+            }
+            if (fields + 1 != FIELD_COUNT) {
+                throw new IllegalArgumentException("invalid POI line: " + decode(bytes, lineStart, lineEnd, null));
+            }
+            if (scratch.length < lineEnd - lineStart) {
+                scratch = new byte[lineEnd - lineStart];
+            }
+            final String name = decode(bytes, fieldStart[0], fieldEnd[0], scratch);
+            final String description = decode(bytes, fieldStart[1], fieldEnd[1], scratch);
+            final int latitude = arcSeconds(bytes, fieldStart, fieldEnd, 2, MAX_LATITUDE);
+            final CardinalDirection latitudeDirection = direction(bytes, fieldStart[5], fieldEnd[5]);
+            final int longitude = arcSeconds(bytes, fieldStart, fieldEnd, 6, MAX_LONGITUDE);
+            final CardinalDirection longitudeDirection = direction(bytes, fieldStart[9], fieldEnd[9]);
+            assert latitudeDirection == CardinalDirection.NORTH
+                    || latitudeDirection == CardinalDirection.SOUTH : "not a latitude: " + name;
+            assert longitudeDirection == CardinalDirection.EAST
+                    || longitudeDirection == CardinalDirection.WEST : "not a longitude: " + name;
+            final boolean south = latitudeDirection == CardinalDirection.SOUTH;
+            final boolean west = longitudeDirection == CardinalDirection.WEST;
+            store.add(latitude, south, longitude, west, name, description);
+            lineStart = lineEnd + 1;
+        }
+        return store;
+    }
+
+    /*
+     * Unsigned arc seconds in the degrees, minutes, and seconds fields
+     * starting at field first, which must total at most max.
+     */
+    private static int arcSeconds(ByteBuffer bytes, int[] fieldStart, int[] fieldEnd, int first, int max) {
+        final long base = 60;
+        final int degrees = parseInt(bytes, fieldStart[first], fieldEnd[first]);
+        final int minutes = parseInt(bytes, fieldStart[first + 1], fieldEnd[first + 1]);
+        final int seconds = parseInt(bytes, fieldStart[first + 2], fieldEnd[first + 2]);
+        final long arcSeconds = (degrees * base + minutes) * base + seconds;
+        if (arcSeconds > max) {
+            throw new IllegalArgumentException("angle out of range: " + degrees + " deg " + minutes + " min "
+                    + seconds + " sec");
+        }
+        return (int) arcSeconds;
+    }
+
+    /*
+     * Non-negative decimal integer in bytes [start, end), ignoring leading and
+     * trailing whitespace.
+     */
+    private static int parseInt(ByteBuffer bytes, int start, int end) {
+        start = skipLeading(bytes, start, end);
+        end = skipTrailing(bytes, start, end);
+        if (start == end) {
+            throw new NumberFormatException("empty number");
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            final int digit = bytes.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("invalid number: " + decode(bytes, start, end, null));
+            }
+            if (value > (Integer.MAX_VALUE - digit) / 10) {
+                throw new NumberFormatException("number too large: " + decode(bytes, start, end, null));
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static CardinalDirection direction(ByteBuffer bytes, int start, int end) {
+        start = skipLeading(bytes, start, end);
+        if (start == end) {
+            throw new IllegalArgumentException("missing direction letter");
+        }
+        return AngleCache.direction((char) bytes.get(start));
+    }
+
+    /*
+     * String in bytes [start, end) decoded as UTF-8, ignoring leading and
+     * trailing whitespace, using scratch as a buffer if it is not null.
+     */
+    private static String decode(ByteBuffer bytes, int start, int end, byte[] scratch) {
+        start = skipLeading(bytes, start, end);
+        end = skipTrailing(bytes, start, end);
+        final byte[] buffer = scratch != null ? scratch : new byte[end - start];
+        for (int i = start; i < end; i++) {
+            buffer[i - start] = bytes.get(i);
+        }
+        return new String(buffer, 0, end - start, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isBlank(ByteBuffer bytes, int start, int end) {
+        return skipLeading(bytes, start, end) == end;
+    }
+
+    /*
+     * Whitespace is any byte String.trim would remove.
+     */
+    private static int skipLeading(ByteBuffer bytes, int start, int end) {
+        while (start < end && (bytes.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int skipTrailing(ByteBuffer bytes, int start, int end) {
+        while (end > start && (bytes.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,151 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PointOfInterestLoaderTest {
+
+    /** Size of the chunks the loader splits files into. */
+    private static final int CHUNK_SIZE = 16 << 20;
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests LF and CRLF line endings, blank lines, and a last line without a
+     * newline, split into chunks of every size from 1 byte to longer than
+     * the file, so that every line is split across a chunk boundary.
+     */
+    @Test
+    public void chunkBoundaryTest() throws IOException {
+        Random random = new Random(6005);
+        List<String> lines = randomLines(random, 12);
+        StringBuilder text = new StringBuilder("\n");
+        for (int i = 0; i < lines.size(); i++) {
+            text.append(lines.get(i)).append(i % 2 == 0 ? "\r\n" : "\n");
+            if (i % 5 == 0) {
+                text.append("  \t\r\n\n");
+            }
+        }
+        text.append(lines.get(0));
+        List<PointOfInterest> expected = parse(lines);
+        expected.add(Main.parsePOI(lines.get(0)));
+
+        Path file = write(text.toString());
+        try {
+            for (int chunkSize = 1; chunkSize < text.length() + 10; chunkSize++) {
+                assertEquals(expected, PointOfInterestLoader.readPOIs(file, chunkSize));
+            }
+            assertEquals(expected, PointOfInterestLoader.readPOIs(file));
+            PointOfInterestStore store = PointOfInterestLoader.readStore(file);
+            assertEquals(expected.size(), store.size());
+            for (int i = 0; i < store.size(); i++) {
+                assertEquals(expected.get(i), store.get(i));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests a file of more than one 16 MB chunk, with a line split across the
+     * boundary.
+     */
+    @Test
+    public void largeFileTest() throws IOException {
+        Random random = new Random(6005);
+        List<String> lines = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        boolean split = false;
+        while (text.length() < CHUNK_SIZE + 4096) {
+            String line = randomLines(random, 1).get(0);
+            split |= text.length() < CHUNK_SIZE && text.length() + line.length() + 2 > CHUNK_SIZE;
+            lines.add(line);
+            text.append(line).append("\r\n");
+        }
+        assertTrue(split);
+        Path file = write(text.toString());
+        try {
+            assertEquals(parse(lines), PointOfInterestLoader.readPOIs(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests that angles out of range, or with components too big for an int,
+     * are rejected.
+     */
+    @Test
+    public void outOfRangeTest() throws IOException {
+        assertEquals(1, readLine("Pole, , 90, 0, 0, N, 180, 0, 0, W").size());
+        assertRejected("Past the pole, , 90, 0, 1, S, 0, 0, 0, E");
+        assertRejected("Past the antimeridian, , 0, 0, 0, N, 179, 60, 1, E");
+        assertRejected("Overflowing, , 0, 0, 0, N, 1193047, 0, 0, E");
+        assertRejected("Too big, , 0, 0, 0, N, 0, 0, 99999999999, E");
+    }
+
+    private static void assertRejected(String line) throws IOException {
+        try {
+            readLine(line);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // invalid POI line
+        }
+    }
+
+    private static List<PointOfInterest> readLine(String line) throws IOException {
+        Path file = write(line + "\n");
+        try {
+            return PointOfInterestLoader.readPOIs(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Path write(String text) throws IOException {
+        Path file = Files.createTempFile("pois", ".csv");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<PointOfInterest> parse(List<String> lines) {
+        List<PointOfInterest> points = new ArrayList<>();
+        for (String line : lines) {
+            points.add(Main.parsePOI(line));
+        }
+        return points;
+    }
+
+    /*
+     * Valid POI lines with whitespace around some fields, and non-ASCII
+     * descriptions.
+     */
+    private static List<String> randomLines(Random random, int count) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add("POI " + random.nextInt(1_000_000) + ", caf\u00e9 " + random.nextInt(100) + " ,"
+                    + random.nextInt(90) + "," + random.nextInt(60) + ", " + random.nextInt(60) + ","
+                    + (random.nextBoolean() ? "N" : " S") + "," + random.nextInt(180) + "," + random.nextInt(60)
+                    + "," + random.nextInt(60) + "," + (random.nextBoolean() ? "E" : "W "));
+        }
+        return lines;
+    }
+}
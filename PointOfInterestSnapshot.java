@@ -0,0 +1,465 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Immutable, memory-mapped binary snapshot of a set of points of interest
+ * (POIs), which can be queried as soon as it is opened, without parsing.
+ *
+ * <p>
+ * A snapshot file is big-endian and consists of:
+ * <ul>
+ * <li>a 32-byte header: magic number, format version, POI count, string
+ * count, string table size in bytes, spatial index rows (0 if there is no
+ * index), and a CRC-32 checksum of everything after the header;
+ * <li>fixed-width 16-byte POI records: signed arc seconds of latitude and
+ * longitude, and string numbers of name and description;
+ * <li>one byte of direction flags per POI, as kept by
+ * {@link PointOfInterestStore}, padded to a multiple of 4 bytes;
+ * <li>the string table: count + 1 byte offsets, then UTF-8 bytes, padded to a
+ * multiple of 4 bytes;
+ * <li>optionally, a spatial index: the cell offsets of a grid laid out like
+ * {@link SpatialIndex}, where the records are stored in cell order.
+ * </ul>
+ * Each section must be smaller than 2 GB.
+ *
+ * <p>
+ * Opening a snapshot maps its sections and checks that they fit the file, but
+ * only reads the whole file to verify its checksum if asked to.
+ */
+public class PointOfInterestSnapshot {
+
+    /** "POIS" in ASCII. */
+    private static final int MAGIC = 0x504F4953;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_INTS = 4;
+    /** Largest window mapped at once when verifying the checksum. */
+    private static final int VERIFY_WINDOW = 1 << 30;
+    /** Initial capacity of query results, which grow as needed. */
+    private static final int INITIAL_RESULT_CAPACITY = 16;
+
+    private final int size;
+    private final int stringCount;
+    private final int rows;
+    private final IntBuffer records;
+    private final ByteBuffer directions;
+    private final IntBuffer stringOffsets;
+    private final ByteBuffer stringBytes;
+    private final IntBuffer cellStart;
+
+    /*
+     * Rep invariant: records holds size * RECORD_INTS ints, directions holds
+     * size bytes, stringOffsets holds stringCount + 1 nondecreasing offsets
+     * into stringBytes; if rows > 0, cellStart holds 2 * rows * rows + 1
+     * offsets into the records, and every record in cell c lies in
+     * [cellStart[c], cellStart[c+1]); otherwise cellStart is null.
+     */
+
+    private PointOfInterestSnapshot(int size, int stringCount, int rows, IntBuffer records, ByteBuffer directions,
+            IntBuffer stringOffsets, ByteBuffer stringBytes, IntBuffer cellStart) {
+        this.size = size;
+        this.stringCount = stringCount;
+        this.rows = rows;
+        this.records = records;
+        this.directions = directions;
+        this.stringOffsets = stringOffsets;
+        this.stringBytes = stringBytes;
+        this.cellStart = cellStart;
+    }
+
+    /**
+     * Write a snapshot file.
+     *
+     * @param store
+     *            POIs to write, not modified by this method
+     * @param file
+     *            file to write, replaced if it exists
+     * @param withIndex
+     *            true to include a spatial index section; then the POIs are
+     *            numbered in grid cell order in the snapshot, rather than in
+     *            store order
+     * @throws IOException
+     *             if the file cannot be written, or the strings of the store
+     *             take more than 2 GB as UTF-8
+     */
+    public static void write(PointOfInterestStore store, Path file, boolean withIndex) throws IOException {
+        final int size = store.size();
+        final int rows = withIndex ? SpatialIndex.rowsFor(size) : 0;
+
+        // order of the POIs in the file, and the cell offsets if indexed
+        final int[] order = new int[size];
+        int[] cells = null;
+        if (withIndex) {
+            final int columns = 2 * rows;
+            cells = new int[rows * columns + 1];
+            final int[] cellOf = new int[size];
+            for (int i = 0; i < size; i++) {
+                cellOf[i] = SpatialIndex.row(store.latitude(i), rows) * columns
+                        + SpatialIndex.column(store.longitude(i), columns);
+                cells[cellOf[i] + 1]++;
+            }
+            for (int c = 0; c + 1 < cells.length; c++) {
+                cells[c + 1] += cells[c];
+            }
+            final int[] next = Arrays.copyOf(cells, cells.length - 1);
+            for (int i = 0; i < size; i++) {
+                order[next[cellOf[i]]++] = i;
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+        }
+
+        final byte[][] strings = new byte[store.stringCount()][];
+        long stringTableSize = 0;
+        for (int id = 0; id < strings.length; id++) {
+            strings[id] = store.string(id).getBytes(StandardCharsets.UTF_8);
+            stringTableSize += strings[id].length;
+            if (stringTableSize > Integer.MAX_VALUE) {
+                throw new IOException("string table larger than 2 GB: " + file);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            final CRC32 checksum = new CRC32();
+            final OutputStream channelStream = Channels.newOutputStream(channel);
+            final DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(channelStream), checksum));
+            for (int i : order) {
+                out.writeInt(store.latitude(i));
+                out.writeInt(store.longitude(i));
+                out.writeInt(store.nameId(i));
+                out.writeInt(store.descriptionId(i));
+            }
+            for (int i : order) {
+                out.writeByte(store.directions(i));
+            }
+            pad(out, size);
+            int offset = 0;
+            for (byte[] string : strings) {
+                out.writeInt(offset);
+                offset += string.length;
+            }
+            out.writeInt(offset);
+            for (byte[] string : strings) {
+                out.write(string);
+            }
+            pad(out, stringTableSize);
+            if (withIndex) {
+                for (int start : cells) {
+                    out.writeInt(start);
+                }
+            }
+            out.flush();
+
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(strings.length).putInt((int) stringTableSize)
+                    .putInt(rows).putLong(checksum.getValue());
+            header.flip();
+            channel.write(header, 0);
+        }
+    }
+
+    /**
+     * Open a snapshot file without verifying its checksum, in time that does
+     * not depend on the size of the file.
+     *
+     * @param file
+     *            snapshot file written by {@link #write}
+     * @return the snapshot in file
+     * @throws IOException
+     *             if the file cannot be read, or is not a snapshot file of a
+     *             supported version, or its sections do not fit the file
+     */
+    public static PointOfInterestSnapshot open(Path file) throws IOException {
+        return open(file, false);
+    }
+
+    /**
+     * Open a snapshot file.
+     *
+     * @param file
+     *            snapshot file written by {@link #write}
+     * @param verifyChecksum
+     *            true to read the whole file and check it against the
+     *            checksum in its header
+     * @return the snapshot in file
+     * @throws IOException
+     *             if the file cannot be read, or is not a snapshot file of a
+     *             supported version, or its sections do not fit the file, or
+     *             verifyChecksum is true and its checksum does not match
+     */
+    public static PointOfInterestSnapshot open(Path file, boolean verifyChecksum) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("not a POI snapshot: " + file);
+            }
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("not a POI snapshot: " + file);
+            }
+            final int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported POI snapshot version " + version + ": " + file);
+            }
+            final int size = header.getInt();
+            final int stringCount = header.getInt();
+            final int stringTableSize = header.getInt();
+            final int rows = header.getInt();
+            final long expectedChecksum = header.getLong();
+            if (size < 0 || stringCount < 0 || stringTableSize < 0 || rows < 0) {
+                throw new IOException("corrupt POI snapshot header: " + file);
+            }
+
+            long position = HEADER_SIZE;
+            final ByteBuffer records = map(channel, position, (long) size * RECORD_INTS * Integer.BYTES);
+            position += records.capacity();
+            final ByteBuffer directions = map(channel, position, size);
+            position += padded(size);
+            final ByteBuffer offsets = map(channel, position, ((long) stringCount + 1) * Integer.BYTES);
+            position += offsets.capacity();
+            final ByteBuffer stringBytes = map(channel, position, stringTableSize);
+            position += padded(stringTableSize);
+            IntBuffer cellStart = null;
+            if (rows > 0) {
+                final ByteBuffer cells = map(channel, position, (2L * rows * rows + 1) * Integer.BYTES);
+                position += cells.capacity();
+                cellStart = cells.asIntBuffer();
+            }
+            if (position != channel.size()) {
+                throw new IOException("truncated or oversized POI snapshot: " + file);
+            }
+            if (verifyChecksum && checksum(channel, HEADER_SIZE, position - HEADER_SIZE) != expectedChecksum) {
+                throw new IOException("POI snapshot checksum mismatch: " + file);
+            }
+            return new PointOfInterestSnapshot(size, stringCount, rows, records.asIntBuffer(), directions,
+                    offsets.asIntBuffer(), stringBytes, cellStart);
+        }
+    }
+
+    /**
+     * @return number of POIs in this snapshot
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true iff this snapshot has a spatial index section
+     */
+    public boolean hasIndex() {
+        return rows > 0;
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this snapshot
+     * @return latitude of the POI in signed arc seconds, where north is
+     *         positive
+     */
+    public int latitude(int index) {
+        return records.get(index * RECORD_INTS);
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this snapshot
+     * @return longitude of the POI in signed arc seconds, where east is
+     *         positive
+     */
+    public int longitude(int index) {
+        return records.get(index * RECORD_INTS + 1);
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this snapshot
+     * @return nonempty name of the POI
+     */
+    public String name(int index) {
+        return string(records.get(index * RECORD_INTS + 2));
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this snapshot
+     * @return possibly-empty description of the POI
+     */
+    public String description(int index) {
+        return string(records.get(index * RECORD_INTS + 3));
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this snapshot
+     * @return the POI
+     */
+    public PointOfInterest get(int index) {
+        final byte flags = directions.get(index);
+        final Angle latitude = AngleCache.canonical(Math.abs(latitude(index)),
+                (flags & PointOfInterestStore.SOUTH) != 0 ? CardinalDirection.SOUTH : CardinalDirection.NORTH);
+        final Angle longitude = AngleCache.canonical(Math.abs(longitude(index)),
+                (flags & PointOfInterestStore.WEST) != 0 ? CardinalDirection.WEST : CardinalDirection.EAST);
+        return new PointOfInterest(latitude, longitude, name(index), description(index));
+    }
+
+    /**
+     * Copy this snapshot into a columnar store, for use with the store
+     * overloads of {@link Bounds} and {@link Mapping}.
+     *
+     * @return a store of the POIs in this snapshot, with the same numbering
+     */
+    public PointOfInterestStore toStore() {
+        final String[] strings = new String[stringCount];
+        final PointOfInterestStore store = new PointOfInterestStore();
+        for (int i = 0; i < size; i++) {
+            final int name = records.get(i * RECORD_INTS + 2);
+            final int description = records.get(i * RECORD_INTS + 3);
+            if (strings[name] == null) {
+                strings[name] = string(name);
+            }
+            if (strings[description] == null) {
+                strings[description] = string(description);
+            }
+            final byte flags = directions.get(i);
+            store.add(Math.abs(latitude(i)), (flags & PointOfInterestStore.SOUTH) != 0, Math.abs(longitude(i)),
+                    (flags & PointOfInterestStore.WEST) != 0, strings[name], strings[description]);
+        }
+        return store;
+    }
+
+    /**
+     * Find POIs of this snapshot in a latitude-longitude bounding rectangle,
+     * with the same result as {@link Bounds#inBoundingBox(PointOfInterestStore,
+     * List)} on {@link #toStore()}. Uses the spatial index section if there is
+     * one.
+     *
+     * @param bounds
+     *            a latitude-longitude bounding rectangle as defined in the
+     *            documentation for {@link Bounds}, not modified by this method
+     * @return in increasing order, the numbers of all and only the POIs in this
+     *         snapshot that are contained in the given bounding rectangle
+     */
+    public int[] inBoundingBox(List<Angle> bounds) {
+        final int north = Angular.toArcSeconds(bounds.get(0));
+        final int east = Angular.toArcSeconds(bounds.get(1));
+        final int south = Angular.toArcSeconds(bounds.get(2));
+        final int west = Angular.toArcSeconds(bounds.get(3));
+        int[] found = new int[Math.min(size, INITIAL_RESULT_CAPACITY)];
+        int count = 0;
+        if (rows == 0) {
+            for (int i = 0; i < size; i++) {
+                if (contains(i, north, east, south, west)) {
+                    found = append(found, count++, i);
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+        if (south > north) {
+            return new int[0];
+        }
+
+        // visit only the grid columns that the longitude range can touch,
+        // including both edge columns for 180 deg
+        final int columns = 2 * rows;
+        final boolean[] visit = new boolean[columns];
+        if (west <= east) {
+            Arrays.fill(visit, SpatialIndex.column(west, columns), SpatialIndex.column(east, columns) + 1, true);
+        } else {
+            Arrays.fill(visit, SpatialIndex.column(west, columns), columns, true);
+            Arrays.fill(visit, 0, SpatialIndex.column(east, columns) + 1, true);
+        }
+        visit[0] |= east == Bounds.MAX_LONGITUDE;
+        visit[columns - 1] |= west == -Bounds.MAX_LONGITUDE;
+
+        final int lastRow = SpatialIndex.row(north, rows);
+        for (int r = SpatialIndex.row(south, rows); r <= lastRow; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (!visit[c]) {
+                    continue;
+                }
+                final int cell = r * columns + c;
+                for (int i = cellStart.get(cell); i < cellStart.get(cell + 1); i++) {
+                    if (contains(i, north, east, south, west)) {
+                        found = append(found, count++, i);
+                    }
+                }
+            }
+        }
+        final int[] result = Arrays.copyOf(found, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private boolean contains(int index, int north, int east, int south, int west) {
+        final int latitude = latitude(index);
+        return latitude <= north && latitude >= south && Bounds.containsLongitude(longitude(index), west, east);
+    }
+
+    /*
+     * Store value at found[count], growing found if it is full.
+     */
+    private static int[] append(int[] found, int count, int value) {
+        if (count == found.length) {
+            found = Arrays.copyOf(found, Math.max(INITIAL_RESULT_CAPACITY, 2 * count));
+        }
+        found[count] = value;
+        return found;
+    }
+
+    private String string(int id) {
+        final int start = stringOffsets.get(id);
+        final byte[] bytes = new byte[stringOffsets.get(id + 1) - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = stringBytes.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        if (length > Integer.MAX_VALUE || position + length > channel.size()) {
+            throw new IOException("corrupt POI snapshot section at " + position);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    private static long checksum(FileChannel channel, long position, long length) throws IOException {
+        final CRC32 checksum = new CRC32();
+        for (long done = 0; done < length; done += VERIFY_WINDOW) {
+            checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position + done,
+                    Math.min(VERIFY_WINDOW, length - done)));
+        }
+        return checksum.getValue();
+    }
+
+    private static long padded(long length) {
+        return (length + Integer.BYTES - 1) / Integer.BYTES * Integer.BYTES;
+    }
+
+    private static void pad(DataOutputStream out, long length) throws IOException {
+        for (long i = length; i < padded(length); i++) {
+            out.writeByte(0);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class PointOfInterestSnapshotTest {
+
+    private static final List<PointOfInterest> POINTS = Arrays.asList(
+            new PointOfInterest(new Angle(42, 21, 42, CardinalDirection.NORTH),
+                    new Angle(71, 5, 26, CardinalDirection.WEST), "Stata", "Stata Center"),
+            new PointOfInterest(new Angle(0, 0, 0, CardinalDirection.NORTH),
+                    new Angle(0, 0, 0, CardinalDirection.EAST), "Null Island", ""),
+            new PointOfInterest(new Angle(0, 0, 0, CardinalDirection.SOUTH),
+                    new Angle(0, 0, 0, CardinalDirection.WEST), "Null Island", "south west"),
+            new PointOfInterest(new Angle(17, 42, 48, CardinalDirection.SOUTH),
+                    new Angle(180, 0, 0, CardinalDirection.EAST), "Dateline", "east"),
+            new PointOfInterest(new Angle(17, 42, 48, CardinalDirection.SOUTH),
+                    new Angle(180, 0, 0, CardinalDirection.WEST), "Dateline", "west \u00e9"));
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests writing and opening a snapshot without an index, which keeps the
+     * store's numbering and every direction, including 0 deg S/W and 180 deg
+     * E/W.
+     */
+    @Test
+    public void roundTripTest() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".poi");
+        try {
+            PointOfInterestSnapshot.write(PointOfInterestStore.of(POINTS), file, false);
+            PointOfInterestSnapshot snapshot = PointOfInterestSnapshot.open(file, true);
+
+            assertFalse(snapshot.hasIndex());
+            assertEquals(POINTS.size(), snapshot.size());
+            for (int i = 0; i < POINTS.size(); i++) {
+                assertEquals(POINTS.get(i), snapshot.get(i));
+            }
+            assertEquals(POINTS.size(), snapshot.toStore().size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests writing and opening a snapshot with an index, and querying it
+     * like Bounds.
+     */
+    @Test
+    public void roundTripIndexTest() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".poi");
+        try {
+            PointOfInterestSnapshot.write(PointOfInterestStore.of(POINTS), file, true);
+            PointOfInterestSnapshot snapshot = PointOfInterestSnapshot.open(file, true);
+
+            assertTrue(snapshot.hasIndex());
+            Set<PointOfInterest> read = new HashSet<>();
+            for (int i = 0; i < snapshot.size(); i++) {
+                read.add(snapshot.get(i));
+            }
+            assertEquals(new HashSet<>(POINTS), read);
+
+            List<Angle> dateline = Arrays.asList(new Angle(0, 0, 0, CardinalDirection.NORTH),
+                    new Angle(179, 0, 0, CardinalDirection.WEST), new Angle(20, 0, 0, CardinalDirection.SOUTH),
+                    new Angle(179, 0, 0, CardinalDirection.EAST));
+            assertEquals(Bounds.inBoundingBox(new HashSet<>(POINTS), dateline), points(snapshot,
+                    snapshot.inBoundingBox(dateline)));
+            assertEquals(Bounds.inBoundingBox(new HashSet<>(POINTS), Main.CAMBRIDGE_AREA), points(snapshot,
+                    snapshot.inBoundingBox(Main.CAMBRIDGE_AREA)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests that a flipped byte is only caught when the checksum is verified.
+     */
+    @Test
+    public void checksumTest() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".poi");
+        try {
+            PointOfInterestSnapshot.write(PointOfInterestStore.of(POINTS), file, true);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer b = ByteBuffer.allocate(1);
+                channel.read(b, 40);
+                b.put(0, (byte) (b.get(0) ^ 1));
+                b.rewind();
+                channel.write(b, 40);
+            }
+            PointOfInterestSnapshot.open(file);
+            try {
+                PointOfInterestSnapshot.open(file, true);
+                fail("expected IOException");
+            } catch (IOException expected) {
+                // checksum mismatch
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests that truncated files and corrupt headers are reported as
+     * IOException.
+     */
+    @Test
+    public void corruptFileTest() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".poi");
+        try {
+            PointOfInterestSnapshot.write(PointOfInterestStore.of(POINTS), file, true);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 4);
+            }
+            assertOpenFails(file);
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(10);
+            }
+            assertOpenFails(file);
+
+            PointOfInterestSnapshot.write(PointOfInterestStore.of(POINTS), file, false);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                // negative string count
+                channel.write(ByteBuffer.allocate(4).putInt(0, -5), 12);
+            }
+            assertOpenFails(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void assertOpenFails(Path file) {
+        try {
+            PointOfInterestSnapshot.open(file);
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // corrupt file
+        }
+    }
+
+    private static Set<PointOfInterest> points(PointOfInterestSnapshot snapshot, int[] indices) {
+        Set<PointOfInterest> result = new HashSet<>();
+        for (int i : indices) {
+            result.add(snapshot.get(i));
+        }
+        return result;
+    }
+}
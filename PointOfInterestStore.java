@@ -0,0 +1,300 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mutable, append-only, columnar store of points of interest (POIs).
+ *
+ * <p>
+ * Each POI is kept as signed arc second coordinates in parallel primitive
+ * arrays, with its name and description interned in a shared string table,
+ * instead of as a {@link PointOfInterest} object holding two {@link Angle}
+ * objects. The POIs of a store are numbered from 0 in the order they were
+ * added, and {@link Bounds} and {@link Mapping} have overloads that work on
+ * those numbers directly.
+ *
+ * <p>
+ * A store is not safe for use by multiple threads while POIs are being added.
+ */
+public class PointOfInterestStore {
+
+    /** Direction flag for a latitude measured south. */
+    static final byte SOUTH = 1;
+    /** Direction flag for a longitude measured west. */
+    static final byte WEST = 2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size;
+    private int[] latitudes;
+    private int[] longitudes;
+    private byte[] directions;
+    private int[] names;
+    private int[] descriptions;
+    private final List<String> strings;
+    private final Map<String, Integer> stringIds;
+
+    /*
+     * Rep invariant: 0 <= size <= length of every array, and for every POI i <
+     * size: latitudes[i] and longitudes[i] are valid signed arc seconds for
+     * latitude and longitude, negative only if directions[i] has the SOUTH or
+     * WEST flag respectively; names[i] and descriptions[i] index strings;
+     * strings has no repeats and stringIds maps each of them to its index.
+     */
+
+    /**
+     * Make a new empty store.
+     */
+    public PointOfInterestStore() {
+        this.latitudes = new int[INITIAL_CAPACITY];
+        this.longitudes = new int[INITIAL_CAPACITY];
+        this.directions = new byte[INITIAL_CAPACITY];
+        this.names = new int[INITIAL_CAPACITY];
+        this.descriptions = new int[INITIAL_CAPACITY];
+        this.strings = new ArrayList<>();
+        this.stringIds = new HashMap<>();
+    }
+
+    /**
+     * Make a new store holding some POIs.
+     *
+     * @param pointsOfInterest
+     *            POIs to add, in iteration order, not modified by this method
+     * @return a store of pointsOfInterest
+     */
+    public static PointOfInterestStore of(Collection<PointOfInterest> pointsOfInterest) {
+        final PointOfInterestStore store = new PointOfInterestStore();
+        for (PointOfInterest point : pointsOfInterest) {
+            store.add(point);
+        }
+        return store;
+    }
+
+    /**
+     * Add a POI to this store.
+     *
+     * @param point
+     *            POI to add
+     * @return the number of the new POI in this store
+     */
+    public int add(PointOfInterest point) {
+        return add(Math.abs(Angular.toArcSeconds(point.latitude())),
+                point.latitude().direction() == CardinalDirection.SOUTH,
+                Math.abs(Angular.toArcSeconds(point.longitude())),
+                point.longitude().direction() == CardinalDirection.WEST, point.name(), point.description());
+    }
+
+    /**
+     * Add a POI to this store.
+     *
+     * @param latitude
+     *            arc seconds of latitude, at most 90 degrees
+     * @param south
+     *            true if the latitude is measured south, false if north
+     * @param longitude
+     *            arc seconds of longitude, at most 180 degrees
+     * @param west
+     *            true if the longitude is measured west, false if east
+     * @param name
+     *            nonempty name of the POI
+     * @param description
+     *            description of the POI
+     * @return the number of the new POI in this store
+     */
+    public int add(int latitude, boolean south, int longitude, boolean west, String name, String description) {
+        assert latitude >= 0 && latitude <= 90 * 3600 : "invalid latitude: " + latitude;
+        assert longitude >= 0 && longitude <= 180 * 3600 : "invalid longitude: " + longitude;
+        assert !name.isEmpty() : "empty name";
+        return append(south ? -latitude : latitude, west ? -longitude : longitude,
+                (byte) ((south ? SOUTH : 0) | (west ? WEST : 0)), intern(name), intern(description));
+    }
+
+    /**
+     * Add all the POIs of another store to this store, numbered after the POIs
+     * already in this store, in the order of the other store.
+     *
+     * @param other
+     *            store of POIs to add, not modified by this method unless it is
+     *            this store
+     */
+    public void addAll(PointOfInterestStore other) {
+        // look up each distinct string of the other store only once
+        final int[] ids = new int[other.stringCount()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = intern(other.string(id));
+        }
+        final int count = other.size();
+        for (int i = 0; i < count; i++) {
+            append(other.latitudes[i], other.longitudes[i], other.directions[i], ids[other.names[i]],
+                    ids[other.descriptions[i]]);
+        }
+    }
+
+    /**
+     * @return number of POIs in this store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this store
+     * @return latitude of the POI in signed arc seconds, where north is
+     *         positive
+     */
+    public int latitude(int index) {
+        checkIndex(index);
+        return latitudes[index];
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this store
+     * @return longitude of the POI in signed arc seconds, where east is
+     *         positive
+     */
+    public int longitude(int index) {
+        checkIndex(index);
+        return longitudes[index];
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this store
+     * @return latitude of the POI
+     */
+    public Angle latitudeAngle(int index) {
+        checkIndex(index);
+        return AngleCache.canonical(Math.abs(latitudes[index]),
+                (directions[index] & SOUTH) != 0 ? CardinalDirection.SOUTH : CardinalDirection.NORTH);
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this store
+     * @return longitude of the POI
+     */
+    public Angle longitudeAngle(int index) {
+        checkIndex(index);
+        return AngleCache.canonical(Math.abs(longitudes[index]),
+                (directions[index] & WEST) != 0 ? CardinalDirection.WEST : CardinalDirection.EAST);
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this store
+     * @return nonempty name of the POI
+     */
+    public String name(int index) {
+        return strings.get(nameId(index));
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this store
+     * @return possibly-empty description of the POI
+     */
+    public String description(int index) {
+        return strings.get(descriptionId(index));
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this store
+     * @return number of the POI's name in the string table of this store;
+     *         POIs have the same name iff they have the same name number
+     */
+    public int nameId(int index) {
+        checkIndex(index);
+        return names[index];
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this store
+     * @return number of the POI's description in the string table of this
+     *         store; POIs have the same description iff they have the same
+     *         description number
+     */
+    public int descriptionId(int index) {
+        checkIndex(index);
+        return descriptions[index];
+    }
+
+    /*
+     * Direction flags of a POI, which tell apart 0 deg N & S and 0 deg E & W,
+     * and 180 deg E & W. POIs have the same latitude and longitude Angles iff
+     * they have the same coordinates and the same flags.
+     */
+    int directions(int index) {
+        checkIndex(index);
+        return directions[index];
+    }
+
+    /**
+     * @return number of distinct names and descriptions in this store
+     */
+    public int stringCount() {
+        return strings.size();
+    }
+
+    /**
+     * @param id
+     *            number of a string in the string table of this store
+     * @return the string
+     */
+    public String string(int id) {
+        return strings.get(id);
+    }
+
+    /**
+     * @param index
+     *            number of a POI in this store
+     * @return the POI
+     */
+    public PointOfInterest get(int index) {
+        return new PointOfInterest(latitudeAngle(index), longitudeAngle(index), name(index), description(index));
+    }
+
+    private int append(int latitude, int longitude, byte direction, int name, int description) {
+        if (size == latitudes.length) {
+            final int capacity = 2 * size;
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            directions = Arrays.copyOf(directions, capacity);
+            names = Arrays.copyOf(names, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+        }
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        directions[size] = direction;
+        names[size] = name;
+        descriptions[size] = description;
+        return size++;
+    }
+
+    private int intern(String string) {
+        final Integer id = stringIds.get(string);
+        if (id != null) {
+            return id;
+        }
+        strings.add(string);
+        stringIds.put(string, strings.size() - 1);
+        return strings.size() - 1;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PointOfInterestStoreTest {
+
+    private static final PointOfInterest STATA = new PointOfInterest(new Angle(42, 21, 42, CardinalDirection.NORTH),
+            new Angle(71, 5, 26, CardinalDirection.WEST), "Stata", "Stata Center");
+    private static final PointOfInterest NULL_ISLAND = new PointOfInterest(
+            new Angle(0, 0, 0, CardinalDirection.SOUTH), new Angle(0, 0, 0, CardinalDirection.WEST), "Null Island",
+            "");
+    private static final PointOfInterest DATELINE = new PointOfInterest(
+            new Angle(17, 42, 48, CardinalDirection.SOUTH), new Angle(180, 0, 0, CardinalDirection.WEST), "Stata",
+            "Stata");
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests that POIs come back equal, with their directions, signed
+     * coordinates, and shared strings.
+     */
+    @Test
+    public void addGetTest() {
+        PointOfInterestStore store = new PointOfInterestStore();
+        assertEquals(0, store.add(STATA));
+        assertEquals(1, store.add(NULL_ISLAND));
+        assertEquals(2, store.add(DATELINE));
+
+        assertEquals(3, store.size());
+        assertEquals(STATA, store.get(0));
+        assertEquals(NULL_ISLAND, store.get(1));
+        assertEquals(DATELINE, store.get(2));
+        assertEquals(42 * 3600 + 21 * 60 + 42, store.latitude(0));
+        assertEquals(-(71 * 3600 + 5 * 60 + 26), store.longitude(0));
+        assertEquals(0, store.latitude(1));
+        assertEquals(new Angle(0, 0, 0, CardinalDirection.SOUTH), store.latitudeAngle(1));
+        assertEquals(new Angle(0, 0, 0, CardinalDirection.WEST), store.longitudeAngle(1));
+        assertEquals(-180 * 3600, store.longitude(2));
+        assertEquals(new Angle(180, 0, 0, CardinalDirection.WEST), store.longitudeAngle(2));
+
+        // "Stata" is a name twice and a description once
+        assertEquals(store.nameId(0), store.nameId(2));
+        assertEquals(store.nameId(0), store.descriptionId(2));
+        assertEquals("Stata", store.string(store.nameId(0)));
+        assertEquals("Stata Center", store.description(0));
+        assertEquals(4, store.stringCount());
+    }
+
+    /**
+     * Tests a store that grows well past its initial capacity, against the
+     * list it was made from.
+     */
+    @Test
+    public void growthTest() {
+        Random random = new Random(6005);
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            points.add(new PointOfInterest(
+                    new Angle(random.nextInt(90), random.nextInt(60), random.nextInt(60),
+                            random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH),
+                    new Angle(random.nextInt(180), random.nextInt(60), random.nextInt(60),
+                            random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST),
+                    "POI " + random.nextInt(50), "description " + random.nextInt(20)));
+        }
+        PointOfInterestStore store = PointOfInterestStore.of(points);
+        assertEquals(points.size(), store.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(points.get(i), store.get(i));
+            assertEquals(Angular.toArcSeconds(points.get(i).latitude()), store.latitude(i));
+            assertEquals(Angular.toArcSeconds(points.get(i).longitude()), store.longitude(i));
+        }
+        assertTrue(store.stringCount() <= 70);
+    }
+
+    /**
+     * Tests adding the POIs of another store, and of the store itself.
+     */
+    @Test
+    public void addAllTest() {
+        PointOfInterestStore store = PointOfInterestStore.of(Arrays.asList(STATA, NULL_ISLAND));
+        PointOfInterestStore other = PointOfInterestStore.of(Arrays.asList(DATELINE, STATA));
+        store.addAll(other);
+        assertEquals(Arrays.asList(STATA, NULL_ISLAND, DATELINE, STATA), points(store));
+        assertEquals(4, store.stringCount());
+        assertEquals(store.nameId(0), store.nameId(3));
+
+        store.addAll(store);
+        assertEquals(Arrays.asList(STATA, NULL_ISLAND, DATELINE, STATA, STATA, NULL_ISLAND, DATELINE, STATA),
+                points(store));
+        assertEquals(Arrays.asList(DATELINE, STATA), points(other));
+    }
+
+    private static List<PointOfInterest> points(PointOfInterestStore store) {
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < store.size(); i++) {
+            points.add(store.get(i));
+        }
+        return points;
+    }
+}
@@ -0,0 +1,333 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.image.BufferedImage;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import javax.swing.SwingUtilities;
+
+import turtle.Action.ActionType;
+
+/**
+ * Turtle that records its drawing compactly, for drawings with many millions
+ * of steps.
+ *
+ * Moves the same way as {@link DrawableTurtle}, but keeps its path in
+ * growable primitive arrays instead of one Action, LineSegment, two Points and
+ * a display string per step: each action takes one opcode byte and one double,
+ * and each line segment one more point and a color byte. Actions, segments
+ * and display strings are only made when they are asked for.
+ */
+public class RecordingTurtle implements Turtle {
+
+    private static final int CANVAS_WIDTH = 512;
+    private static final int CANVAS_HEIGHT = 512;
+
+    private static final byte FORWARD = 0;
+    private static final byte TURN = 1;
+    /** Opcode of changing to a color is COLOR + the color's ordinal. */
+    private static final byte COLOR = 2;
+    private static final PenColor[] COLORS = PenColor.values();
+
+    /** Actions between checkpoints of the number of segments drawn. */
+    private static final int CHECKPOINT_SHIFT = 6;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private byte[] opcodes;
+    private double[] operands;
+    private int actionCount;
+
+    private int[] checkpoints;
+
+    private double[] points;
+    private byte[] segmentColors;
+    private int segmentCount;
+
+    private double currentHeading;
+    private PenColor currentColor;
+
+    /*
+     * Rep invariant:
+     *   action i, for 0 <= i < actionCount, is opcodes[i], with operands[i]
+     *     the steps moved by FORWARD or the normalized degrees turned by TURN
+     *   checkpoints[k] is the number of FORWARD opcodes before action
+     *     k << CHECKPOINT_SHIFT, for every such action up to actionCount
+     *   point p, for 0 <= p <= segmentCount, is (points[2p], points[2p+1]);
+     *     point 0 is the origin, and segment s goes from point s to point s+1
+     *     in color COLORS[segmentColors[s]]
+     *   segmentCount is the number of FORWARD opcodes
+     *   currentColor is the color of the last COLOR opcode, or BLACK if none
+     */
+
+    /**
+     * Create a new turtle for recording a drawing.
+     */
+    public RecordingTurtle() {
+        this.opcodes = new byte[INITIAL_CAPACITY];
+        this.operands = new double[INITIAL_CAPACITY];
+        this.checkpoints = new int[1];
+        this.points = new double[2 * INITIAL_CAPACITY];
+        this.segmentColors = new byte[INITIAL_CAPACITY];
+        this.currentHeading = 0.0;
+        this.currentColor = PenColor.BLACK;
+    }
+
+    public void forward(int steps) {
+        final double x = points[2 * segmentCount];
+        final double y = points[2 * segmentCount + 1];
+        final double newX = x + TurtleMotion.deltaX(currentHeading, steps);
+        final double newY = y + TurtleMotion.deltaY(currentHeading, steps);
+
+        if (2 * segmentCount + 3 >= points.length) {
+            points = Arrays.copyOf(points, grow(points.length));
+            segmentColors = Arrays.copyOf(segmentColors, points.length / 2);
+        }
+        segmentColors[segmentCount] = (byte) currentColor.ordinal();
+        segmentCount++;
+        points[2 * segmentCount] = newX;
+        points[2 * segmentCount + 1] = newY;
+
+        record(FORWARD, steps);
+    }
+
+    public void turn(double degrees) {
+        degrees = TurtleMotion.clockwise(degrees);
+        this.currentHeading = TurtleMotion.turn(this.currentHeading, degrees);
+        record(TURN, degrees);
+    }
+
+    public void color(PenColor color) {
+        this.currentColor = color;
+        record((byte) (COLOR + color.ordinal()), 0);
+    }
+
+    /**
+     * Draw the image created by this turtle in a window on the screen.
+     */
+    public void draw() {
+        final List<Action> actionList = actions();
+        SwingUtilities.invokeLater(() -> {
+            (new TurtleGUI(actionList, CANVAS_WIDTH, CANVAS_HEIGHT)).setVisible(true);
+        });
+    }
+
+    /**
+     * Render the image created by this turtle, without a window or animation.
+     * Works in headless environments.
+     *
+     * @return new image of the drawing, as it appears at the end of draw()
+     */
+    public BufferedImage render() {
+        return new TurtleRenderer(CANVAS_WIDTH, CANVAS_HEIGHT).renderSegments(segments());
+    }
+
+    /**
+     * @return number of actions taken by this turtle so far
+     */
+    public int actionCount() {
+        return actionCount;
+    }
+
+    /**
+     * @return number of line segments drawn by this turtle so far, one for
+     *         each forward action
+     */
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * @param index index of a point, 0 <= index <= segmentCount()
+     * @return x-coordinate of the turtle's position after its index'th
+     *         forward action, or of its starting position if index is 0
+     */
+    public double x(int index) {
+        assert index >= 0 && index <= segmentCount : "no such point: " + index;
+        return points[2 * index];
+    }
+
+    /**
+     * @param index index of a point, 0 <= index <= segmentCount()
+     * @return y-coordinate of the turtle's position after its index'th
+     *         forward action, or of its starting position if index is 0
+     */
+    public double y(int index) {
+        assert index >= 0 && index <= segmentCount : "no such point: " + index;
+        return points[2 * index + 1];
+    }
+
+    /**
+     * @param index index of a line segment, 0 <= index < segmentCount()
+     * @return color of that line segment, which goes from point index to
+     *         point index + 1
+     */
+    public PenColor segmentColor(int index) {
+        assert index >= 0 && index < segmentCount : "no such segment: " + index;
+        return COLORS[segmentColors[index]];
+    }
+
+    /**
+     * @param index index of an action, 0 <= index < actionCount()
+     * @return type of that action
+     */
+    public ActionType actionType(int index) {
+        assert index >= 0 && index < actionCount : "no such action: " + index;
+        switch (opcodes[index]) {
+        case FORWARD:
+            return ActionType.FORWARD;
+        case TURN:
+            return ActionType.TURN;
+        default:
+            return ActionType.COLOR;
+        }
+    }
+
+    /**
+     * @param index index of an action, 0 <= index < actionCount()
+     * @return text that describes that action, the same as DrawableTurtle's
+     */
+    public String describe(int index) {
+        assert index >= 0 && index < actionCount : "no such action: " + index;
+        switch (opcodes[index]) {
+        case FORWARD:
+            return "forward " + (int) operands[index] + " steps";
+        case TURN:
+            return "turn " + operands[index] + " degrees";
+        default:
+            return "change to " + COLORS[opcodes[index] - COLOR].toString().toLowerCase();
+        }
+    }
+
+    /**
+     * @param index index of a line segment, 0 <= index < segmentCount()
+     * @return new line segment drawn by the turtle's index'th forward action
+     */
+    public LineSegment segment(int index) {
+        assert index >= 0 && index < segmentCount : "no such segment: " + index;
+        return new LineSegment(points[2 * index], points[2 * index + 1], points[2 * index + 2],
+                points[2 * index + 3], COLORS[segmentColors[index]]);
+    }
+
+    /**
+     * @return unmodifiable view of the actions taken by this turtle so far, in
+     *         order; actions are made as they are read, so reading one twice
+     *         gives equal but distinct objects
+     */
+    public List<Action> actions() {
+        return new Actions();
+    }
+
+    /**
+     * @return unmodifiable view of the line segments drawn by this turtle so
+     *         far, in order; segments are made as they are read
+     */
+    public List<LineSegment> segments() {
+        return new Segments();
+    }
+
+    /*
+     * Append an action, growing the arrays as needed.
+     */
+    private void record(byte opcode, double operand) {
+        if (actionCount == opcodes.length) {
+            opcodes = Arrays.copyOf(opcodes, grow(opcodes.length));
+            operands = Arrays.copyOf(operands, opcodes.length);
+        }
+        if ((actionCount & ((1 << CHECKPOINT_SHIFT) - 1)) == 0) {
+            final int checkpoint = actionCount >> CHECKPOINT_SHIFT;
+            if (checkpoint == checkpoints.length) {
+                checkpoints = Arrays.copyOf(checkpoints, grow(checkpoints.length));
+            }
+            // segmentCount already counts this action if it is a forward
+            checkpoints[checkpoint] = opcode == FORWARD ? segmentCount - 1 : segmentCount;
+        }
+        opcodes[actionCount] = opcode;
+        operands[actionCount] = operand;
+        actionCount++;
+    }
+
+    /*
+     * Index of the segment drawn by action index, which is a forward.
+     */
+    private int segmentOf(int index) {
+        int segment = checkpoints[index >> CHECKPOINT_SHIFT];
+        for (int i = index & ~((1 << CHECKPOINT_SHIFT) - 1); i < index; i++) {
+            if (opcodes[i] == FORWARD) {
+                segment++;
+            }
+        }
+        return segment;
+    }
+
+    private static int grow(int capacity) {
+        if (capacity >= Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("turtle recording too large");
+        }
+        return (int) Math.min(Integer.MAX_VALUE - 8, capacity * 2L);
+    }
+
+    private class Actions extends AbstractList<Action> implements RandomAccess {
+
+        private final int size = actionCount;
+
+        @Override
+        public Action get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("no such action: " + index);
+            }
+            final ActionType type = actionType(index);
+            final LineSegment lineSeg = type == ActionType.FORWARD ? segment(segmentOf(index)) : null;
+            return new LazyAction(type, index, lineSeg);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private class Segments extends AbstractList<LineSegment> implements RandomAccess {
+
+        private final int size = segmentCount;
+
+        @Override
+        public LineSegment get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("no such segment: " + index);
+            }
+            return segment(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /*
+     * Action whose display string is made when it is first shown.
+     */
+    private class LazyAction extends Action {
+
+        private final int index;
+        private String displayString;
+
+        LazyAction(ActionType type, int index, LineSegment lineSeg) {
+            super(type, null, lineSeg);
+            this.index = index;
+        }
+
+        @Override
+        public String toString() {
+            if (displayString == null) {
+                displayString = describe(index);
+            }
+            return displayString;
+        }
+    }
+}
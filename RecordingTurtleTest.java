@@ -0,0 +1,113 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RecordingTurtleTest {
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests that a program replayed on a DrawableTurtle and a RecordingTurtle
+     * gives the same actions, across many checkpoints, read in order and out
+     * of order.
+     */
+    @Test
+    public void replayTest() {
+        DrawableTurtle drawable = new DrawableTurtle();
+        RecordingTurtle recording = new RecordingTurtle();
+        run(drawable);
+        run(recording);
+
+        List<Action> expected = drawable.actions();
+        List<Action> actual = recording.actions();
+        assertEquals(expected.size(), actual.size());
+        assertTrue(actual.size() > 64 * 4);
+        for (int i = 0; i < expected.size(); i++) {
+            assertAction(expected.get(i), actual.get(i));
+        }
+        // from the end backwards, so segment numbers come from checkpoints
+        for (int i = expected.size() - 1; i >= 0; i -= 7) {
+            assertAction(expected.get(i), actual.get(i));
+        }
+    }
+
+    /**
+     * Tests that the segments of a RecordingTurtle are the line segments of
+     * the same program's actions on a DrawableTurtle.
+     */
+    @Test
+    public void segmentsTest() {
+        DrawableTurtle drawable = new DrawableTurtle();
+        RecordingTurtle recording = new RecordingTurtle();
+        run(drawable);
+        run(recording);
+
+        List<LineSegment> expected = new ArrayList<>();
+        for (Action action : drawable.actions()) {
+            if (action.lineSegment() != null) {
+                expected.add(action.lineSegment());
+            }
+        }
+        List<LineSegment> actual = recording.segments();
+        assertEquals(expected.size(), recording.segmentCount());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSegment(expected.get(i), actual.get(i));
+        }
+    }
+
+    /*
+     * A fixed pseudo-random program of forward moves, turns (including
+     * negative and more than a full circle), and color changes.
+     */
+    private static void run(Turtle turtle) {
+        Random random = new Random(6005);
+        PenColor[] colors = PenColor.values();
+        for (int i = 0; i < 300; i++) {
+            switch (random.nextInt(4)) {
+            case 0:
+                turtle.color(colors[random.nextInt(colors.length)]);
+                break;
+            case 1:
+                turtle.turn(random.nextDouble() * 1000 - 500);
+                break;
+            default:
+                turtle.forward(random.nextInt(50));
+                break;
+            }
+        }
+    }
+
+    private static void assertAction(Action expected, Action actual) {
+        assertEquals(expected.type(), actual.type());
+        assertEquals(expected.toString(), actual.toString());
+        if (expected.lineSegment() == null) {
+            assertNull(actual.lineSegment());
+        } else {
+            assertSegment(expected.lineSegment(), actual.lineSegment());
+        }
+    }
+
+    private static void assertSegment(LineSegment expected, LineSegment actual) {
+        assertEquals(expected.start().x(), actual.start().x(), 0.0);
+        assertEquals(expected.start().y(), actual.start().y(), 0.0);
+        assertEquals(expected.end().x(), actual.end().x(), 0.0);
+        assertEquals(expected.end().y(), actual.end().y(), 0.0);
+        assertEquals(expected.color(), actual.color());
+    }
+}
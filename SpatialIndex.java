@@ -0,0 +1,183 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable latitude-longitude grid index over a set of points of interest
+ * (POIs), answering the same bounding rectangle queries as
+ * {@link Bounds#inBoundingBox} without scanning every POI.
+ *
+ * <p>
+ * The globe is divided into a fixed grid of cells sized from the number of
+ * POIs. A query only visits the cells that overlap the rectangle, and only
+ * compares coordinates for POIs in cells on its boundary, so the cost of a
+ * query is proportional to the size of its result plus the number of cells
+ * on its border. Rectangles that span the antimeridian are split into two
+ * column ranges, and 180 deg E & W are treated as the same longitude.
+ */
+public class SpatialIndex {
+
+    /** Average number of POIs per grid cell the index aims for. */
+    private static final int POINTS_PER_CELL = 4;
+    /** Upper bound on grid rows, keeps the offset table bounded. */
+    private static final int MAX_ROWS = 2048;
+
+    private static final int MAX_LATITUDE = 90 * 3600;
+    private static final int MAX_LONGITUDE = 180 * 3600;
+
+    private final int rows;
+    private final int columns;
+    private final int[] cellStart;
+    private final int[] latitudes;
+    private final int[] longitudes;
+    private final PointOfInterest[] points;
+
+    /*
+     * Rep invariant: rows >= 1, columns == 2 * rows, cellStart.length == rows
+     * * columns + 1, cellStart is nondecreasing from 0 to points.length, and
+     * the POIs of cell c are points[cellStart[c] .. cellStart[c+1]), with
+     * signed arc second coordinates latitudes[i], longitudes[i] that fall in
+     * that cell. latitudes, longitudes, points have the same length.
+     */
+
+    /**
+     * Build an index over a set of POIs.
+     *
+     * @param pointsOfInterest
+     *            set of POIs, not modified by this method
+     */
+    public SpatialIndex(Set<PointOfInterest> pointsOfInterest) {
+        final int size = pointsOfInterest.size();
+        this.rows = rowsFor(size);
+        this.columns = 2 * rows;
+        this.cellStart = new int[rows * columns + 1];
+        this.latitudes = new int[size];
+        this.longitudes = new int[size];
+        this.points = new PointOfInterest[size];
+
+        // counting sort of the POIs by cell
+        final PointOfInterest[] input = pointsOfInterest.toArray(new PointOfInterest[size]);
+        final int[] cellOf = new int[size];
+        for (int i = 0; i < size; i++) {
+            cellOf[i] = cell(row(Angular.toArcSeconds(input[i].latitude())),
+                    column(Angular.toArcSeconds(input[i].longitude())));
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < rows * columns; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        final int[] next = new int[rows * columns];
+        System.arraycopy(cellStart, 0, next, 0, next.length);
+        for (int i = 0; i < size; i++) {
+            final int slot = next[cellOf[i]]++;
+            points[slot] = input[i];
+            latitudes[slot] = Angular.toArcSeconds(input[i].latitude());
+            longitudes[slot] = Angular.toArcSeconds(input[i].longitude());
+        }
+    }
+
+    /**
+     * @return number of POIs in this index
+     */
+    public int size() {
+        return points.length;
+    }
+
+    /**
+     * Find indexed POIs in a latitude-longitude bounding rectangle.
+     *
+     * @param bounds
+     *            a latitude-longitude bounding rectangle as defined in the
+     *            documentation for {@link Bounds}, not modified by this method
+     * @return all and only the indexed POIs that are contained in the given
+     *         bounding rectangle
+     */
+    public Set<PointOfInterest> inBoundingBox(List<Angle> bounds) {
+        final int north = Angular.toArcSeconds(bounds.get(0));
+        final int east = Angular.toArcSeconds(bounds.get(1));
+        final int south = Angular.toArcSeconds(bounds.get(2));
+        final int west = Angular.toArcSeconds(bounds.get(3));
+        final Set<PointOfInterest> result = new HashSet<>();
+        if (south > north) {
+            return result;
+        }
+        final int firstRow = row(south);
+        final int lastRow = row(north);
+        if (west <= east) {
+            collect(result, firstRow, lastRow, column(west), column(east), south, north, west, east);
+            // 180 W is the same longitude as 180 E, but they sit in opposite
+            // edge columns of the grid
+            if (east == MAX_LONGITUDE && west > -MAX_LONGITUDE) {
+                collect(result, firstRow, lastRow, 0, 0, south, north, -MAX_LONGITUDE, -MAX_LONGITUDE);
+            }
+            if (west == -MAX_LONGITUDE && east < MAX_LONGITUDE) {
+                collect(result, firstRow, lastRow, columns - 1, columns - 1, south, north, MAX_LONGITUDE,
+                        MAX_LONGITUDE);
+            }
+        } else {
+            // the rectangle spans the antimeridian
+            collect(result, firstRow, lastRow, column(west), columns - 1, south, north, west, MAX_LONGITUDE);
+            collect(result, firstRow, lastRow, 0, column(east), south, north, -MAX_LONGITUDE, east);
+        }
+        return result;
+    }
+
+    /*
+     * Add to result every POI in rows firstRow..lastRow and columns
+     * firstColumn..lastColumn whose coordinates are within [south, north] and
+     * [west, east]. Coordinates are only compared for cells on the border of
+     * the range; interior cells are copied wholesale.
+     */
+    private void collect(Set<PointOfInterest> result, int firstRow, int lastRow, int firstColumn, int lastColumn,
+            int south, int north, int west, int east) {
+        for (int r = firstRow; r <= lastRow; r++) {
+            final boolean rowBorder = r == firstRow || r == lastRow;
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                final int cell = cell(r, c);
+                final boolean border = rowBorder || c == firstColumn || c == lastColumn;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    if (!border || (latitudes[i] >= south && latitudes[i] <= north && longitudes[i] >= west
+                            && longitudes[i] <= east)) {
+                        result.add(points[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private int row(int latitude) {
+        return row(latitude, rows);
+    }
+
+    private int column(int longitude) {
+        return column(longitude, columns);
+    }
+
+    /*
+     * The grid layout is shared with the index section of
+     * PointOfInterestSnapshot: a grid for size POIs has rowsFor(size) rows and
+     * twice as many columns.
+     */
+
+    static int rowsFor(int size) {
+        final int r = (int) Math.sqrt(size / (2.0 * POINTS_PER_CELL));
+        return Math.max(1, Math.min(MAX_ROWS, r));
+    }
+
+    static int row(int latitude, int rows) {
+        return (int) ((long) (latitude + MAX_LATITUDE) * rows / (2 * MAX_LATITUDE + 1));
+    }
+
+    static int column(int longitude, int columns) {
+        return (int) ((long) (longitude + MAX_LONGITUDE) * columns / (2 * MAX_LONGITUDE + 1));
+    }
+
+    private int cell(int row, int column) {
+        return row * columns + column;
+    }
+}
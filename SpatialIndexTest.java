@@ -0,0 +1,80 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SpatialIndexTest {
+
+    private static final PointOfInterest STATA = new PointOfInterest(new Angle(42, 21, 42, CardinalDirection.NORTH),
+            new Angle(71, 5, 26, CardinalDirection.WEST), "Stata", "");
+    private static final PointOfInterest FIJI = new PointOfInterest(new Angle(17, 42, 48, CardinalDirection.SOUTH),
+            new Angle(178, 3, 0, CardinalDirection.EAST), "Fiji", "");
+    private static final PointOfInterest SAMOA = new PointOfInterest(new Angle(13, 45, 34, CardinalDirection.SOUTH),
+            new Angle(172, 6, 15, CardinalDirection.WEST), "Samoa", "");
+    private static final PointOfInterest DATELINE = new PointOfInterest(new Angle(0, 0, 0, CardinalDirection.NORTH),
+            new Angle(180, 0, 0, CardinalDirection.WEST), "Dateline", "");
+
+    private static final Set<PointOfInterest> ALL = new HashSet<>(Arrays.asList(STATA, FIJI, SAMOA, DATELINE));
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests a query on an empty index.
+     */
+    @Test
+    public void inBoundingBoxEmptyTest() {
+        SpatialIndex index = new SpatialIndex(Collections.emptySet());
+        assertEquals(0, index.size());
+        assertTrue(index.inBoundingBox(Main.CAMBRIDGE_AREA).isEmpty());
+    }
+
+    /**
+     * Tests a rectangle that does not span the antimeridian.
+     */
+    @Test
+    public void inBoundingBoxSimpleTest() {
+        SpatialIndex index = new SpatialIndex(ALL);
+        assertEquals(Collections.singleton(STATA), index.inBoundingBox(Main.CAMBRIDGE_AREA));
+        assertEquals(Bounds.inBoundingBox(ALL, Main.CAMBRIDGE_AREA), index.inBoundingBox(Main.CAMBRIDGE_AREA));
+    }
+
+    /**
+     * Tests a rectangle that spans the antimeridian.
+     */
+    @Test
+    public void inBoundingBoxWrapTest() {
+        SpatialIndex index = new SpatialIndex(ALL);
+        List<Angle> pacific = Arrays.asList(new Angle(1, 0, 0, CardinalDirection.NORTH),
+                new Angle(170, 0, 0, CardinalDirection.WEST), new Angle(20, 0, 0, CardinalDirection.SOUTH),
+                new Angle(175, 0, 0, CardinalDirection.EAST));
+        assertEquals(new HashSet<>(Arrays.asList(FIJI, SAMOA, DATELINE)), index.inBoundingBox(pacific));
+    }
+
+    /**
+     * Tests that 180 deg W is inside a rectangle bounded by 180 deg E.
+     */
+    @Test
+    public void inBoundingBoxAntimeridianTest() {
+        SpatialIndex index = new SpatialIndex(ALL);
+        List<Angle> eastOfFiji = Arrays.asList(new Angle(1, 0, 0, CardinalDirection.NORTH),
+                new Angle(180, 0, 0, CardinalDirection.EAST), new Angle(20, 0, 0, CardinalDirection.SOUTH),
+                new Angle(178, 0, 0, CardinalDirection.EAST));
+        assertEquals(new HashSet<>(Arrays.asList(FIJI, DATELINE)), index.inBoundingBox(eastOfFiji));
+    }
+}
@@ -0,0 +1,220 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Methods for joining two collections of points of interest (POIs) on their
+ * locations, finding every pair of a POI from each collection that is close
+ * together.
+ *
+ * <p>
+ * Both collections are sorted by Z-order key, as in {@link ZOrderIndex}. The
+ * left collection is partitioned into runs of POIs that share a Z-order cell,
+ * and the partitions are joined in parallel on the common fork/join pool:
+ * each partition is widened by the join distance, covered by a few ranges of
+ * keys, and matched against the POIs of the right collection in those ranges.
+ * Matched pairs are passed to a callback as they are found, rather than
+ * collected, so memory does not grow with the number of pairs.
+ */
+public class SpatialJoin {
+
+    private static final int MAX_LATITUDE = 90 * 3600;
+    private static final int MAX_LONGITUDE = 180 * 3600;
+    private static final double ARC_SECONDS_PER_RADIAN = 180 * 3600 / Math.PI;
+    /** Most key ranges a widened partition is covered by. */
+    private static final int MAX_RANGES = 16;
+    /** Finest Z-order level used to partition the left collection. */
+    private static final int MAX_LEVEL = 16;
+
+    /**
+     * Find every pair of POIs within a distance of each other.
+     *
+     * @param left
+     *            POIs, not modified by this method
+     * @param right
+     *            POIs, not modified by this method
+     * @param meters
+     *            greatest great-circle distance between the POIs of a pair,
+     *            as measured by
+     *            {@link NearestNeighbourIndex#greatCircleDistance}; must be
+     *            nonnegative
+     * @param pairs
+     *            called once with (l, r) for every POI l in left and r in right
+     *            no more than meters apart; may be called concurrently from
+     *            several threads, in no particular order
+     * @return number of pairs found
+     */
+    public static long withinDistance(Collection<PointOfInterest> left, Collection<PointOfInterest> right,
+            double meters, BiConsumer<PointOfInterest, PointOfInterest> pairs) {
+        assert meters >= 0 : "negative distance";
+        final ZOrderIndex leftIndex = new ZOrderIndex(left);
+        final ZOrderIndex rightIndex = new ZOrderIndex(right);
+        final double[] leftVectors = unitVectors(leftIndex);
+        final double[] rightVectors = unitVectors(rightIndex);
+        final double maxChord = NearestNeighbourIndex.chordForDistance(meters);
+        final double radians = Math.min(Math.PI, meters / NearestNeighbourIndex.EARTH_RADIUS_METERS);
+        // one arc second of slack for rounding
+        final int reach = (int) Math.min(2 * MAX_LONGITUDE, Math.ceil(radians * ARC_SECONDS_PER_RADIAN) + 1);
+
+        // partition cells about as tall as the reach, so each partition only
+        // needs its neighbouring cells
+        int level = 1;
+        while (level < MAX_LEVEL && (1 << (ZOrderIndex.BITS - level - 1)) >= reach) {
+            level++;
+        }
+        final int[] partitions = partitions(leftIndex, level);
+        final LongAdder found = new LongAdder();
+        IntStream.range(0, partitions.length - 1).parallel().forEach(p -> {
+            final int from = partitions[p];
+            final int to = partitions[p + 1];
+            final long[] ranges = ZOrderIndex.ranges(window(leftIndex, from, to, reach, radians), MAX_RANGES);
+            long count = 0;
+            for (int r = 0; r < ranges.length; r += 2) {
+                final int first = rightIndex.lowerBound(ranges[r]);
+                for (int j = first; j < rightIndex.size() && rightIndex.keyAt(j) <= ranges[r + 1]; j++) {
+                    for (int i = from; i < to; i++) {
+                        if (chord(leftVectors, i, rightVectors, j) <= maxChord) {
+                            pairs.accept(leftIndex.pointAt(i), rightIndex.pointAt(j));
+                            count++;
+                        }
+                    }
+                }
+            }
+            found.add(count);
+        });
+        return found.sum();
+    }
+
+    /**
+     * Find every pair of POIs in the same Z-order cell.
+     *
+     * @param left
+     *            POIs, not modified by this method
+     * @param right
+     *            POIs, not modified by this method
+     * @param level
+     *            level of the cells, from 0 (the whole globe) to 21 (one arc
+     *            second of latitude and longitude); a cell at level L spans
+     *            2^(21 - L) arc seconds of latitude and of longitude
+     * @param pairs
+     *            called once with (l, r) for every POI l in left and r in right
+     *            whose keys agree in the first L bits of latitude and of
+     *            longitude; may be called concurrently from several threads,
+     *            in no particular order
+     * @return number of pairs found
+     */
+    public static long sameCell(Collection<PointOfInterest> left, Collection<PointOfInterest> right, int level,
+            BiConsumer<PointOfInterest, PointOfInterest> pairs) {
+        assert level >= 0 && level <= ZOrderIndex.BITS : "invalid level: " + level;
+        final ZOrderIndex leftIndex = new ZOrderIndex(left);
+        final ZOrderIndex rightIndex = new ZOrderIndex(right);
+        final int[] partitions = partitions(leftIndex, level);
+        final LongAdder found = new LongAdder();
+        IntStream.range(0, partitions.length - 1).parallel().forEach(p -> {
+            final int from = partitions[p];
+            final int to = partitions[p + 1];
+            final long cell = cell(leftIndex.keyAt(from), level);
+            // the cell's keys are a run starting at its lowest key
+            final long low = level == 0 ? 0 : cell << (2 * (ZOrderIndex.BITS - level));
+            long count = 0;
+            for (int j = rightIndex.lowerBound(low); j < rightIndex.size()
+                    && cell(rightIndex.keyAt(j), level) == cell; j++) {
+                for (int i = from; i < to; i++) {
+                    pairs.accept(leftIndex.pointAt(i), rightIndex.pointAt(j));
+                    count++;
+                }
+            }
+            found.add(count);
+        });
+        return found.sum();
+    }
+
+    /*
+     * Boundaries of the runs of positions in index whose keys share a cell at
+     * level: run k is [result[k], result[k+1]).
+     */
+    private static int[] partitions(ZOrderIndex index, int level) {
+        final List<Integer> starts = new ArrayList<>();
+        for (int i = 0; i < index.size(); i++) {
+            if (i == 0 || cell(index.keyAt(i), level) != cell(index.keyAt(i - 1), level)) {
+                starts.add(i);
+            }
+        }
+        starts.add(index.size());
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /*
+     * Bounding rectangle of the locations within radians of the locations at
+     * positions [from, to) of index, which all lie in one cell.
+     */
+    private static List<Angle> window(ZOrderIndex index, int from, int to, int reach, double radians) {
+        int north = -MAX_LATITUDE;
+        int south = MAX_LATITUDE;
+        int east = -MAX_LONGITUDE;
+        int west = MAX_LONGITUDE;
+        for (int i = from; i < to; i++) {
+            north = Math.max(north, index.latitudeAt(i));
+            south = Math.min(south, index.latitudeAt(i));
+            east = Math.max(east, index.longitudeAt(i));
+            west = Math.min(west, index.longitudeAt(i));
+        }
+
+        // a circle of angular radius d around latitude phi spans at most
+        // asin(sin d / cos phi) of longitude either way, if it misses the pole
+        final double farthest = Math.toRadians(Angular.toDegrees(Math.max(Math.abs(north), Math.abs(south))));
+        final double sine = Math.sin(radians) / Math.cos(farthest);
+        final boolean allLongitudes = north + reach >= MAX_LATITUDE || south - reach <= -MAX_LATITUDE
+                || radians >= Math.PI / 2 || sine >= 1;
+        int spread = 0;
+        if (!allLongitudes) {
+            spread = (int) Math.ceil(Math.asin(sine) * ARC_SECONDS_PER_RADIAN) + 1;
+        }
+        if (allLongitudes || (east - west) + 2L * spread >= 2 * MAX_LONGITUDE) {
+            west = -MAX_LONGITUDE;
+            east = MAX_LONGITUDE;
+        } else {
+            west = Angular.normalizeLongitude(west - spread);
+            east = Angular.normalizeLongitude(east + spread);
+        }
+        north = Math.min(MAX_LATITUDE, north + reach);
+        south = Math.max(-MAX_LATITUDE, south - reach);
+        return Arrays.asList(Bounds.angle(north, CardinalDirection.NORTH, CardinalDirection.SOUTH),
+                Bounds.angle(east, CardinalDirection.EAST, CardinalDirection.WEST),
+                Bounds.angle(south, CardinalDirection.NORTH, CardinalDirection.SOUTH),
+                Bounds.angle(west, CardinalDirection.EAST, CardinalDirection.WEST));
+    }
+
+    /*
+     * Cell at level of a Z-order key: the key without its low 2 * (BITS -
+     * level) bits.
+     */
+    private static long cell(long key, int level) {
+        return level == 0 ? 0 : key >>> (2 * (ZOrderIndex.BITS - level));
+    }
+
+    private static double[] unitVectors(ZOrderIndex index) {
+        final double[] vectors = new double[3 * index.size()];
+        for (int i = 0; i < index.size(); i++) {
+            final PointOfInterest point = index.pointAt(i);
+            NearestNeighbourIndex.unitVector(point.latitude(), point.longitude(), vectors, 3 * i);
+        }
+        return vectors;
+    }
+
+    private static double chord(double[] vectors1, int index1, double[] vectors2, int index2) {
+        final double dx = vectors1[3 * index1] - vectors2[3 * index2];
+        final double dy = vectors1[3 * index1 + 1] - vectors2[3 * index2 + 1];
+        final double dz = vectors1[3 * index1 + 2] - vectors2[3 * index2 + 2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
@@ -0,0 +1,143 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SpatialJoinTest {
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests small random joins around the globe against a nested loop, at
+     * distances from zero to half way round the Earth.
+     */
+    @Test
+    public void randomTest() {
+        Random random = new Random(6005);
+        List<PointOfInterest> left = randomPoints(random, "left", 150, 0, 90, 0, 180);
+        List<PointOfInterest> right = randomPoints(random, "right", 150, 0, 90, 0, 180);
+        // a pair at distance zero
+        right.add(new PointOfInterest(left.get(0).latitude(), left.get(0).longitude(), "right copy", ""));
+        for (double meters : new double[] { 0, 1000, 500_000, 3_000_000, 20_100_000 }) {
+            assertJoin(left, right, meters);
+        }
+    }
+
+    /**
+     * Tests joins of POIs clustered on both sides of the antimeridian.
+     */
+    @Test
+    public void antimeridianTest() {
+        Random random = new Random(6005);
+        List<PointOfInterest> left = randomPoints(random, "left", 150, 0, 10, 179, 180);
+        List<PointOfInterest> right = randomPoints(random, "right", 150, 0, 10, 179, 180);
+        for (double meters : new double[] { 5000, 50_000, 200_000 }) {
+            assertJoin(left, right, meters);
+        }
+    }
+
+    /**
+     * Tests joins of POIs near the poles, where a short distance spans many
+     * degrees of longitude.
+     */
+    @Test
+    public void polarTest() {
+        Random random = new Random(6005);
+        List<PointOfInterest> left = randomPoints(random, "left", 150, 88, 90, 0, 180);
+        List<PointOfInterest> right = randomPoints(random, "right", 150, 88, 90, 0, 180);
+        for (double meters : new double[] { 5000, 50_000, 300_000 }) {
+            assertJoin(left, right, meters);
+        }
+    }
+
+    /**
+     * Tests a pair exactly at the join distance, across the antimeridian.
+     */
+    @Test
+    public void exactDistanceTest() {
+        PointOfInterest east = new PointOfInterest(new Angle(0, 0, 0, CardinalDirection.NORTH),
+                new Angle(179, 59, 55, CardinalDirection.EAST), "east", "");
+        PointOfInterest west = new PointOfInterest(new Angle(0, 0, 0, CardinalDirection.NORTH),
+                new Angle(179, 59, 55, CardinalDirection.WEST), "west", "");
+        List<PointOfInterest> left = Collections.singletonList(east);
+        List<PointOfInterest> right = Collections.singletonList(west);
+        double meters = NearestNeighbourIndex.greatCircleDistance(east.latitude(), east.longitude(),
+                west.latitude(), west.longitude());
+
+        assertEquals(1, SpatialJoin.withinDistance(left, right, meters * (1 + 1e-9), (l, r) -> { }));
+        assertEquals(0, SpatialJoin.withinDistance(left, right, meters * (1 - 1e-6), (l, r) -> { }));
+        assertJoin(left, right, meters);
+    }
+
+    /*
+     * Assert that withinDistance finds the same pairs as a nested loop that
+     * compares the same chord distances, each pair once.
+     */
+    private static void assertJoin(List<PointOfInterest> left, List<PointOfInterest> right, double meters) {
+        Set<List<PointOfInterest>> expected = new HashSet<>();
+        double maxChord = NearestNeighbourIndex.chordForDistance(meters);
+        for (PointOfInterest l : left) {
+            for (PointOfInterest r : right) {
+                if (chord(l, r) <= maxChord) {
+                    expected.add(pair(l, r));
+                }
+            }
+        }
+        Set<List<PointOfInterest>> found = Collections.synchronizedSet(new HashSet<>());
+        long count = SpatialJoin.withinDistance(left, right, meters, (l, r) -> found.add(pair(l, r)));
+        assertEquals(expected, found);
+        assertEquals(expected.size(), count);
+    }
+
+    private static double chord(PointOfInterest a, PointOfInterest b) {
+        double[] vectors = new double[6];
+        NearestNeighbourIndex.unitVector(a.latitude(), a.longitude(), vectors, 0);
+        NearestNeighbourIndex.unitVector(b.latitude(), b.longitude(), vectors, 3);
+        double dx = vectors[0] - vectors[3];
+        double dy = vectors[1] - vectors[4];
+        double dz = vectors[2] - vectors[5];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private static List<PointOfInterest> pair(PointOfInterest l, PointOfInterest r) {
+        List<PointOfInterest> pair = new ArrayList<>();
+        pair.add(l);
+        pair.add(r);
+        return pair;
+    }
+
+    /*
+     * POIs with latitudes in [minLatitude, maxLatitude) degrees north or south
+     * and longitudes in [minLongitude, maxLongitude) degrees east or west.
+     */
+    private static List<PointOfInterest> randomPoints(Random random, String prefix, int size, int minLatitude,
+            int maxLatitude, int minLongitude, int maxLongitude) {
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Angle latitude = new Angle(minLatitude + random.nextInt(maxLatitude - minLatitude), random.nextInt(60),
+                    random.nextInt(60), random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH);
+            Angle longitude = new Angle(minLongitude + random.nextInt(maxLongitude - minLongitude),
+                    random.nextInt(60), random.nextInt(60),
+                    random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST);
+            points.add(new PointOfInterest(latitude, longitude, prefix + " " + i, ""));
+        }
+        return points;
+    }
+}
@@ -0,0 +1,92 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Turtle that streams its drawing to an SVG document as it moves.
+ *
+ * Moves the same way as {@link DrawableTurtle}, but keeps nothing but its
+ * position, heading and color, and the polyline being written by its
+ * {@link SvgWriter}, so drawings with millions of steps take constant memory.
+ */
+public class SvgTurtle implements Turtle {
+
+    private static final int CANVAS_WIDTH = 512;
+    private static final int CANVAS_HEIGHT = 512;
+
+    private final SvgWriter svg;
+
+    private double currentX;
+    private double currentY;
+    private double currentHeading;
+    private PenColor currentColor;
+
+    /**
+     * Create a new turtle for drawing on a 512 x 512 SVG canvas.
+     *
+     * @param out stream to write the document to; closed by draw()
+     * @throws IOException if the document cannot be written
+     */
+    public SvgTurtle(OutputStream out) throws IOException {
+        this(out, CANVAS_WIDTH, CANVAS_HEIGHT);
+    }
+
+    /**
+     * Create a new turtle for drawing on an SVG canvas.
+     *
+     * @param out stream to write the document to; closed by draw()
+     * @param canvasWidth canvas width in pixels, must be positive
+     * @param canvasHeight canvas height in pixels, must be positive
+     * @throws IOException if the document cannot be written
+     */
+    public SvgTurtle(OutputStream out, int canvasWidth, int canvasHeight) throws IOException {
+        this.svg = new SvgWriter(out, canvasWidth, canvasHeight);
+        this.currentX = 0;
+        this.currentY = 0;
+        this.currentHeading = 0.0;
+        this.currentColor = PenColor.BLACK;
+    }
+
+    /**
+     * @throws UncheckedIOException if the document cannot be written
+     */
+    public void forward(int steps) {
+        double newX = currentX + TurtleMotion.deltaX(currentHeading, steps);
+        double newY = currentY + TurtleMotion.deltaY(currentHeading, steps);
+        try {
+            svg.add(currentX, currentY, newX, newY, currentColor);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        this.currentX = newX;
+        this.currentY = newY;
+    }
+
+    public void turn(double degrees) {
+        degrees = TurtleMotion.clockwise(degrees);
+        this.currentHeading = TurtleMotion.turn(this.currentHeading, degrees);
+    }
+
+    public void color(PenColor color) {
+        this.currentColor = color;
+    }
+
+    /**
+     * Finish the SVG document and close its stream. The turtle cannot draw
+     * after that.
+     *
+     * @throws UncheckedIOException if the document cannot be written
+     */
+    public void draw() {
+        try {
+            svg.close();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+}
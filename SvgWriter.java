@@ -0,0 +1,224 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.Color;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streams turtle drawings to an SVG document.
+ *
+ * Line segments are written as they are added, using the same canvas layout
+ * and colors as {@link TurtleRenderer}. Runs of consecutive segments in the
+ * same color, where each starts where the one before it ends, become a
+ * single polyline element. Only the points of the current polyline are kept,
+ * and long runs are split, so memory stays bounded however many segments are
+ * written.
+ */
+public class SvgWriter implements Closeable {
+
+    /** Most points buffered in one polyline before it is written. */
+    private static final int MAX_POLYLINE_POINTS = 1024;
+    /** Coordinates are written rounded to this many decimal places. */
+    private static final int DECIMALS = 2;
+    private static final long SCALE = 100;
+
+    private final Writer out;
+    private final int originX;
+    private final int originY;
+
+    private final double[] points = new double[2 * MAX_POLYLINE_POINTS];
+    private int pointCount;
+    private PenColor polylineColor;
+    private boolean closed;
+
+    /*
+     * Rep invariant: the current polyline is points[0 .. 2 * pointCount) as
+     * (x, y) pairs in SVG coordinates, drawn in polylineColor; pointCount is
+     * 0 or at least 2.
+     */
+
+    /**
+     * Start an SVG document of a given size, with the turtle's origin at the
+     * center.
+     *
+     * @param out stream to write the document to, as UTF-8; closed by close()
+     * @param canvasWidth canvas width in pixels, must be positive
+     * @param canvasHeight canvas height in pixels, must be positive
+     * @throws IOException if the document cannot be written
+     */
+    public SvgWriter(OutputStream out, int canvasWidth, int canvasHeight) throws IOException {
+        assert canvasWidth > 0 && canvasHeight > 0 : "empty canvas";
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.originX = (canvasWidth - 1) / 2;
+        this.originY = (canvasHeight - 1) / 2;
+        this.out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        this.out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + canvasWidth + "\" height=\""
+                + canvasHeight + "\" viewBox=\"0 0 " + canvasWidth + " " + canvasHeight + "\">\n");
+        this.out.write("<rect width=\"100%\" height=\"100%\" fill=\"" + hex(Color.WHITE) + "\"/>\n");
+        // pixel (x, y) of the rendered image covers [x, x+1] x [y, y+1], so
+        // center the one-pixel strokes on pixels
+        this.out.write("<g fill=\"none\" stroke-width=\"1\" stroke-linecap=\"square\""
+                + " transform=\"translate(0.5 0.5)\">\n");
+    }
+
+    /**
+     * Write a sequence of line segments as an SVG document.
+     *
+     * @param lines line segments in drawing order
+     * @param out stream to write the document to; closed by this method
+     * @param canvasWidth canvas width in pixels, must be positive
+     * @param canvasHeight canvas height in pixels, must be positive
+     * @throws IOException if the document cannot be written
+     */
+    public static void write(List<LineSegment> lines, OutputStream out, int canvasWidth, int canvasHeight)
+            throws IOException {
+        try (SvgWriter svg = new SvgWriter(out, canvasWidth, canvasHeight)) {
+            for (LineSegment lineSeg : lines) {
+                svg.add(lineSeg);
+            }
+        }
+    }
+
+    /**
+     * Write the drawing recorded by a turtle as an SVG document, without
+     * making objects for its line segments.
+     *
+     * @param turtle turtle whose drawing to write, not modified
+     * @param out stream to write the document to; closed by this method
+     * @param canvasWidth canvas width in pixels, must be positive
+     * @param canvasHeight canvas height in pixels, must be positive
+     * @throws IOException if the document cannot be written
+     */
+    public static void write(RecordingTurtle turtle, OutputStream out, int canvasWidth, int canvasHeight)
+            throws IOException {
+        try (SvgWriter svg = new SvgWriter(out, canvasWidth, canvasHeight)) {
+            for (int i = 0; i < turtle.segmentCount(); i++) {
+                svg.add(turtle.x(i), turtle.y(i), turtle.x(i + 1), turtle.y(i + 1), turtle.segmentColor(i));
+            }
+        }
+    }
+
+    /**
+     * Add a line segment to the document.
+     *
+     * @param lineSeg line segment to draw over everything added before it
+     * @throws IOException if the document cannot be written
+     */
+    public void add(LineSegment lineSeg) throws IOException {
+        add(lineSeg.start().x(), lineSeg.start().y(), lineSeg.end().x(), lineSeg.end().y(), lineSeg.color());
+    }
+
+    /**
+     * Add a line segment to the document.
+     *
+     * @param startX x-coordinate of start point
+     * @param startY y-coordinate of start point
+     * @param endX x-coordinate of end point
+     * @param endY y-coordinate of end point
+     * @param color line segment color
+     * @throws IOException if the document cannot be written
+     */
+    public void add(double startX, double startY, double endX, double endY, PenColor color) throws IOException {
+        if (closed) {
+            throw new IOException("SVG document already closed");
+        }
+        final double x1 = originX + startX;
+        final double y1 = originY - startY;
+        final double x2 = originX + endX;
+        final double y2 = originY - endY;
+        final boolean continues = pointCount > 0 && color == polylineColor
+                && points[2 * pointCount - 2] == x1 && points[2 * pointCount - 1] == y1;
+        if (!continues || pointCount == MAX_POLYLINE_POINTS) {
+            flush();
+            polylineColor = color;
+            points[0] = x1;
+            points[1] = y1;
+            pointCount = 1;
+        }
+        points[2 * pointCount] = x2;
+        points[2 * pointCount + 1] = y2;
+        pointCount++;
+    }
+
+    /**
+     * Finish the document and close its stream. Closing an already closed
+     * writer has no effect.
+     *
+     * @throws IOException if the document cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+            out.write("</g>\n</svg>\n");
+        } finally {
+            out.close();
+        }
+    }
+
+    /*
+     * Write the current polyline, if any, and start none.
+     */
+    private void flush() throws IOException {
+        if (pointCount == 0) {
+            return;
+        }
+        out.write("<polyline stroke=\"");
+        out.write(hex(TurtleRenderer.penColor(polylineColor)));
+        out.write("\" points=\"");
+        for (int i = 0; i < pointCount; i++) {
+            if (i > 0) {
+                out.write(' ');
+            }
+            writeNumber(points[2 * i]);
+            out.write(',');
+            writeNumber(points[2 * i + 1]);
+        }
+        out.write("\"/>\n");
+        pointCount = 0;
+    }
+
+    /*
+     * Write a coordinate rounded to DECIMALS places, without trailing zeros,
+     * independent of the default locale.
+     */
+    private void writeNumber(double value) throws IOException {
+        long scaled = Math.round(value * SCALE);
+        if (scaled < 0) {
+            out.write('-');
+            scaled = -scaled;
+        }
+        out.write(Long.toString(scaled / SCALE));
+        long fraction = scaled % SCALE;
+        if (fraction != 0) {
+            int digits = DECIMALS;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            final String text = Long.toString(fraction);
+            out.write('.');
+            for (int i = text.length(); i < digits; i++) {
+                out.write('0');
+            }
+            out.write(text);
+        }
+    }
+
+    private static String hex(Color color) {
+        return String.format("#%06x", color.getRGB() & 0xFFFFFF);
+    }
+}
@@ -0,0 +1,107 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class SvgWriterTest {
+
+    private static final Pattern POLYLINE = Pattern.compile("<polyline stroke=\"(#[0-9a-f]{6})\" points=\"([^\"]*)\"/>");
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests that a connected run in one color is one polyline, and a color
+     * change starts another at the same point.
+     */
+    @Test
+    public void colorBreakTest() throws IOException {
+        List<String> polylines = polylines(Arrays.asList(
+                new LineSegment(0, 0, 10, 0, PenColor.BLACK),
+                new LineSegment(10, 0, 10, 10, PenColor.BLACK),
+                new LineSegment(10, 10, 0, 10, PenColor.RED)));
+
+        assertEquals(Arrays.asList("#000000 0,0 10,0 10,-10", "#ff0000 10,-10 0,-10"), polylines);
+    }
+
+    /**
+     * Tests that a segment that does not start where the one before it ends
+     * starts a new polyline, even in the same color.
+     */
+    @Test
+    public void discontinuityTest() throws IOException {
+        List<String> polylines = polylines(Arrays.asList(
+                new LineSegment(0, 0, 10, 0, PenColor.BLUE),
+                new LineSegment(20, 0, 30, 0, PenColor.BLUE)));
+
+        assertEquals(Arrays.asList("#0000ff 0,0 10,0", "#0000ff 20,0 30,0"), polylines);
+    }
+
+    /**
+     * Tests that a long run is split into polylines of at most 1024 points,
+     * each starting where the one before it ends.
+     */
+    @Test
+    public void splitTest() throws IOException {
+        List<LineSegment> lines = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            lines.add(new LineSegment(i, 0, i + 1, 0, PenColor.BLACK));
+        }
+        List<String> polylines = polylines(lines);
+
+        assertEquals(2, polylines.size());
+        String[] first = polylines.get(0).split(" ");
+        assertEquals(1 + 1024, first.length);
+        assertEquals("0,0", first[1]);
+        assertEquals("1023,0", first[1024]);
+        assertEquals("#000000 1023,0 1024,0", polylines.get(1));
+    }
+
+    /**
+     * Tests how coordinates are written: rounded to two decimals, without
+     * trailing zeros, with a sign only when negative.
+     */
+    @Test
+    public void numberFormatTest() throws IOException {
+        List<String> polylines = polylines(Arrays.asList(
+                new LineSegment(-1.5, 1.05, 0.1, -2, PenColor.BLACK),
+                new LineSegment(0.1, -2, -0.004, 12.346, PenColor.BLACK)));
+
+        assertEquals(Arrays.asList("#000000 -1.5,-1.05 0.1,2 0,-12.35"), polylines);
+    }
+
+    /*
+     * Write lines on a 1 x 1 canvas, whose origin is SVG (0, 0), and return
+     * each polyline as its color followed by its points.
+     */
+    private static List<String> polylines(List<LineSegment> lines) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SvgWriter.write(lines, out, 1, 1);
+        String svg = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(svg.endsWith("</g>\n</svg>\n"));
+        List<String> polylines = new ArrayList<>();
+        Matcher matcher = POLYLINE.matcher(svg);
+        while (matcher.find()) {
+            polylines.add(matcher.group(1) + " " + matcher.group(2));
+        }
+        return polylines;
+    }
+}
@@ -0,0 +1,345 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Renders turtle drawings in parallel, for canvases much larger than the
+ * screen, such as poster renders of 16384 x 16384 pixels.
+ *
+ * The canvas is split into square tiles. Line segments are first binned into
+ * the tiles they cross, then the tiles are rasterized independently on a
+ * fork/join pool, each into its own small buffer that fits in cache, and
+ * copied into the final image. Lines are one pixel wide and drawn with
+ * Bresenham's algorithm, clipped to each tile, so a tile only visits the
+ * pixels it owns.
+ *
+ * Images use the same canvas layout, colors and background as
+ * {@link TurtleRenderer}, and later segments are drawn over earlier ones; the
+ * pixels of diagonal lines may differ slightly from Java2D's.
+ */
+public class TileRasterizer {
+
+    /** Default width and height of a tile in pixels. */
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    private static final int CANVAS_BG_RGB = 0xFFFFFF;
+    /** Pixel coordinates are clamped to this far off the canvas. */
+    private static final int MAX_COORDINATE = 1 << 29;
+    /** Tiles rasterized sequentially by one fork/join task. */
+    private static final int TILES_PER_TASK = 4;
+
+    private final int canvasWidth;
+    private final int canvasHeight;
+    private final int tileSize;
+    private final int tileColumns;
+    private final int tileRows;
+    private final ForkJoinPool pool;
+
+    private final int originX;
+    private final int originY;
+
+    /*
+     * Rep invariant: canvasWidth, canvasHeight, tileSize > 0, and the tile
+     * grid tileColumns x tileRows just covers the canvas.
+     *
+     * Thread safety argument: a rasterizer is immutable. Each render call
+     * bins into its own arrays, which tasks only read, and each task writes
+     * only the pixels of its own tiles.
+     */
+
+    /**
+     * Construct a rasterizer for images of a given size, with the turtle's
+     * origin at the center, using the common fork/join pool.
+     *
+     * @param canvasWidth canvas width in pixels, must be positive
+     * @param canvasHeight canvas height in pixels, must be positive
+     */
+    public TileRasterizer(int canvasWidth, int canvasHeight) {
+        this(canvasWidth, canvasHeight, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construct a rasterizer for images of a given size, with the turtle's
+     * origin at the center.
+     *
+     * @param canvasWidth canvas width in pixels, must be positive
+     * @param canvasHeight canvas height in pixels, must be positive, with
+     *                     canvasWidth * canvasHeight at most Integer.MAX_VALUE
+     * @param tileSize width and height of a tile in pixels, must be positive
+     * @param pool pool to rasterize tiles on
+     */
+    public TileRasterizer(int canvasWidth, int canvasHeight, int tileSize, ForkJoinPool pool) {
+        assert canvasWidth > 0 && canvasHeight > 0 : "empty canvas";
+        assert (long) canvasWidth * canvasHeight <= Integer.MAX_VALUE : "canvas too large";
+        assert tileSize > 0 : "empty tiles";
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+        this.tileSize = tileSize;
+        this.tileColumns = (canvasWidth + tileSize - 1) / tileSize;
+        this.tileRows = (canvasHeight + tileSize - 1) / tileSize;
+        this.pool = pool;
+        this.originX = (canvasWidth - 1) / 2;
+        this.originY = (canvasHeight - 1) / 2;
+    }
+
+    /**
+     * Render a sequence of line segments.
+     *
+     * @param lines line segments to render, in drawing order
+     * @return new image with every line segment drawn on it
+     */
+    public BufferedImage render(List<LineSegment> lines) {
+        final Segments segments = new Segments(lines.size());
+        for (LineSegment lineSeg : lines) {
+            segments.add(lineSeg.start().x(), lineSeg.start().y(), lineSeg.end().x(), lineSeg.end().y(),
+                    lineSeg.color());
+        }
+        return render(segments);
+    }
+
+    /**
+     * Render the drawing recorded by a turtle, without making objects for
+     * its line segments.
+     *
+     * @param turtle turtle whose drawing to render, not modified
+     * @return new image with every line segment drawn by turtle on it
+     */
+    public BufferedImage render(RecordingTurtle turtle) {
+        final int count = turtle.segmentCount();
+        final Segments segments = new Segments(count);
+        for (int i = 0; i < count; i++) {
+            segments.add(turtle.x(i), turtle.y(i), turtle.x(i + 1), turtle.y(i + 1), turtle.segmentColor(i));
+        }
+        return render(segments);
+    }
+
+    private BufferedImage render(Segments segments) {
+        // counting sort of (tile, segment) pairs by tile, keeping segments in
+        // drawing order within each tile
+        final int tiles = tileColumns * tileRows;
+        final int[] starts = new int[tiles + 1];
+        for (int s = 0; s < segments.size; s++) {
+            bin(segments, s, starts, null);
+        }
+        long total = 0;
+        for (int t = 0; t <= tiles; t++) {
+            final int count = starts[t];
+            starts[t] = (int) total;
+            total += count;
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("drawing crosses too many tiles");
+        }
+        final int[] entries = new int[(int) total];
+        final int[] next = Arrays.copyOf(starts, tiles);
+        for (int s = 0; s < segments.size; s++) {
+            bin(segments, s, next, entries);
+        }
+
+        final BufferedImage canvas = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_RGB);
+        final int[] pixels = ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+        pool.invoke(new RasterizeTiles(segments, starts, entries, pixels, 0, tiles));
+        return canvas;
+    }
+
+    /*
+     * For each tile the segment at index s crosses, either count it in
+     * tileCounts[tile] (if entries is null) or store s at
+     * entries[tileCounts[tile]++].
+     */
+    private void bin(Segments segments, int s, int[] tileCounts, int[] entries) {
+        final int x0 = segments.coordinates[4 * s];
+        final int y0 = segments.coordinates[4 * s + 1];
+        final int x1 = segments.coordinates[4 * s + 2];
+        final int y1 = segments.coordinates[4 * s + 3];
+        final int minX = Math.max(0, Math.min(x0, x1));
+        final int maxX = Math.min(canvasWidth - 1, Math.max(x0, x1));
+        final int minY = Math.max(0, Math.min(y0, y1));
+        final int maxY = Math.min(canvasHeight - 1, Math.max(y0, y1));
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+        // in each column of tiles, only the rows the line passes through;
+        // pixels are rounded to the line, so widen the column by half a pixel
+        // and the rows by one
+        for (int column = minX / tileSize; column <= maxX / tileSize; column++) {
+            final int left = Math.max(minX, column * tileSize);
+            final int right = Math.min(maxX, column * tileSize + tileSize - 1);
+            int low = minY;
+            int high = maxY;
+            if (x1 != x0) {
+                final double slope = (double) (y1 - y0) / (x1 - x0);
+                final double yLeft = y0 + (left - 0.5 - x0) * slope;
+                final double yRight = y0 + (right + 0.5 - x0) * slope;
+                low = (int) Math.max(low, Math.floor(Math.min(yLeft, yRight)) - 1);
+                high = (int) Math.min(high, Math.ceil(Math.max(yLeft, yRight)) + 1);
+            }
+            for (int row = low / tileSize; row <= high / tileSize; row++) {
+                final int tile = row * tileColumns + column;
+                if (entries == null) {
+                    tileCounts[tile]++;
+                } else {
+                    entries[tileCounts[tile]++] = s;
+                }
+            }
+        }
+    }
+
+    /*
+     * Draw the part of the segment at index s that lies in a tile, into the
+     * tile's buffer, with Bresenham's algorithm started where the line enters
+     * the tile.
+     */
+    private static void rasterize(Segments segments, int s, int[] tile, int tileLeft, int tileTop, int width,
+            int height) {
+        final int x0 = segments.coordinates[4 * s];
+        final int y0 = segments.coordinates[4 * s + 1];
+        final int x1 = segments.coordinates[4 * s + 2];
+        final int y1 = segments.coordinates[4 * s + 3];
+        final int rgb = segments.colors[s];
+
+        final boolean steep = Math.abs(y1 - y0) > Math.abs(x1 - x0);
+        // major axis a, minor axis b, in tile coordinates
+        final long a0 = steep ? y0 - tileTop : x0 - tileLeft;
+        final long b0 = steep ? x0 - tileLeft : y0 - tileTop;
+        final long da = steep ? y1 - y0 : x1 - x0;
+        final long db = steep ? x1 - x0 : y1 - y0;
+        final long aLimit = steep ? height : width;
+        final long bLimit = steep ? width : height;
+        final long stepA = da < 0 ? -1 : 1;
+        final long stepB = db < 0 ? -1 : 1;
+        final long length = Math.abs(da);
+        final long rise = Math.abs(db);
+
+        // pixel i along the line is (a0 + i * stepA, b0 + round(i * rise / length) * stepB)
+        long first = 0;
+        long last = length;
+        if (stepA > 0) {
+            first = Math.max(first, -a0);
+            last = Math.min(last, aLimit - 1 - a0);
+        } else {
+            first = Math.max(first, a0 - (aLimit - 1));
+            last = Math.min(last, a0);
+        }
+        if (first > last) {
+            return;
+        }
+        final long denominator = 2 * Math.max(length, 1);
+        final long numerator = 2 * first * rise + length;
+        long offset = numerator / denominator;
+        long error = numerator % denominator;
+        for (long i = first; i <= last; i++) {
+            final long a = a0 + i * stepA;
+            final long b = b0 + offset * stepB;
+            if (b >= 0 && b < bLimit) {
+                final int x = (int) (steep ? b : a);
+                final int y = (int) (steep ? a : b);
+                tile[y * width + x] = rgb;
+            }
+            error += 2 * rise;
+            if (error >= denominator) {
+                error -= denominator;
+                offset++;
+            }
+        }
+    }
+
+    /*
+     * Line segments in pixel coordinates, with their colors.
+     */
+    private final class Segments {
+
+        private int[] coordinates;
+        private int[] colors;
+        private int size;
+
+        /*
+         * Rep invariant: segment s, for 0 <= s < size, goes from pixel
+         * (coordinates[4s], coordinates[4s+1]) to pixel (coordinates[4s+2],
+         * coordinates[4s+3]) in RGB color colors[s].
+         */
+
+        Segments(int capacity) {
+            this.coordinates = new int[4 * capacity];
+            this.colors = new int[capacity];
+        }
+
+        void add(double startX, double startY, double endX, double endY, PenColor color) {
+            if (size == colors.length) {
+                colors = Arrays.copyOf(colors, Math.max(16, 2 * size));
+                coordinates = Arrays.copyOf(coordinates, 4 * colors.length);
+            }
+            coordinates[4 * size] = pixel(originX + startX);
+            coordinates[4 * size + 1] = pixel(originY - startY);
+            coordinates[4 * size + 2] = pixel(originX + endX);
+            coordinates[4 * size + 3] = pixel(originY - endY);
+            colors[size] = TurtleRenderer.penColor(color).getRGB() & 0xFFFFFF;
+            size++;
+        }
+
+        /*
+         * Pixel coordinate, truncated like Graphics.drawLine arguments, and
+         * clamped so that line arithmetic cannot overflow.
+         */
+        private int pixel(double coordinate) {
+            return (int) Math.max(-MAX_COORDINATE, Math.min(MAX_COORDINATE, coordinate));
+        }
+    }
+
+    /*
+     * Task that rasterizes tiles [from, to) into the canvas pixels.
+     */
+    private final class RasterizeTiles extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Segments segments;
+        private final int[] starts;
+        private final int[] entries;
+        private final int[] pixels;
+        private final int from;
+        private final int to;
+
+        RasterizeTiles(Segments segments, int[] starts, int[] entries, int[] pixels, int from, int to) {
+            this.segments = segments;
+            this.starts = starts;
+            this.entries = entries;
+            this.pixels = pixels;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TILES_PER_TASK) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new RasterizeTiles(segments, starts, entries, pixels, from, middle),
+                        new RasterizeTiles(segments, starts, entries, pixels, middle, to));
+                return;
+            }
+            final int[] tile = new int[tileSize * tileSize];
+            for (int t = from; t < to; t++) {
+                final int left = (t % tileColumns) * tileSize;
+                final int top = (t / tileColumns) * tileSize;
+                final int width = Math.min(tileSize, canvasWidth - left);
+                final int height = Math.min(tileSize, canvasHeight - top);
+                Arrays.fill(tile, 0, width * height, CANVAS_BG_RGB);
+                for (int e = starts[t]; e < starts[t + 1]; e++) {
+                    rasterize(segments, entries[e], tile, left, top, width, height);
+                }
+                // composite the tile into its place on the canvas
+                for (int row = 0; row < height; row++) {
+                    System.arraycopy(tile, row * width, pixels, (top + row) * canvasWidth + left, width);
+                }
+            }
+        }
+    }
+}
@@ -10,9 +10,7 @@ import java.awt.Graphics2D;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
-import java.util.EnumMap;
 import java.util.List;
-import java.util.Map;
 
 import javax.swing.GroupLayout;
 import javax.swing.GroupLayout.Alignment;
@@ -32,19 +30,6 @@ public class TurtleGUI extends JFrame {
     private static final long serialVersionUID = 1L;
 
     private static final Color CANVAS_BG_COLOR = Color.WHITE;
-    private static final Map<PenColor, Color> PEN_COLORS = new EnumMap<>(PenColor.class);
-    static {
-        PEN_COLORS.put(PenColor.BLACK, Color.BLACK);
-        PEN_COLORS.put(PenColor.GRAY, Color.GRAY);
-        PEN_COLORS.put(PenColor.RED, Color.RED);
-        PEN_COLORS.put(PenColor.PINK, Color.PINK);
-        PEN_COLORS.put(PenColor.ORANGE, Color.ORANGE);
-        PEN_COLORS.put(PenColor.YELLOW, new Color(228, 228, 0));
-        PEN_COLORS.put(PenColor.GREEN, Color.GREEN);
-        PEN_COLORS.put(PenColor.CYAN, Color.CYAN);
-        PEN_COLORS.put(PenColor.BLUE, Color.BLUE);
-        PEN_COLORS.put(PenColor.MAGENTA, Color.MAGENTA);
-    }
 
     private static final double LENGTH_OF_A_TURN = 20;
     private static final long MILLIS_PER_DRAWING = 5000;
@@ -214,7 +199,7 @@ public class TurtleGUI extends JFrame {
             boolean abort = false;
             long elapsedTime = System.currentTimeMillis() - initialTime;
 
-            graphics.setPaint(PEN_COLORS.getOrDefault(lineSeg.color(), Color.BLACK));
+            graphics.setPaint(TurtleRenderer.penColor(lineSeg.color()));
 
             while (!abort && elapsedTime + MILLIS_PER_FRAME < drawTime) {
                 // while we have time remaining for this action
@@ -0,0 +1,56 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+/**
+ * How turtles move: the heading and position arithmetic shared by the
+ * implementations of {@link Turtle}, so that they all draw the same lines.
+ *
+ * Headings are in degrees clockwise from the positive y-axis, in [0, 360).
+ */
+class TurtleMotion {
+
+    private static final int CIRCLE_DEGREES = 360;
+    private static final int DEGREES_TO_VERTICAL = 90;
+
+    private TurtleMotion() {
+    }
+
+    /**
+     * @param degrees amount of a clockwise turn; may be negative or more than
+     *                a full circle
+     * @return the same turn as an amount in [0, 360)
+     */
+    static double clockwise(double degrees) {
+        return (degrees % CIRCLE_DEGREES + CIRCLE_DEGREES) % CIRCLE_DEGREES;
+    }
+
+    /**
+     * @param heading current heading
+     * @param clockwiseDegrees amount of a clockwise turn in [0, 360), as
+     *                         returned by {@link #clockwise(double)}
+     * @return heading after the turn
+     */
+    static double turn(double heading, double clockwiseDegrees) {
+        return (heading + clockwiseDegrees) % CIRCLE_DEGREES;
+    }
+
+    /**
+     * @param heading current heading
+     * @param steps number of steps to move forward
+     * @return change in x-coordinate of the move
+     */
+    static double deltaX(double heading, int steps) {
+        return Math.cos(Math.toRadians(DEGREES_TO_VERTICAL - heading)) * (double)steps;
+    }
+
+    /**
+     * @param heading current heading
+     * @param steps number of steps to move forward
+     * @return change in y-coordinate of the move
+     */
+    static double deltaY(double heading, int steps) {
+        return Math.sin(Math.toRadians(DEGREES_TO_VERTICAL - heading)) * (double)steps;
+    }
+}
@@ -0,0 +1,141 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Renders turtle drawings straight to images, without a window or animation.
+ *
+ * Images look like the final frame of {@link TurtleGUI}: the same canvas
+ * layout, colors, and one-pixel lines, on a white background. Rendering only
+ * uses off-screen images, so it works with java.awt.headless=true.
+ */
+public class TurtleRenderer {
+
+    private static final Color CANVAS_BG_COLOR = Color.WHITE;
+    private static final Map<PenColor, Color> PEN_COLORS = new EnumMap<>(PenColor.class);
+    static {
+        PEN_COLORS.put(PenColor.BLACK, Color.BLACK);
+        PEN_COLORS.put(PenColor.GRAY, Color.GRAY);
+        PEN_COLORS.put(PenColor.RED, Color.RED);
+        PEN_COLORS.put(PenColor.PINK, Color.PINK);
+        PEN_COLORS.put(PenColor.ORANGE, Color.ORANGE);
+        PEN_COLORS.put(PenColor.YELLOW, new Color(228, 228, 0));
+        PEN_COLORS.put(PenColor.GREEN, Color.GREEN);
+        PEN_COLORS.put(PenColor.CYAN, Color.CYAN);
+        PEN_COLORS.put(PenColor.BLUE, Color.BLUE);
+        PEN_COLORS.put(PenColor.MAGENTA, Color.MAGENTA);
+    }
+
+    private final int canvasWidth;
+    private final int canvasHeight;
+
+    private final int originX;
+    private final int originY;
+
+    /**
+     * Construct a renderer for images of a given size, with the turtle's
+     * origin at the center.
+     *
+     * @param canvasWidth canvas width in pixels, must be positive
+     * @param canvasHeight canvas height in pixels, must be positive
+     */
+    public TurtleRenderer(int canvasWidth, int canvasHeight) {
+        assert canvasWidth > 0 && canvasHeight > 0 : "empty canvas";
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+        this.originX = (canvasWidth - 1) / 2;
+        this.originY = (canvasHeight - 1) / 2;
+    }
+
+    /**
+     * Render a sequence of turtle actions.
+     *
+     * @param actionList sequence of actions to render
+     * @return new image with the line segment of every action drawn on it
+     */
+    public BufferedImage render(List<Action> actionList) {
+        final BufferedImage canvas = newCanvas();
+        final Graphics2D graphics = newGraphics(canvas);
+        try {
+            for (Action action : actionList) {
+                if (action.lineSegment() != null) {
+                    draw(graphics, action.lineSegment());
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return canvas;
+    }
+
+    /**
+     * Render a sequence of line segments.
+     *
+     * @param lines line segments to render, in drawing order
+     * @return new image with every line segment drawn on it
+     */
+    public BufferedImage renderSegments(List<LineSegment> lines) {
+        final BufferedImage canvas = newCanvas();
+        final Graphics2D graphics = newGraphics(canvas);
+        try {
+            for (LineSegment lineSeg : lines) {
+                draw(graphics, lineSeg);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return canvas;
+    }
+
+    /**
+     * Render a sequence of turtle actions as a PNG image.
+     *
+     * @param actionList sequence of actions to render
+     * @param out stream to write the PNG image to; not closed by this method
+     * @throws IOException if the image cannot be written
+     */
+    public void writePng(List<Action> actionList, OutputStream out) throws IOException {
+        if (!ImageIO.write(render(actionList), "png", out)) {
+            throw new IOException("no PNG writer available");
+        }
+    }
+
+    /**
+     * @param color pen color
+     * @return screen color used to draw with the pen color
+     */
+    static Color penColor(PenColor color) {
+        return PEN_COLORS.getOrDefault(color, Color.BLACK);
+    }
+
+    private BufferedImage newCanvas() {
+        return new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_RGB);
+    }
+
+    private Graphics2D newGraphics(BufferedImage canvas) {
+        final Graphics2D graphics = canvas.createGraphics();
+        graphics.setBackground(CANVAS_BG_COLOR);
+        graphics.clearRect(0, 0, canvasWidth, canvasHeight);
+        graphics.setStroke(new BasicStroke(1.0f));
+        return graphics;
+    }
+
+    private void draw(Graphics2D graphics, LineSegment lineSeg) {
+        graphics.setPaint(penColor(lineSeg.color()));
+        graphics.drawLine((int) (originX + lineSeg.start().x()), (int) (originY - lineSeg.start().y()),
+                (int) (originX + lineSeg.end().x()), (int) (originY - lineSeg.end().y()));
+    }
+}
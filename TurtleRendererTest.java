@@ -0,0 +1,92 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+public class TurtleRendererTest {
+
+    private static final int WHITE = Color.WHITE.getRGB();
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests rendering a square, which must not need a display.
+     */
+    @Test
+    public void renderSquareTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.color(PenColor.RED);
+        for (int i = 0; i < 4; i++) {
+            turtle.forward(100);
+            turtle.turn(90);
+        }
+        BufferedImage image = turtle.render();
+
+        assertEquals(512, image.getWidth());
+        assertEquals(512, image.getHeight());
+        // the turtle starts at the center heading up, then turns clockwise
+        assertEquals(Color.RED.getRGB(), image.getRGB(255, 200));
+        assertEquals(Color.RED.getRGB(), image.getRGB(300, 155));
+        assertEquals(WHITE, image.getRGB(300, 200));
+        assertEquals(WHITE, image.getRGB(0, 0));
+    }
+
+    /**
+     * Tests that tiled rasterization matches rendering, across tile borders.
+     */
+    @Test
+    public void tileRasterizerTest() {
+        RecordingTurtle turtle = new RecordingTurtle();
+        for (PenColor color : PenColor.values()) {
+            turtle.color(color);
+            for (int i = 0; i < 4; i++) {
+                turtle.forward(30 + 20 * color.ordinal());
+                turtle.turn(90);
+            }
+        }
+        TurtleRenderer renderer = new TurtleRenderer(300, 200);
+        TileRasterizer rasterizer = new TileRasterizer(300, 200, 17, ForkJoinPool.commonPool());
+        BufferedImage expected = renderer.renderSegments(turtle.segments());
+        BufferedImage actual = rasterizer.render(turtle);
+
+        assertArrayEquals(expected.getRGB(0, 0, 300, 200, null, 0, 300),
+                actual.getRGB(0, 0, 300, 200, null, 0, 300));
+    }
+
+    /**
+     * Tests writing a drawing as a PNG image.
+     */
+    @Test
+    public void writePngTest() throws IOException {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.color(PenColor.YELLOW);
+        turtle.forward(10);
+        TurtleRenderer renderer = new TurtleRenderer(32, 32);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderer.writePng(turtle.actions(), out);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(32, image.getWidth());
+        assertEquals(new Color(228, 228, 0).getRGB(), image.getRGB(15, 10));
+        assertEquals(WHITE, image.getRGB(15, 20));
+    }
+}
@@ -0,0 +1,368 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable index over points of interest (POIs) sorted by a Z-order
+ * (Morton) key, a hierarchical cell encoding of their location.
+ *
+ * <p>
+ * The key of a location interleaves the bits of its latitude and longitude,
+ * each measured in arc seconds from 90 deg S and 180 deg W. The globe is thus
+ * a quadtree of cells: the POIs in any cell have keys that share a prefix, and
+ * form one contiguous run in key order. A bounding rectangle query is covered
+ * by a small set of cells, each answered by a binary search and a scan of a
+ * contiguous range of keys, so POIs can also be sorted on disk by key for
+ * locality and range-scanned the same way.
+ */
+public class ZOrderIndex {
+
+    /** Bits per coordinate; 2^21 arc seconds covers 360 degrees. */
+    static final int BITS = 21;
+    /** Default number of key ranges a query is split into, at most. */
+    private static final int DEFAULT_MAX_RANGES = 64;
+
+    private static final int MAX_LATITUDE = 90 * 3600;
+    private static final int MAX_LONGITUDE = 180 * 3600;
+    private static final int RADIX_BITS = 11;
+
+    private final long[] keys;
+    private final int[] latitudes;
+    private final int[] longitudes;
+    private final PointOfInterest[] points;
+
+    /*
+     * Rep invariant: keys is sorted in nondecreasing order; keys[i] ==
+     * key(latitudes[i], longitudes[i]), which are the signed arc second
+     * coordinates of points[i]. All arrays have the same length.
+     */
+
+    /**
+     * Build an index over some POIs.
+     *
+     * @param pointsOfInterest
+     *            POIs to index, not modified by this method
+     */
+    public ZOrderIndex(Collection<PointOfInterest> pointsOfInterest) {
+        final int size = pointsOfInterest.size();
+        final PointOfInterest[] input = pointsOfInterest.toArray(new PointOfInterest[size]);
+        long[] sortKeys = new long[size];
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortKeys[i] = key(Angular.toArcSeconds(input[i].latitude()), Angular.toArcSeconds(input[i].longitude()));
+            order[i] = i;
+        }
+
+        // least-significant-digit radix sort of the keys, carrying positions
+        long[] keyBuffer = new long[size];
+        int[] orderBuffer = new int[size];
+        for (int shift = 0; shift < 2 * BITS; shift += RADIX_BITS) {
+            final int[] counts = new int[(1 << RADIX_BITS) + 1];
+            for (long key : sortKeys) {
+                counts[(int) ((key >>> shift) & ((1 << RADIX_BITS) - 1)) + 1]++;
+            }
+            for (int digit = 0; digit < 1 << RADIX_BITS; digit++) {
+                counts[digit + 1] += counts[digit];
+            }
+            for (int i = 0; i < size; i++) {
+                final int slot = counts[(int) ((sortKeys[i] >>> shift) & ((1 << RADIX_BITS) - 1))]++;
+                keyBuffer[slot] = sortKeys[i];
+                orderBuffer[slot] = order[i];
+            }
+            final long[] swapKeys = sortKeys;
+            sortKeys = keyBuffer;
+            keyBuffer = swapKeys;
+            final int[] swapOrder = order;
+            order = orderBuffer;
+            orderBuffer = swapOrder;
+        }
+
+        this.keys = sortKeys;
+        this.latitudes = new int[size];
+        this.longitudes = new int[size];
+        this.points = new PointOfInterest[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = input[order[i]];
+            latitudes[i] = Angular.toArcSeconds(points[i].latitude());
+            longitudes[i] = Angular.toArcSeconds(points[i].longitude());
+        }
+    }
+
+    /**
+     * Compute the Z-order key of a location.
+     *
+     * @param latitude
+     *            a valid latitude
+     * @param longitude
+     *            a valid longitude
+     * @return 64-bit key of the location, which orders locations along a
+     *         Z-order curve
+     */
+    public static long key(Angle latitude, Angle longitude) {
+        return key(Angular.toArcSeconds(latitude), Angular.toArcSeconds(longitude));
+    }
+
+    /**
+     * Compute the Z-order key of a location.
+     *
+     * @param latitude
+     *            a valid latitude in signed arc seconds
+     * @param longitude
+     *            a valid longitude in signed arc seconds
+     * @return 64-bit key of the location, which orders locations along a
+     *         Z-order curve
+     */
+    public static long key(int latitude, int longitude) {
+        return interleave(latitude + MAX_LATITUDE, longitude + MAX_LONGITUDE);
+    }
+
+    /**
+     * @return number of POIs in this index
+     */
+    public int size() {
+        return points.length;
+    }
+
+    /**
+     * Find indexed POIs in a latitude-longitude bounding rectangle, with the
+     * same result as {@link SpatialIndex#inBoundingBox}.
+     *
+     * @param bounds
+     *            a latitude-longitude bounding rectangle as defined in the
+     *            documentation for {@link Bounds}, not modified by this method
+     * @return all and only the indexed POIs that are contained in the given
+     *         bounding rectangle
+     */
+    public Set<PointOfInterest> inBoundingBox(List<Angle> bounds) {
+        return inBoundingBox(bounds, DEFAULT_MAX_RANGES);
+    }
+
+    /**
+     * Find indexed POIs in a latitude-longitude bounding rectangle, scanning
+     * at most about maxRanges ranges of keys.
+     *
+     * @param bounds
+     *            a latitude-longitude bounding rectangle as defined in the
+     *            documentation for {@link Bounds}, not modified by this method
+     * @param maxRanges
+     *            about the largest number of key ranges to scan, must be
+     *            positive, as for {@link #ranges}; fewer ranges scan more POIs
+     *            outside the rectangle, which are filtered out
+     * @return all and only the indexed POIs that are contained in the given
+     *         bounding rectangle
+     */
+    public Set<PointOfInterest> inBoundingBox(List<Angle> bounds, int maxRanges) {
+        final int north = Angular.toArcSeconds(bounds.get(0));
+        final int east = Angular.toArcSeconds(bounds.get(1));
+        final int south = Angular.toArcSeconds(bounds.get(2));
+        final int west = Angular.toArcSeconds(bounds.get(3));
+        final long[] ranges = ranges(bounds, maxRanges);
+        final Set<PointOfInterest> result = new HashSet<>();
+        for (int r = 0; r < ranges.length; r += 2) {
+            for (int i = lowerBound(ranges[r]); i < keys.length && keys[i] <= ranges[r + 1]; i++) {
+                if (latitudes[i] >= south && latitudes[i] <= north
+                        && Bounds.containsLongitude(longitudes[i], west, east)) {
+                    result.add(points[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cover a latitude-longitude bounding rectangle with ranges of Z-order
+     * keys.
+     *
+     * @param bounds
+     *            a latitude-longitude bounding rectangle as defined in the
+     *            documentation for {@link Bounds}, not modified by this method
+     * @param maxRanges
+     *            about the largest number of ranges to return, must be
+     *            positive; fewer ranges cover more keys outside the rectangle
+     * @return sorted, disjoint, inclusive key ranges {lo0, hi0, lo1, hi1, ...}
+     *         that together include the key of every location in the
+     *         rectangle, where 180 deg E & W are the same longitude
+     */
+    public static long[] ranges(List<Angle> bounds, int maxRanges) {
+        assert maxRanges > 0 : "no ranges allowed";
+        final int north = Angular.toArcSeconds(bounds.get(0)) + MAX_LATITUDE;
+        final int east = Angular.toArcSeconds(bounds.get(1)) + MAX_LONGITUDE;
+        final int south = Angular.toArcSeconds(bounds.get(2)) + MAX_LATITUDE;
+        final int west = Angular.toArcSeconds(bounds.get(3)) + MAX_LONGITUDE;
+        if (south > north) {
+            return new long[0];
+        }
+
+        // rectangles in unsigned coordinates: {south, north, west, east}
+        final List<int[]> rectangles = new ArrayList<>();
+        if (west <= east) {
+            rectangles.add(new int[] { south, north, west, east });
+            // 180 W is the same longitude as 180 E, but has the opposite key
+            if (east == 2 * MAX_LONGITUDE && west > 0) {
+                rectangles.add(new int[] { south, north, 0, 0 });
+            }
+            if (west == 0 && east < 2 * MAX_LONGITUDE) {
+                rectangles.add(new int[] { south, north, 2 * MAX_LONGITUDE, 2 * MAX_LONGITUDE });
+            }
+        } else {
+            rectangles.add(new int[] { south, north, west, 2 * MAX_LONGITUDE });
+            rectangles.add(new int[] { south, north, 0, east });
+        }
+
+        final List<long[]> covering = new ArrayList<>();
+        for (int[] rectangle : rectangles) {
+            cover(rectangle, Math.max(1, maxRanges / rectangles.size()), covering);
+        }
+        return merge(covering);
+    }
+
+    /*
+     * Add to covering the key ranges of quadtree cells that together cover
+     * rectangle, refining partially covered cells breadth first while there
+     * are at most maxRanges of them.
+     */
+    private static void cover(int[] rectangle, int maxRanges, List<long[]> covering) {
+        // cells as {y, x, level}, where the cell spans 2^(BITS - level) units
+        List<int[]> partial = new ArrayList<>();
+        partial.add(new int[] { 0, 0, 0 });
+        int ranges = 0;
+        while (!partial.isEmpty()) {
+            final List<int[]> refined = new ArrayList<>();
+            final List<int[]> inside = new ArrayList<>();
+            for (int[] cell : partial) {
+                final int childSize = 1 << (BITS - cell[2] - 1);
+                for (int dy = 0; dy < 2; dy++) {
+                    for (int dx = 0; dx < 2; dx++) {
+                        final int[] child = { cell[0] + dy * childSize, cell[1] + dx * childSize, cell[2] + 1 };
+                        final int overlap = overlap(child, rectangle);
+                        if (overlap == 2) {
+                            inside.add(child);
+                        } else if (overlap == 1) {
+                            refined.add(child);
+                        }
+                    }
+                }
+            }
+            if (ranges + inside.size() + refined.size() > maxRanges && partial.get(0)[2] > 0) {
+                // refining would exceed the budget, so cover the partially
+                // covered cells whole
+                for (int[] cell : partial) {
+                    covering.add(cellRange(cell));
+                }
+                return;
+            }
+            for (int[] cell : inside) {
+                covering.add(cellRange(cell));
+            }
+            ranges += inside.size();
+            partial = refined;
+        }
+    }
+
+    /*
+     * 0 if cell is disjoint from rectangle, 2 if it is inside it, 1 otherwise.
+     */
+    private static int overlap(int[] cell, int[] rectangle) {
+        final int size = 1 << (BITS - cell[2]);
+        final int top = cell[0] + size - 1;
+        final int right = cell[1] + size - 1;
+        if (cell[0] > rectangle[1] || top < rectangle[0] || cell[1] > rectangle[3] || right < rectangle[2]) {
+            return 0;
+        }
+        if (cell[0] >= rectangle[0] && top <= rectangle[1] && cell[1] >= rectangle[2] && right <= rectangle[3]) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long[] cellRange(int[] cell) {
+        final long low = interleave(cell[0], cell[1]);
+        final int unused = 2 * (BITS - cell[2]);
+        return new long[] { low, low | ((1L << unused) - 1) };
+    }
+
+    /*
+     * Sort ranges and merge overlapping or adjacent ones into a flat array.
+     */
+    private static long[] merge(List<long[]> ranges) {
+        ranges.sort((range1, range2) -> Long.compare(range1[0], range2[0]));
+        final long[] merged = new long[2 * ranges.size()];
+        int count = 0;
+        for (long[] range : ranges) {
+            if (count > 0 && range[0] <= merged[count - 1] + 1) {
+                merged[count - 1] = Math.max(merged[count - 1], range[1]);
+            } else {
+                merged[count++] = range[0];
+                merged[count++] = range[1];
+            }
+        }
+        return Arrays.copyOf(merged, count);
+    }
+
+    /*
+     * Positions in key order, for operators that walk the index directly,
+     * such as SpatialJoin.
+     */
+
+    long keyAt(int position) {
+        return keys[position];
+    }
+
+    int latitudeAt(int position) {
+        return latitudes[position];
+    }
+
+    int longitudeAt(int position) {
+        return longitudes[position];
+    }
+
+    PointOfInterest pointAt(int position) {
+        return points[position];
+    }
+
+    /*
+     * First position in keys whose key is at least key.
+     */
+    int lowerBound(long key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /*
+     * Interleave the low BITS bits of y (odd bit positions) and x (even bit
+     * positions).
+     */
+    private static long interleave(int y, int x) {
+        return (spread(y) << 1) | spread(x);
+    }
+
+    /*
+     * Spread the low 21 bits of value out to the even bit positions.
+     */
+    private static long spread(int value) {
+        long bits = value & ((1L << BITS) - 1);
+        bits = (bits | (bits << 16)) & 0x0000FFFF0000FFFFL;
+        bits = (bits | (bits << 8)) & 0x00FF00FF00FF00FFL;
+        bits = (bits | (bits << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        bits = (bits | (bits << 2)) & 0x3333333333333333L;
+        bits = (bits | (bits << 1)) & 0x5555555555555555L;
+        return bits;
+    }
+}
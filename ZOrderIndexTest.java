@@ -0,0 +1,128 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ZOrderIndexTest {
+
+    private static final int[] BUDGETS = { 1, 2, 4, 64 };
+
+    /**
+     * Tests that assertions are enabled.
+     */
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    /**
+     * Tests an empty index and an empty rectangle.
+     */
+    @Test
+    public void emptyTest() {
+        ZOrderIndex empty = new ZOrderIndex(Collections.emptyList());
+        assertEquals(0, empty.size());
+        assertEquals(Collections.emptySet(), empty.inBoundingBox(Main.CAMBRIDGE_AREA));
+
+        List<Angle> inverted = Arrays.asList(new Angle(10, 0, 0, CardinalDirection.SOUTH),
+                new Angle(180, 0, 0, CardinalDirection.EAST), new Angle(10, 0, 0, CardinalDirection.NORTH),
+                new Angle(180, 0, 0, CardinalDirection.WEST));
+        assertEquals(0, ZOrderIndex.ranges(inverted, 4).length);
+    }
+
+    /**
+     * Tests that 180 deg E & W are the same longitude, on either bound.
+     */
+    @Test
+    public void antimeridianBoundTest() {
+        PointOfInterest east = new PointOfInterest(new Angle(1, 0, 0, CardinalDirection.NORTH),
+                new Angle(180, 0, 0, CardinalDirection.EAST), "east", "");
+        PointOfInterest west = new PointOfInterest(new Angle(1, 0, 0, CardinalDirection.NORTH),
+                new Angle(180, 0, 0, CardinalDirection.WEST), "west", "");
+        ZOrderIndex index = new ZOrderIndex(Arrays.asList(east, west));
+        Set<PointOfInterest> both = new HashSet<>(Arrays.asList(east, west));
+        for (int budget : BUDGETS) {
+            assertEquals(both, index.inBoundingBox(Arrays.asList(new Angle(2, 0, 0, CardinalDirection.NORTH),
+                    new Angle(180, 0, 0, CardinalDirection.EAST), new Angle(0, 0, 0, CardinalDirection.NORTH),
+                    new Angle(170, 0, 0, CardinalDirection.EAST)), budget));
+            assertEquals(both, index.inBoundingBox(Arrays.asList(new Angle(2, 0, 0, CardinalDirection.NORTH),
+                    new Angle(170, 0, 0, CardinalDirection.WEST), new Angle(0, 0, 0, CardinalDirection.NORTH),
+                    new Angle(180, 0, 0, CardinalDirection.WEST)), budget));
+        }
+    }
+
+    /**
+     * Tests random rectangles, many spanning the antimeridian, against Bounds,
+     * with range budgets small enough that most scanned POIs are outside the
+     * rectangle and must be filtered out.
+     */
+    @Test
+    public void randomTest() {
+        Random random = new Random(6005);
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // a tenth of the POIs on the antimeridian or the poles
+            Angle latitude = i % 20 == 0 ? new Angle(90, 0, 0, CardinalDirection.NORTH)
+                    : randomLatitude(random);
+            Angle longitude = i % 20 == 1 ? new Angle(180, 0, 0, CardinalDirection.EAST)
+                    : i % 20 == 2 ? new Angle(180, 0, 0, CardinalDirection.WEST) : randomLongitude(random);
+            points.add(new PointOfInterest(latitude, longitude, "POI " + i, ""));
+        }
+        ZOrderIndex index = new ZOrderIndex(points);
+        PointOfInterestStore store = PointOfInterestStore.of(points);
+        assertEquals(points.size(), index.size());
+
+        for (int trial = 0; trial < 200; trial++) {
+            Angle a = randomLatitude(random);
+            Angle b = randomLatitude(random);
+            boolean ordered = Angular.toArcSeconds(a) >= Angular.toArcSeconds(b);
+            List<Angle> bounds = trial == 0
+                    ? Arrays.asList(new Angle(90, 0, 0, CardinalDirection.NORTH),
+                            new Angle(180, 0, 0, CardinalDirection.EAST), new Angle(90, 0, 0, CardinalDirection.SOUTH),
+                            new Angle(180, 0, 0, CardinalDirection.WEST))
+                    : Arrays.asList(ordered ? a : b, randomLongitude(random), ordered ? b : a,
+                            randomLongitude(random));
+            Set<PointOfInterest> expected = new HashSet<>();
+            for (int i : Bounds.inBoundingBox(store, bounds)) {
+                expected.add(store.get(i));
+            }
+            for (int budget : BUDGETS) {
+                assertEquals(expected, index.inBoundingBox(bounds, budget));
+                assertSortedDisjoint(ZOrderIndex.ranges(bounds, budget));
+            }
+            assertEquals(expected, index.inBoundingBox(bounds));
+        }
+    }
+
+    private static void assertSortedDisjoint(long[] ranges) {
+        assertEquals(0, ranges.length % 2);
+        for (int r = 0; r < ranges.length; r += 2) {
+            assertTrue(ranges[r] <= ranges[r + 1]);
+            if (r > 0) {
+                assertTrue(ranges[r - 1] + 1 < ranges[r]);
+            }
+        }
+    }
+
+    private static Angle randomLatitude(Random random) {
+        return new Angle(random.nextInt(90), random.nextInt(60), random.nextInt(60),
+                random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH);
+    }
+
+    private static Angle randomLongitude(Random random) {
+        return new Angle(random.nextInt(180), random.nextInt(60), random.nextInt(60),
+                random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST);
+    }
+}
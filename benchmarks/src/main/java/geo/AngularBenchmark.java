@@ -0,0 +1,55 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of {@link Angular} over every POI of a dataset.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class AngularBenchmark {
+
+    /**
+     * Convert every latitude and longitude to degrees.
+     *
+     * @param state dataset
+     * @param blackhole sink for the results
+     */
+    @Benchmark
+    public void toDegrees(PoiState state, Blackhole blackhole) {
+        for (PointOfInterest point : state.points) {
+            blackhole.consume(Angular.toDegrees(point.latitude()));
+            blackhole.consume(Angular.toDegrees(point.longitude()));
+        }
+    }
+
+    /**
+     * Compute the displacement between the longitudes of consecutive POIs.
+     *
+     * @param state dataset
+     * @param blackhole sink for the results
+     */
+    @Benchmark
+    public void displacement(PoiState state, Blackhole blackhole) {
+        final List<PointOfInterest> points = state.points;
+        for (int i = 1; i < points.size(); i++) {
+            blackhole.consume(Angular.displacement(points.get(i - 1).longitude(), points.get(i).longitude()));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link Bounds} over a dataset.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class BoundsBenchmark {
+
+    /**
+     * @param state dataset
+     * @return bounding rectangle of the dataset
+     */
+    @Benchmark
+    public List<Angle> boundingBox(PoiState state) {
+        return Bounds.boundingBox(state.set);
+    }
+
+    /**
+     * @param state dataset
+     * @return POIs of the dataset in a small rectangle
+     */
+    @Benchmark
+    public Set<PointOfInterest> inBoundingBox(PoiState state) {
+        return Bounds.inBoundingBox(state.set, Main.CAMBRIDGE_AREA);
+    }
+
+    /**
+     * @param state dataset
+     * @return POIs of the dataset in a rectangle that spans the antimeridian
+     */
+    @Benchmark
+    public Set<PointOfInterest> inBoundingBoxWrapping(PoiState state) {
+        return Bounds.inBoundingBox(state.set, state.wrappingBounds);
+    }
+}
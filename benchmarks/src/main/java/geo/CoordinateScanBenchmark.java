@@ -0,0 +1,86 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link CoordinateScan} against
+ * {@link Bounds#inBoundingBox(PointOfInterestStore, java.util.List)} over the
+ * same dataset.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class CoordinateScanBenchmark {
+
+    /**
+     * The dataset as a store and as a scan, built once per trial.
+     */
+    @State(Scope.Benchmark)
+    public static class ScanState {
+
+        /** The distinct POIs of the dataset, as a store. */
+        public PointOfInterestStore store;
+        /** The distinct POIs of the dataset, as a scan. */
+        public CoordinateScan scan;
+
+        /**
+         * Build the store and the scan.
+         *
+         * @param state dataset
+         */
+        @Setup(Level.Trial)
+        public void setUp(PoiState state) {
+            store = PointOfInterestStore.of(state.set);
+            scan = new CoordinateScan(state.set);
+        }
+    }
+
+    /**
+     * @param state dataset
+     * @param scan dataset as a store and as a scan
+     * @return positions in the store of POIs in a rectangle that spans the
+     *         antimeridian
+     */
+    @Benchmark
+    public int[] storeInBoundingBox(PoiState state, ScanState scan) {
+        return Bounds.inBoundingBox(scan.store, state.wrappingBounds);
+    }
+
+    /**
+     * @param state dataset
+     * @param scan dataset as a store and as a scan
+     * @return positions in the scan of POIs in a rectangle that spans the
+     *         antimeridian
+     */
+    @Benchmark
+    public int[] scanIndices(PoiState state, ScanState scan) {
+        return scan.scan.indices(state.wrappingBounds);
+    }
+
+    /**
+     * @param state dataset
+     * @param scan dataset as a store and as a scan
+     * @return bitmask of POIs in a rectangle that spans the antimeridian
+     */
+    @Benchmark
+    public long[] scanMask(PoiState state, ScanState scan) {
+        return scan.scan.mask(state.wrappingBounds);
+    }
+}
@@ -0,0 +1,50 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of {@link Mapping} over a dataset.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class MappingBenchmark {
+
+    /**
+     * Find the categories of every POI.
+     *
+     * @param state dataset
+     * @param blackhole sink for the results
+     */
+    @Benchmark
+    public void findCategories(PoiState state, Blackhole blackhole) {
+        for (PointOfInterest point : state.points) {
+            blackhole.consume(Mapping.findCategories(point, state.categoryKeywords));
+        }
+    }
+
+    /**
+     * @param state dataset
+     * @return the dataset's POIs grouped by duplicates
+     */
+    @Benchmark
+    public Map<PointOfInterest, List<PointOfInterest>> reduceDuplicates(PoiState state) {
+        return Mapping.reduceDuplicates(state.points);
+    }
+}
@@ -0,0 +1,103 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of reading POIs with {@link Main}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+
+    /**
+     * A dataset written to a temporary file, and its lines.
+     */
+    @State(Scope.Benchmark)
+    public static class FileState {
+
+        /** Path of the file. */
+        public Path file;
+        /** Lines of the file. */
+        public List<String> lines;
+
+        /**
+         * Write the dataset to a file.
+         *
+         * @param poiState dataset
+         * @throws IOException if the file cannot be written
+         */
+        @Setup(Level.Trial)
+        public void setUp(PoiState poiState) throws IOException {
+            file = Files.createTempFile("pois", ".csv");
+            PoiDatasets.writeCsv(poiState.points, file);
+            lines = new ArrayList<>(poiState.points.size());
+            for (PointOfInterest point : poiState.points) {
+                lines.add(PoiDatasets.line(point));
+            }
+        }
+
+        /**
+         * Delete the file.
+         *
+         * @throws IOException if the file cannot be deleted
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Position of the next line to parse, per thread.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    /**
+     * @param state dataset file
+     * @param cursor position of the line to parse, advanced
+     * @return POI parsed from one line, cycling through the dataset
+     */
+    @Benchmark
+    public PointOfInterest parsePOI(FileState state, Cursor cursor) {
+        final String line = state.lines.get(cursor.next);
+        cursor.next = (cursor.next + 1) % state.lines.size();
+        return Main.parsePOI(line);
+    }
+
+    /**
+     * @param state dataset file
+     * @return POIs read from the whole file
+     * @throws IOException if the file cannot be read
+     */
+    @Benchmark
+    public List<PointOfInterest> readPOIsFromFile(FileState state) throws IOException {
+        return Main.readPOIsFromFile(state.file.toString());
+    }
+}
@@ -0,0 +1,147 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Synthetic datasets of points of interest (POIs) for the benchmarks.
+ *
+ * <p>
+ * Datasets are generated from a fixed seed, with a controlled rate of exact
+ * duplicates, and with one cluster of POIs spanning the antimeridian, so runs
+ * are reproducible.
+ */
+public class PoiDatasets {
+
+    /** Seed of every dataset. */
+    public static final long SEED = 6005;
+    /** Fraction of POIs in the cluster that spans the antimeridian. */
+    private static final double ANTIMERIDIAN_FRACTION = 0.05;
+    private static final String[] KINDS = { "School", "Market", "Center", "Institute", "Cafe", "Park", "Station" };
+
+    /**
+     * Generate a synthetic dataset of POIs.
+     *
+     * @param size
+     *            number of POIs
+     * @param duplicateRate
+     *            fraction, between 0 and 1, of POIs that are exact copies of
+     *            an earlier POI
+     * @return size POIs around the globe, including a cluster that spans the
+     *         antimeridian, where about duplicateRate * size of them repeat an
+     *         earlier POI; the same for the same arguments
+     */
+    public static List<PointOfInterest> generate(int size, double duplicateRate) {
+        return generate(size, duplicateRate, SEED);
+    }
+
+    /**
+     * Generate a synthetic dataset of POIs from a given seed.
+     *
+     * @param size
+     *            number of POIs
+     * @param duplicateRate
+     *            fraction, between 0 and 1, of POIs that are exact copies of
+     *            an earlier POI
+     * @param seed
+     *            seed of the dataset
+     * @return size POIs as for {@link #generate(int, double)}; the same for
+     *         the same arguments
+     */
+    public static List<PointOfInterest> generate(int size, double duplicateRate, long seed) {
+        final Random random = new Random(seed);
+        final List<PointOfInterest> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && random.nextDouble() < duplicateRate) {
+                points.add(points.get(random.nextInt(i)));
+                continue;
+            }
+            final Angle latitude = new Angle(random.nextInt(90), random.nextInt(60), random.nextInt(60),
+                    random.nextBoolean() ? CardinalDirection.NORTH : CardinalDirection.SOUTH);
+            final Angle longitude;
+            if (random.nextDouble() < ANTIMERIDIAN_FRACTION) {
+                longitude = new Angle(175 + random.nextInt(5), random.nextInt(60), random.nextInt(60),
+                        random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST);
+            } else {
+                longitude = new Angle(random.nextInt(180), random.nextInt(60), random.nextInt(60),
+                        random.nextBoolean() ? CardinalDirection.EAST : CardinalDirection.WEST);
+            }
+            final String kind = KINDS[random.nextInt(KINDS.length)];
+            points.add(new PointOfInterest(latitude, longitude, kind + " " + i,
+                    "A " + kind.toLowerCase() + " for students number " + random.nextInt(1000)));
+        }
+        return points;
+    }
+
+    /**
+     * @return category keywords in the format of
+     *         {@link Mapping#findCategories(PointOfInterest, Map)}, matching
+     *         the kinds of POI in generated datasets
+     */
+    public static Map<String, Set<String>> categories() {
+        final Map<String, Set<String>> categoryKeywords = new HashMap<>();
+        categoryKeywords.put("Center", Collections.emptySet());
+        categoryKeywords.put("Tech", Collections.singleton("MIT"));
+        categoryKeywords.put("School", new HashSet<>(Arrays.asList("school", "institute", "student")));
+        categoryKeywords.put("Food", new HashSet<>(Arrays.asList("cafe", "market", "taqueria")));
+        categoryKeywords.put("Transit", new HashSet<>(Arrays.asList("station", "stop")));
+        return categoryKeywords;
+    }
+
+    /**
+     * @return a bounding rectangle, in the format of {@link Bounds}, that spans
+     *         the antimeridian
+     */
+    public static List<Angle> wrappingBounds() {
+        return Arrays.asList(new Angle(30, 0, 0, CardinalDirection.NORTH), new Angle(170, 0, 0, CardinalDirection.WEST),
+                new Angle(10, 0, 0, CardinalDirection.SOUTH), new Angle(170, 0, 0, CardinalDirection.EAST));
+    }
+
+    /**
+     * Write POIs to a file in the format read by Main.readPOIsFromFile.
+     *
+     * @param points
+     *            POIs to write
+     * @param file
+     *            file to write, replaced if it exists
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public static void writeCsv(List<PointOfInterest> points, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (PointOfInterest point : points) {
+                writer.write(line(point));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * @param point
+     *            a POI
+     * @return the line of a file read by Main.readPOIsFromFile for point
+     */
+    public static String line(PointOfInterest point) {
+        return point.name() + ", " + point.description() + ", " + fields(point.latitude()) + ", "
+                + fields(point.longitude());
+    }
+
+    private static String fields(Angle angle) {
+        return angle.degrees() + ", " + angle.minutes() + ", " + angle.seconds() + ", " + angle.direction().toChar();
+    }
+}
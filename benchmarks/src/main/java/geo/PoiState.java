@@ -0,0 +1,51 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A synthetic dataset of points of interest (POIs), shared by all threads of
+ * a benchmark and generated once per trial.
+ */
+@State(Scope.Benchmark)
+public class PoiState {
+
+    /** Number of POIs. */
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    public int size;
+
+    /** Fraction of POIs that repeat an earlier POI. */
+    @Param({ "0.1" })
+    public double duplicateRate;
+
+    /** The POIs, in generation order. */
+    public List<PointOfInterest> points;
+    /** The distinct POIs. */
+    public Set<PointOfInterest> set;
+    /** Category keywords matching the POIs. */
+    public Map<String, Set<String>> categoryKeywords;
+    /** A bounding rectangle that spans the antimeridian. */
+    public List<Angle> wrappingBounds;
+
+    /**
+     * Generate the dataset.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        points = PoiDatasets.generate(size, duplicateRate);
+        set = new HashSet<>(points);
+        categoryKeywords = PoiDatasets.categories();
+        wrappingBounds = PoiDatasets.wrappingBounds();
+    }
+}
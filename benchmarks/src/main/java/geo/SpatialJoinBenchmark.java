@@ -0,0 +1,75 @@
+/* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package geo;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link SpatialJoin#withinDistance} between two independent
+ * datasets of the same size.
+ *
+ * <p>
+ * A join of a million POIs takes seconds, so these run fewer and longer
+ * iterations than the other benchmarks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpatialJoinBenchmark {
+
+    /** Number of POIs on each side. */
+    @Param({ "100000", "1000000" })
+    public int size;
+
+    /** Join distance in meters. */
+    @Param({ "5000" })
+    public double meters;
+
+    private List<PointOfInterest> left;
+    private List<PointOfInterest> right;
+
+    /**
+     * Generate the two datasets, from different seeds and without duplicates.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        left = PoiDatasets.generate(size, 0, PoiDatasets.SEED);
+        right = PoiDatasets.generate(size, 0, PoiDatasets.SEED + 1);
+    }
+
+    /**
+     * @return number of pairs found, using every core
+     */
+    @Benchmark
+    public long withinDistance() {
+        return SpatialJoin.withinDistance(left, right, meters, (l, r) -> { });
+    }
+
+    /**
+     * @return number of pairs found, with the threads of the common fork/join
+     *         pool disabled, so that every partition runs in the calling thread
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Djava.util.concurrent.ForkJoinPool.common.parallelism=0")
+    public long withinDistanceOneCore() {
+        return SpatialJoin.withinDistance(left, right, meters, (l, r) -> { });
+    }
+}